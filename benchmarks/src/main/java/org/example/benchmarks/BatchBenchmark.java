@@ -0,0 +1,95 @@
+package org.example.benchmarks;
+
+import org.example.HashTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* Пакетные операции HashTable против цикла одиночных вызовов.
+ * Одна операция бенчмарка – пачка из batchSize ключей.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+
+    @Param({"STRING", "INTEGER"})
+    public KeyType keyType;
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"1024"})
+    public int batchSize;
+
+    private HashTable<Object, Object> table;
+    private Object[] present;
+    private Object[] batch;
+    private Object[] out;
+    private Object[] fresh;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = new HashTable<>();
+        present = keyType.keys(size, 0, 1);
+        for (Object key : present) {
+            table.put(key, key);
+        }
+        batch = new Object[batchSize];
+        out = new Object[batchSize];
+        fresh = keyType.keys(batchSize, size, 2);
+        random = new Random(3);
+    }
+
+    // Случайная пачка присутствующих ключей; при большой таблице почти каждый ключ – промах кэша.
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = present[random.nextInt(size)];
+        }
+    }
+
+    @Benchmark
+    public int getLoop() {
+        int found = 0;
+        for (int i = 0; i < batchSize; i++) {
+            out[i] = table.get(batch[i]);
+            if (out[i] != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int getAll() {
+        return table.getAll(batch, out);
+    }
+
+    // Вставка и удаление пачки отсутствующих ключей: размер таблицы после операции не меняется.
+    @Benchmark
+    public int putRemoveLoop() {
+        for (Object key : fresh) {
+            table.put(key, key);
+        }
+        int removed = 0;
+        for (Object key : fresh) {
+            if (table.remove(key) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Benchmark
+    public int putRemoveAll() {
+        table.putAll(fresh, fresh);
+        return table.removeAll(fresh);
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.example.benchmarks;
+
+import org.example.HashTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/* Построение большой таблицы: цикл put с ростом от емкости по умолчанию против HashTable.build.
+ * Параллельная часть build и перехеширования масштабируется числом ядер (пул ForkJoin по умолчанию).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BuildBenchmark {
+
+    @Param({"STRING", "INTEGER"})
+    public KeyType keyType;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private List<Map.Entry<Object, Object>> entries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        entries = new ArrayList<>(size);
+        for (Object key : keyType.keys(size, 0, 1)) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(key, key));
+        }
+    }
+
+    @Benchmark
+    public HashTable<Object, Object> putLoop() {
+        HashTable<Object, Object> table = new HashTable<>();
+        for (Map.Entry<Object, Object> entry : entries) {
+            table.put(entry.getKey(), entry.getValue());
+        }
+        return table;
+    }
+
+    @Benchmark
+    public HashTable<Object, Object> build() {
+        return HashTable.build(entries, size);
+    }
+
+}
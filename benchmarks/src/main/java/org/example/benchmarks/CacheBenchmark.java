@@ -0,0 +1,76 @@
+package org.example.benchmarks;
+
+import org.example.EvictionPolicy;
+import org.example.HashTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* Ограниченная таблица как кэш: get, а при промахе put, на ключах со степенным распределением
+ * (немногие ключи запрашиваются часто). LINKED_HASH_MAP – LRU на LinkedHashMap в порядке обращений,
+ * который создает узел списка на каждую запись. Доля попаданий печатается в конце прогона.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    private static final int MAX_ENTRIES = 1 << 14;
+    private static final int KEYS = 1 << 20;
+    private static final int SEQUENCE = 1 << 20;
+
+    @Param({"CLOCK", "SAMPLED_LRU", "LINKED_HASH_MAP"})
+    public String policy;
+
+    private Map<Integer, Integer> cache;
+    private Integer[] sequence;
+    private int next;
+    private long hits;
+    private long requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (policy.equals("LINKED_HASH_MAP")) {
+            cache = new LinkedHashMap<>(MAX_ENTRIES * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+        } else {
+            cache = HashTable.cache(MAX_ENTRIES, EvictionPolicy.valueOf(policy));
+        }
+        // Ключи заранее, чтобы генератор не попадал в измерение.
+        Random random = new Random(42);
+        sequence = new Integer[SEQUENCE];
+        for (int i = 0; i < SEQUENCE; i++) {
+            sequence[i] = (int) Math.pow(KEYS, random.nextDouble());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s hit ratio: %.3f%n", policy, (double) hits / requests);
+    }
+
+    @Benchmark
+    public Integer getOrLoad() {
+        Integer key = sequence[next];
+        next = (next + 1) & (SEQUENCE - 1);
+        requests++;
+        Integer value = cache.get(key);
+        if (value != null) {
+            hits++;
+            return value;
+        }
+        cache.put(key, key);
+        return key;
+    }
+
+}
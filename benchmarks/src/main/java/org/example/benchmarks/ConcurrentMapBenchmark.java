@@ -0,0 +1,88 @@
+package org.example.benchmarks;
+
+import org.example.ConcurrentDoubleHashTable;
+import org.example.HashTable;
+import org.example.NonBlockingDoubleHashTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/* Пропускная способность общей map при одновременном доступе.
+ * Число потоков задается опцией JMH -t (по умолчанию 4), доля записей – параметром writePercent.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentMapBenchmark {
+
+    private static final int KEYS = 1 << 16;
+
+    public enum ConcurrentImplementation {
+        STRIPED {
+            @Override
+            Map<Integer, Integer> create() {
+                return new ConcurrentDoubleHashTable<>(KEYS);
+            }
+        },
+        NON_BLOCKING {
+            @Override
+            Map<Integer, Integer> create() {
+                return new NonBlockingDoubleHashTable<>(KEYS);
+            }
+        },
+        CONCURRENT_HASH_MAP {
+            @Override
+            Map<Integer, Integer> create() {
+                return new ConcurrentHashMap<>(KEYS);
+            }
+        },
+        // HashTable под одной глобальной блокировкой.
+        SYNCHRONIZED {
+            @Override
+            Map<Integer, Integer> create() {
+                return Collections.synchronizedMap(new HashTable<>(KEYS));
+            }
+        };
+
+        abstract Map<Integer, Integer> create();
+    }
+
+    @Param({"STRIPED", "NON_BLOCKING", "CONCURRENT_HASH_MAP", "SYNCHRONIZED"})
+    public ConcurrentImplementation implementation;
+
+    @Param({"0", "10", "50"})
+    public int writePercent;
+
+    // Число различных ключей, к которым обращаются потоки; маленькое значение создает горячие ключи.
+    @Param({"65536", "16"})
+    public int hotKeys;
+
+    private Map<Integer, Integer> map;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        map = implementation.create();
+        for (int i = 0; i < KEYS; i++) {
+            map.put(i, i);
+        }
+    }
+
+    @Benchmark
+    public Integer mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = random.nextInt(hotKeys);
+        if (random.nextInt(100) < writePercent) {
+            return map.merge(key, 1, Integer::sum);
+        }
+        return map.get(key);
+    }
+
+}
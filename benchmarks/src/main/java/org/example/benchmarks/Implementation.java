@@ -0,0 +1,50 @@
+package org.example.benchmarks;
+
+import org.example.HashStrategy;
+import org.example.HashTable;
+import org.example.ProbeStrategy;
+
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+// Сравниваемые реализации Map: исследуемая таблица и базовые реализации JDK.
+public enum Implementation {
+    DOUBLE_HASH {
+        @Override
+        public <K, V> Map<K, V> create(int capacity, float loadFactor) {
+            return new HashTable<>(capacity, loadFactor);
+        }
+    },
+    // Та же таблица с емкостью – степенью двойки.
+    DOUBLE_HASH_POW2 {
+        @Override
+        public <K, V> Map<K, V> create(int capacity, float loadFactor) {
+            return new HashTable<>(capacity, loadFactor, HashStrategy.MURMUR3, ProbeStrategy.POWER_OF_TWO);
+        }
+    },
+    // Та же таблица с включенной статистикой: показывает цену инструментирования.
+    DOUBLE_HASH_STATS {
+        @Override
+        public <K, V> Map<K, V> create(int capacity, float loadFactor) {
+            HashTable<K, V> table = new HashTable<>(capacity, loadFactor);
+            table.setStatisticsEnabled(true);
+            return table;
+        }
+    },
+    HASH_MAP {
+        @Override
+        public <K, V> Map<K, V> create(int capacity, float loadFactor) {
+            return new HashMap<>(capacity, loadFactor);
+        }
+    },
+    HASHTABLE {
+        @Override
+        public <K, V> Map<K, V> create(int capacity, float loadFactor) {
+            return new Hashtable<>(capacity, loadFactor);
+        }
+    };
+
+    // Создает пустую map с заданной начальной емкостью и коэффициентом загрузки.
+    public abstract <K, V> Map<K, V> create(int capacity, float loadFactor);
+}
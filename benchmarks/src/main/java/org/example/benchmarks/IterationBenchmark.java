@@ -0,0 +1,55 @@
+package org.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Измерение полного обхода entrySet(), результат приводится к одной записи.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IterationBenchmark {
+
+    private static final int SIZE = 100_000;
+
+    @Param({"DOUBLE_HASH", "HASH_MAP", "HASHTABLE"})
+    public Implementation implementation;
+
+    @Param({"STRING", "INTEGER"})
+    public KeyType keyType;
+
+    @Param({"0.5", "0.75"})
+    public float loadFactor;
+
+    private Map<Object, Object> map;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        map = implementation.create(16, loadFactor);
+        for (Object key : keyType.keys(SIZE, 0, 1)) {
+            map.put(key, key);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void entrySet(Blackhole blackhole) {
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    // Параллельная свертка по ключам: проверяет, насколько хорошо делится spliterator.
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public long parallelKeyStream() {
+        return map.keySet().parallelStream().mapToLong(Object::hashCode).sum();
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.example.benchmarks;
+
+import org.example.HashTable;
+import org.example.JournaledHashTable;
+import org.example.SnapshotCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/* Стоимость журнала изменений: put в JournaledHashTable с разными режимами сброса на диск
+ * против put в HashTable без журнала. MEMORY – HashTable без журнала.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+
+    private static final int KEYS = 1 << 16;
+
+    @Param({"MEMORY", "NONE", "BATCH", "ALWAYS"})
+    public String syncMode;
+
+    private Map<Integer, Integer> map;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (syncMode.equals("MEMORY")) {
+            map = new HashTable<>(KEYS);
+        } else {
+            directory = Files.createTempDirectory("journal");
+            map = JournaledHashTable.open(directory, SnapshotCodec.INTEGER, SnapshotCodec.INTEGER,
+                    JournaledHashTable.SyncMode.valueOf(syncMode));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (directory != null) {
+            ((JournaledHashTable<Integer, Integer>) map).close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Integer put() {
+        int key = ThreadLocalRandom.current().nextInt(KEYS);
+        return map.put(key, key);
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.example.benchmarks;
+
+import java.util.Random;
+
+// Виды ключей, на которых измеряется таблица.
+public enum KeyType {
+    STRING {
+        @Override
+        Object key(int id) {
+            return "key-" + id;
+        }
+    },
+    INTEGER {
+        @Override
+        Object key(int id) {
+            return id;
+        }
+    },
+    // Ключи с плохим распределением hashCode: группы одинаковых хэшей, кратных 1024.
+    COLLIDING {
+        @Override
+        Object key(int id) {
+            return new CollidingKey(id);
+        }
+    };
+
+    abstract Object key(int id);
+
+    /* Возвращает count различных ключей в случайном порядке.
+     * Параметры:
+     * count – количество ключей.
+     * offset – начальный идентификатор, позволяет получить ключи, не пересекающиеся с другими наборами.
+     */
+    public Object[] keys(int count, int offset, long seed) {
+        Object[] keys = new Object[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = key(offset + i);
+        }
+        Random random = new Random(seed);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Object tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        return keys;
+    }
+
+    // Ключ с адверсарным hashCode.
+    static final class CollidingKey {
+        private final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (id >>> 2) << 10;
+        }
+
+        @Override
+        public String toString() {
+            return "CollidingKey{" + id + "}";
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Измерение get и containsKey при заданной доле попаданий.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LookupBenchmark {
+
+    private static final int LOOKUPS = 4096;
+
+    @Param({"DOUBLE_HASH", "DOUBLE_HASH_POW2", "DOUBLE_HASH_STATS", "HASH_MAP", "HASHTABLE"})
+    public Implementation implementation;
+
+    @Param({"STRING", "INTEGER", "COLLIDING"})
+    public KeyType keyType;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"0.5", "0.75"})
+    public float loadFactor;
+
+    @Param({"0.0", "0.5", "1.0"})
+    public double hitRatio;
+
+    private Map<Object, Object> map;
+    private Object[] lookups;
+    private int cursor;
+
+    // Заполняет map и готовит поток запросов: доля hitRatio ключей присутствует в map, остальные нет.
+    @Setup(Level.Trial)
+    public void setUp() {
+        map = implementation.create(16, loadFactor);
+        Object[] present = keyType.keys(size, 0, 1);
+        for (Object key : present) {
+            map.put(key, key);
+        }
+
+        Object[] absent = keyType.keys(LOOKUPS, size, 2);
+        Random random = new Random(3);
+        lookups = new Object[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = random.nextDouble() < hitRatio ? present[random.nextInt(size)] : absent[i];
+        }
+    }
+
+    @Benchmark
+    public Object get() {
+        return map.get(lookups[cursor++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public boolean containsKey() {
+        return map.containsKey(lookups[cursor++ & (LOOKUPS - 1)]);
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/* Измерение put, remove и putAll.
+ * Каждый вызов обрабатывает все size ключей, результат приводится к одной операции через OperationsPerInvocation,
+ * поэтому size ограничен значениями, для которых подготовка состояния на вызов не доминирует.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MutationBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    @Param({"DOUBLE_HASH", "DOUBLE_HASH_STATS", "HASH_MAP", "HASHTABLE"})
+    public Implementation implementation;
+
+    @Param({"STRING", "INTEGER", "COLLIDING"})
+    public KeyType keyType;
+
+    @Param({"0.5", "0.75"})
+    public float loadFactor;
+
+    private Object[] keys;
+    private Map<Object, Object> source;
+    private Map<Object, Object> filled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = keyType.keys(SIZE, 0, 1);
+        source = new HashMap<>();
+        for (Object key : keys) {
+            source.put(key, key);
+        }
+    }
+
+    // Заполненная map для remove, создается заново перед каждым вызовом.
+    @Setup(Level.Invocation)
+    public void fill() {
+        filled = implementation.create(16, loadFactor);
+        for (Object key : keys) {
+            filled.put(key, key);
+        }
+    }
+
+    // Вставка в пустую map с начальной емкостью по умолчанию, включая все перехеширования.
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public Map<Object, Object> put() {
+        Map<Object, Object> map = implementation.create(16, loadFactor);
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    // Обновление значений уже существующих ключей.
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public Map<Object, Object> update() {
+        Map<Object, Object> map = filled;
+        for (Object key : keys) {
+            map.put(key, Boolean.TRUE);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public Map<Object, Object> remove() {
+        Map<Object, Object> map = filled;
+        for (Object key : keys) {
+            map.remove(key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public Map<Object, Object> putAll() {
+        Map<Object, Object> map = implementation.create(16, loadFactor);
+        map.putAll(source);
+        return map;
+    }
+
+}
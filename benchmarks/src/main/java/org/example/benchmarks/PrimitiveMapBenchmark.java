@@ -0,0 +1,79 @@
+package org.example.benchmarks;
+
+import org.example.HashTable;
+import org.example.IntIntDoubleHashTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Счетчики int -> int: IntIntDoubleHashTable против упакованных HashTable и HashMap.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveMapBenchmark {
+
+    private static final int OPERATIONS = 4096;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private int[] ids;
+    private IntIntDoubleHashTable primitive;
+    private Map<Integer, Integer> boxed;
+    private Map<Integer, Integer> hashMap;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        ids = new int[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            ids[i] = random.nextInt(size);
+        }
+        primitive = new IntIntDoubleHashTable();
+        boxed = new HashTable<>();
+        hashMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            primitive.put(i, i);
+            boxed.put(i, i);
+            hashMap.put(i, i);
+        }
+    }
+
+    @Benchmark
+    public int primitiveGet() {
+        return primitive.get(ids[cursor++ & (OPERATIONS - 1)]);
+    }
+
+    @Benchmark
+    public Integer boxedGet() {
+        return boxed.get(ids[cursor++ & (OPERATIONS - 1)]);
+    }
+
+    @Benchmark
+    public Integer hashMapGet() {
+        return hashMap.get(ids[cursor++ & (OPERATIONS - 1)]);
+    }
+
+    @Benchmark
+    public int primitiveIncrement() {
+        return primitive.addTo(ids[cursor++ & (OPERATIONS - 1)], 1);
+    }
+
+    @Benchmark
+    public Integer boxedIncrement() {
+        return boxed.merge(ids[cursor++ & (OPERATIONS - 1)], 1, Integer::sum);
+    }
+
+    @Benchmark
+    public Integer hashMapIncrement() {
+        return hashMap.merge(ids[cursor++ & (OPERATIONS - 1)], 1, Integer::sum);
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.example.benchmarks;
+
+import org.example.HashTable;
+import org.example.HashTableSnapshot;
+import org.example.MappedStringTable;
+import org.example.SnapshotCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/* Сохранение и загрузка таблицы со строковыми ключами: снимок HashTableSnapshot против повторной вставки всех записей,
+ * а также поиск прямо в отображенном снимке (MappedStringTable) против поиска в загруженной таблице.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    private String[] keys;
+    private HashTable<String, Integer> table;
+    private Path file;
+    private MappedStringTable<Integer> mapped;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        keys = new String[size];
+        table = new HashTable<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = "key-" + i;
+            table.put(keys[i], i);
+        }
+        file = Files.createTempFile("snapshot", ".dhts");
+        HashTableSnapshot.write(table, file, SnapshotCodec.STRING, SnapshotCodec.INTEGER);
+        mapped = MappedStringTable.open(file, SnapshotCodec.INTEGER);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mapped.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Path write() throws IOException {
+        HashTableSnapshot.write(table, file, SnapshotCodec.STRING, SnapshotCodec.INTEGER);
+        return file;
+    }
+
+    @Benchmark
+    public HashTable<String, Integer> read() throws IOException {
+        return HashTableSnapshot.read(file, SnapshotCodec.STRING, SnapshotCodec.INTEGER);
+    }
+
+    // Загрузка без снимка: все записи вставляются заново с перехешированием по мере роста.
+    @Benchmark
+    public HashTable<String, Integer> reinsert() {
+        HashTable<String, Integer> copy = new HashTable<>();
+        for (int i = 0; i < size; i++) {
+            copy.put(keys[i], i);
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public long mappedLookup() {
+        long sum = 0;
+        for (String key : keys) {
+            sum += mapped.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long heapLookup() {
+        long sum = 0;
+        for (String key : keys) {
+            sum += table.get(key);
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.example.benchmarks;
+
+import org.example.HashTable;
+import org.example.StringObjectDoubleHashTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Строковые ключи: StringObjectDoubleHashTable (ключи в arena, поиск по String и по байтам UTF-8) против HashTable и HashMap.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringKeyBenchmark {
+
+    private static final int LOOKUPS = 4096;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private StringObjectDoubleHashTable<Integer> arena;
+    private Map<String, Integer> table;
+    private Map<String, Integer> hashMap;
+    private String[] keys;
+    private byte[][] utf8;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        arena = new StringObjectDoubleHashTable<>();
+        table = new HashTable<>();
+        hashMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Integer value = i;
+            arena.put("user:" + i, value);
+            table.put("user:" + i, value);
+            hashMap.put("user:" + i, value);
+        }
+        // Ключи запросов – отдельные объекты с уже посчитанным hashCode, как пришедшие извне.
+        Random random = new Random(9);
+        keys = new String[LOOKUPS];
+        utf8 = new byte[LOOKUPS][];
+        for (int i = 0; i < LOOKUPS; i++) {
+            keys[i] = "user:" + random.nextInt(size);
+            keys[i].hashCode();
+            utf8[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public Integer arenaGet() {
+        return arena.get(keys[cursor++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public Integer arenaGetBytes() {
+        return arena.get(utf8[cursor++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public Integer hashTableGet() {
+        return table.get(keys[cursor++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public Integer hashMapGet() {
+        return hashMap.get(keys[cursor++ & (LOOKUPS - 1)]);
+    }
+
+}
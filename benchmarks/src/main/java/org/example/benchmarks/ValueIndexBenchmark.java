@@ -0,0 +1,70 @@
+package org.example.benchmarks;
+
+import org.example.HashTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* Обратный индекс значений: containsValue и put, меняющий значение существующего ключа,
+ * с индексом и без. Значение общее для keysPerValue ключей (1 – все значения уникальны).
+ * Без индекса containsValue проходит весь массив ячеек, с индексом – одна проба.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValueIndexBenchmark {
+
+    private static final int OPERATIONS = 4096;
+
+    @Param({"false", "true"})
+    public boolean valueIndex;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"1", "4", "64"})
+    public int keysPerValue;
+
+    private HashTable<Integer, Integer> table;
+    private Integer[] keys;
+    private Integer[] values;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = new HashTable<>();
+        int distinct = Math.max(1, size / keysPerValue);
+        Integer[] pool = new Integer[distinct];
+        for (int i = 0; i < distinct; i++) {
+            pool[i] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            table.put(i, pool[i % distinct]);
+        }
+        table.setValueIndexEnabled(valueIndex);
+
+        Random random = new Random(5);
+        keys = new Integer[OPERATIONS];
+        values = new Integer[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            keys[i] = random.nextInt(size);
+            values[i] = pool[random.nextInt(distinct)];
+        }
+    }
+
+    @Benchmark
+    public boolean containsValue() {
+        return table.containsValue(values[cursor++ & (OPERATIONS - 1)]);
+    }
+
+    @Benchmark
+    public Integer replaceValue() {
+        int i = cursor++ & (OPERATIONS - 1);
+        return table.put(keys[i], values[i]);
+    }
+
+}
@@ -3,6 +3,7 @@ module org.example {
     requires javafx.fxml;
     requires javafx.base;
     requires javafx.graphics;
+    requires java.management;
 
     opens org.example to javafx.fxml;
     exports org.example;
@@ -0,0 +1,690 @@
+package org.example;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/* Потокобезопасная хэш-таблица с двойным хешированием.
+ * Ключи распределяются по сегментам; каждый сегмент – отдельная таблица с открытой адресацией
+ * (та же последовательность проб, что и в HashTable) со своей блокировкой записи.
+ * Запись в разные сегменты идет параллельно, рост таблицы тоже выполняется посегментно:
+ * пока сегмент перехешируется, ждут только писатели этого сегмента.
+ *
+ * get и containsKey не захватывают блокировку: они читают массивы сегмента оптимистично и проверяют
+ * штамп StampedLock, который писатели берут только на короткое время изменения ячейки.
+ * Перехеширование строит новый массив рядом со старым и публикует его одной volatile-записью,
+ * поэтому старый массив остается согласованным для читателей. Только если оптимистичное чтение
+ * несколько раз подряд пересекается с записью, читатель ждет разделяемую блокировку.
+ *
+ * Методы compute*, merge, putIfAbsent и replace атомарны: функция вызывается под блокировкой сегмента,
+ * поэтому она должна быть короткой и не должна изменять эту таблицу.
+ * Итераторы слабо согласованы и не бросают ConcurrentModificationException.
+ * Ключи и значения null не допускаются.
+ */
+public class ConcurrentDoubleHashTable<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    // Маркер удаленной ячейки в массиве ключей.
+    private static final Object TOMBSTONE = new Object();
+    // Число оптимистичных попыток чтения до перехода на разделяемую блокировку.
+    private static final int OPTIMISTIC_ATTEMPTS = 8;
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /* Создает новую пустую таблицу.
+     * Параметры:
+     * capacity – ожидаемое количество ключей во всей таблице.
+     * loadFactor – коэффициент загрузки каждого сегмента.
+     * concurrencyLevel – ожидаемое число одновременно пишущих потоков; определяет количество сегментов.
+     * Бросает:
+     * Исключение IllegalArgumentException – если емкость отрицательная, коэффициент загрузки не лежит в (0, 1)
+     * или уровень параллелизма не положителен.
+     */
+    public ConcurrentDoubleHashTable(int capacity, float loadFactor, int concurrencyLevel) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal Load: " + loadFactor);
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Illegal concurrency level: " + concurrencyLevel);
+        }
+
+        int bits = 0;
+        while ((1 << bits) < Math.min(concurrencyLevel, MAX_SEGMENTS)) {
+            bits++;
+        }
+        this.segmentShift = 32 - bits;
+        this.segmentMask = (1 << bits) - 1;
+        this.segments = new Segment[1 << bits];
+        int segmentCapacity = (int) (capacity / loadFactor / segments.length) + 1;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(segmentCapacity, loadFactor);
+        }
+    }
+
+    // Создает новую пустую таблицу с заданной емкостью, коэффициентом загрузки 0,75
+    // и числом сегментов, в четыре раза большим числа процессоров.
+    public ConcurrentDoubleHashTable(int capacity) {
+        this(capacity, 0.75f, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    // Создает новую пустую таблицу с параметрами по умолчанию.
+    public ConcurrentDoubleHashTable() {
+        this(16);
+    }
+
+    // Возвращает количество ключей. При одновременных изменениях результат приблизителен.
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.size != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    // Возвращает значение true, если какой-либо ключ сопоставлен этому значению. Просматривает всю таблицу.
+    @Override
+    public boolean containsValue(Object value) {
+        Objects.requireNonNull(value);
+        for (Segment segment : segments) {
+            long stamp = segment.mutation.readLock();
+            try {
+                Table table = segment.table;
+                for (int i = 0; i < table.capacity; i++) {
+                    Object key = table.keys[i];
+                    if (key != null && key != TOMBSTONE && value.equals(table.vals[i])) {
+                        return true;
+                    }
+                }
+            } finally {
+                segment.mutation.unlockRead(stamp);
+            }
+        }
+        return false;
+    }
+
+    // Возвращает значение ключа или null, не захватывая блокировку в обычном случае.
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        StampedLock lock = segment.mutation;
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Object value;
+            try {
+                value = segment.table.lookup(key, hash);
+            } catch (RuntimeException e) {
+                // Несогласованное чтение во время записи; штамп не пройдет проверку.
+                value = null;
+            }
+            if (lock.validate(stamp)) {
+                return (V) value;
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return (V) segment.table.lookup(key, hash);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            return (V) segment.put(key, hash, value, false);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value);
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            return (V) segment.put(key, hash, value, true);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int index = segment.table.find(key, hash);
+            if (index < 0) {
+                return null;
+            }
+            V old = (V) segment.table.vals[index];
+            segment.removeAt(index);
+            return old;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (value == null) {
+            return false;
+        }
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int index = segment.table.find(key, hash);
+            if (index < 0 || !value.equals(segment.table.vals[index])) {
+                return false;
+            }
+            segment.removeAt(index);
+            return true;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue);
+        Objects.requireNonNull(newValue);
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int index = segment.table.find(key, hash);
+            if (index < 0 || !oldValue.equals(segment.table.vals[index])) {
+                return false;
+            }
+            segment.setValue(index, newValue);
+            return true;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V replace(K key, V value) {
+        Objects.requireNonNull(value);
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int index = segment.table.find(key, hash);
+            if (index < 0) {
+                return null;
+            }
+            V old = (V) segment.table.vals[index];
+            segment.setValue(index, value);
+            return old;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    // Атомарно вычисляет значение отсутствующего ключа; функция вызывается не больше одного раза.
+    @Override
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        V present = get(key);
+        if (present != null) {
+            return present;
+        }
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int index = segment.table.find(key, hash);
+            if (index >= 0) {
+                return (V) segment.table.vals[index];
+            }
+            V value = mappingFunction.apply(key);
+            if (value != null) {
+                segment.insert(key, hash, value);
+            }
+            return value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    // Атомарно пересчитывает значение присутствующего ключа; null удаляет ключ.
+    @Override
+    @SuppressWarnings("unchecked")
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int index = segment.table.find(key, hash);
+            if (index < 0) {
+                return null;
+            }
+            V value = remappingFunction.apply(key, (V) segment.table.vals[index]);
+            if (value == null) {
+                segment.removeAt(index);
+            } else {
+                segment.setValue(index, value);
+            }
+            return value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    // Атомарно вычисляет новое значение по текущему (или null); null удаляет ключ.
+    @Override
+    @SuppressWarnings("unchecked")
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int index = segment.table.find(key, hash);
+            V old = index >= 0 ? (V) segment.table.vals[index] : null;
+            V value = remappingFunction.apply(key, old);
+            if (value == null) {
+                if (index >= 0) {
+                    segment.removeAt(index);
+                }
+            } else if (index >= 0) {
+                segment.setValue(index, value);
+            } else {
+                segment.insert(key, hash, value);
+            }
+            return value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    // Атомарно объединяет значение с текущим; null результата удаляет ключ.
+    @Override
+    @SuppressWarnings("unchecked")
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        int hash = key.hashCode();
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int index = segment.table.find(key, hash);
+            if (index < 0) {
+                segment.insert(key, hash, value);
+                return value;
+            }
+            V merged = remappingFunction.apply((V) segment.table.vals[index], value);
+            if (merged == null) {
+                segment.removeAt(index);
+            } else {
+                segment.setValue(index, merged);
+            }
+            return merged;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    // Очищает таблицу посегментно; одновременные вставки в уже очищенные сегменты сохраняются.
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    // Возвращает слабо согласованный набор записей.
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentDoubleHashTable.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Object value = get(entry.getKey());
+            return value != null && value.equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return ConcurrentDoubleHashTable.this.remove(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentDoubleHashTable.this.clear();
+        }
+    }
+
+    /* Итератор по сегментам: записи очередного сегмента копируются под разделяемой блокировкой,
+     * поэтому итератор видит каждый сегмент согласованным на момент перехода к нему.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private int segmentIndex = 0;
+        private Object[] keys = new Object[0];
+        private Object[] vals = new Object[0];
+        private int count = 0;
+        private int position = 0;
+        private K lastKey;
+
+        @Override
+        public boolean hasNext() {
+            while (position == count && segmentIndex < segments.length) {
+                loadSegment(segments[segmentIndex++]);
+            }
+            return position < count;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastKey = (K) keys[position];
+            V value = (V) vals[position];
+            position++;
+            return new WriteThroughEntry(lastKey, value);
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentDoubleHashTable.this.remove(lastKey);
+            lastKey = null;
+        }
+
+        private void loadSegment(Segment segment) {
+            long stamp = segment.mutation.readLock();
+            try {
+                Table table = segment.table;
+                int live = segment.size;
+                if (keys.length < live) {
+                    keys = new Object[live];
+                    vals = new Object[live];
+                }
+                count = 0;
+                for (int i = 0; i < table.capacity && count < live; i++) {
+                    Object key = table.keys[i];
+                    if (key != null && key != TOMBSTONE) {
+                        keys[count] = key;
+                        vals[count] = table.vals[i];
+                        count++;
+                    }
+                }
+                position = 0;
+            } finally {
+                segment.mutation.unlockRead(stamp);
+            }
+        }
+    }
+
+    // Запись итератора; setValue записывает значение в таблицу.
+    private final class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            Objects.requireNonNull(value);
+            V old = super.setValue(value);
+            ConcurrentDoubleHashTable.this.put(getKey(), value);
+            return old;
+        }
+    }
+
+    // Выбирает сегмент по старшим битам перемешанного hashCode.
+    private Segment segmentFor(int hash) {
+        return segments[((hash * 0x9E3779B9) >>> segmentShift) & segmentMask];
+    }
+
+    /* Массивы одного сегмента. После публикации в Segment.table ссылки на массивы не меняются;
+     * содержимое ячеек меняется только под записывающим штампом Segment.mutation.
+     */
+    private static final class Table {
+        final Object[] keys;
+        final Object[] vals;
+        final int[] hashes;
+        final int capacity;
+        int maxProbe = 0;
+
+        Table(int capacity) {
+            this.capacity = capacity;
+            keys = new Object[capacity];
+            vals = new Object[capacity];
+            hashes = new int[capacity];
+        }
+
+        // Поиск ключа: до первой свободной ячейки, но не дальше maxProbe проб.
+        int find(Object key, int hash) {
+            int index = DoubleHashing.start(hash, capacity);
+            int step = DoubleHashing.step(hash, capacity);
+            int limit = Math.min(maxProbe, capacity);
+            for (int n = 0; n <= limit; n++, index = DoubleHashing.next(index, step, capacity)) {
+                Object candidate = keys[index];
+                if (candidate == null) {
+                    return -1;
+                }
+                if (candidate != TOMBSTONE && hashes[index] == hash && (candidate == key || candidate.equals(key))) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        // Значение ключа или null.
+        Object lookup(Object key, int hash) {
+            int index = find(key, hash);
+            return index >= 0 ? vals[index] : null;
+        }
+
+        // Возвращает первую свободную или удаленную ячейку последовательности и длину пробы до нее в probe[0].
+        int findEmptyIndex(int hash, int[] probe) {
+            int index = DoubleHashing.start(hash, capacity);
+            int step = DoubleHashing.step(hash, capacity);
+            for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+                Object candidate = keys[index];
+                if (candidate == null || candidate == TOMBSTONE) {
+                    probe[0] = n;
+                    return index;
+                }
+            }
+        }
+    }
+
+    // Сегмент таблицы. Все изменения выполняются под lock.
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final StampedLock mutation = new StampedLock();
+        volatile Table table;
+        volatile int size = 0;
+        int tombstones = 0;
+        // Длина пробы, найденная findEmptyIndex; поле, чтобы не выделять массив на каждую вставку.
+        final int[] probe = new int[1];
+
+        final float loadFactor;
+
+        Segment(int capacity, float loadFactor) {
+            this.loadFactor = loadFactor;
+            table = new Table(DoubleHashing.tableSizeFor(capacity));
+        }
+
+        // Возвращает предыдущее значение ключа или null.
+        Object put(Object key, int hash, Object value, boolean onlyIfAbsent) {
+            int index = table.find(key, hash);
+            if (index >= 0) {
+                Object old = table.vals[index];
+                if (!onlyIfAbsent) {
+                    setValue(index, value);
+                }
+                return old;
+            }
+            insert(key, hash, value);
+            return null;
+        }
+
+        // Вставка отсутствующего ключа; при необходимости сегмент перехешируется.
+        void insert(Object key, int hash, Object value) {
+            Table current = table;
+            if (size + tombstones + 1 >= loadFactor * current.capacity) {
+                resize(tombstones > size / 2 ? current.capacity : DoubleHashing.grow(current.capacity));
+                current = table;
+            }
+            int index = current.findEmptyIndex(hash, probe);
+            if (current.keys[index] == TOMBSTONE) {
+                tombstones--;
+            }
+            // size меняется под той же блокировкой, что и ячейка: итератор сверяет с ним число живых ключей.
+            long stamp = mutation.writeLock();
+            try {
+                current.vals[index] = value;
+                current.hashes[index] = hash;
+                current.keys[index] = key;
+                current.maxProbe = Math.max(current.maxProbe, probe[0]);
+                size = size + 1;
+            } finally {
+                mutation.unlockWrite(stamp);
+            }
+        }
+
+        void setValue(int index, Object value) {
+            long stamp = mutation.writeLock();
+            try {
+                table.vals[index] = value;
+            } finally {
+                mutation.unlockWrite(stamp);
+            }
+        }
+
+        void removeAt(int index) {
+            Table current = table;
+            long stamp = mutation.writeLock();
+            try {
+                current.keys[index] = TOMBSTONE;
+                current.vals[index] = null;
+                size = size - 1;
+            } finally {
+                mutation.unlockWrite(stamp);
+            }
+            tombstones++;
+        }
+
+        void clear() {
+            Table current = table;
+            long stamp = mutation.writeLock();
+            try {
+                table = new Table(current.capacity);
+                size = 0;
+            } finally {
+                mutation.unlockWrite(stamp);
+            }
+            tombstones = 0;
+        }
+
+        /* Строит новый массив рядом со старым и публикует его. Старый массив при этом не меняется,
+         * поэтому читатели, уже начавшие поиск в нем, получают согласованный результат.
+         */
+        void resize(int newCapacity) {
+            Table old = table;
+            Table fresh = new Table(newCapacity);
+            for (int i = 0; i < old.capacity; i++) {
+                Object key = old.keys[i];
+                if (key != null && key != TOMBSTONE) {
+                    int index = fresh.findEmptyIndex(old.hashes[i], probe);
+                    fresh.keys[index] = key;
+                    fresh.vals[index] = old.vals[i];
+                    fresh.hashes[index] = old.hashes[i];
+                    fresh.maxProbe = Math.max(fresh.maxProbe, probe[0]);
+                }
+            }
+            tombstones = 0;
+            table = fresh;
+        }
+    }
+
+}
@@ -1,20 +1,35 @@
 package org.example;
 
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.io.IOException;
+
 public class Controller {
     HashTable<String, String> table = new HashTable<>();
+    // Строки таблицы для TableView; обновляются при каждом изменении table.
+    HashTableRows<String, String> rows = new HashTableRows<>(table);
 
     @FXML
-    private ListView<String> keyListView;
-    public ListView<String> valueListView;
+    private TableView<HashTableRows.Row<String, String>> tableView;
+    public TableColumn<HashTableRows.Row<String, String>, String> keyColumn;
+    public TableColumn<HashTableRows.Row<String, String>, String> valueColumn;
+    public TableColumn<HashTableRows.Row<String, String>, Integer> slotColumn;
+    public TableColumn<HashTableRows.Row<String, String>, Integer> probeColumn;
     public TextField keyTextField;
     public TextField valueTextField;
     public Button putButton;
@@ -24,28 +39,42 @@ public class Controller {
     public TextField containsKeyTextField;
     public Label containsKeyLabel;
     public Button closeButton;
+    public Button importButton;
+    public Button exportButton;
+    public Button cancelButton;
+    public Button workloadButton;
+    public ProgressBar progressBar;
+    public Label transferLabel;
+    // Текущий импорт или экспорт; null, если ничего не выполняется.
+    private Task<Long> transfer;
 
     // Метод инициализации, который делает кнопки заблокированными.
     @FXML
     public void initialize() {
+        keyColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getKey()));
+        valueColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getValue()));
+        slotColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getSlot()));
+        probeColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getProbeDistance()));
+        tableView.setItems(rows);
+
         putButton.disableProperty().bind
                 (keyTextField.textProperty().isEmpty().or(valueTextField.textProperty().isEmpty()));
         removeButton.disableProperty().bind
-                (keyListView.getSelectionModel().selectedItemProperty().isNull());
+                (tableView.getSelectionModel().selectedItemProperty().isNull());
         getButton.disableProperty().bind
-                (keyListView.getSelectionModel().selectedItemProperty().isNull());
+                (tableView.getSelectionModel().selectedItemProperty().isNull());
+        cancelButton.setDisable(true);
+    }
+
+    // Ключ выбранной строки.
+    private String selectedKey() {
+        return tableView.getSelectionModel().getSelectedItem().getKey();
     }
 
     // Метод для кнопки "put".
     @FXML
     private void putClicked() {
-        if (table.containsKey(keyTextField.getText())) {
-            valueListView.getItems().remove(table.get(keyTextField.getText()));
-            keyListView.getItems().remove(keyTextField.getText());
-        }
         table.put(keyTextField.getText(), valueTextField.getText());
-        keyListView.getItems().addAll(keyTextField.getText());
-        valueListView.getItems().addAll(valueTextField.getText());
         keyTextField.clear();
         valueTextField.clear();
     }
@@ -53,24 +82,100 @@ public class Controller {
     // Метод для кнопки "get".
     @FXML
     private void getClicked() {
-        getLabel.setText(table.get(keyListView.getSelectionModel().getSelectedItem()));
+        getLabel.setText(table.get(selectedKey()));
     }
 
     // Метод для кнопки "remove".
     @FXML
     private void removeClicked() {
-        valueListView.getItems().remove(table.get(keyListView.getSelectionModel().getSelectedItem()));
-        table.remove(keyListView.getSelectionModel().getSelectedItem());
-        keyListView.getItems().remove(keyListView.getSelectionModel().getSelectedItem());
+        table.remove(selectedKey());
     }
 
     // Метод для кнопки "close".
     @FXML
     private void closeButtonAction() {
+        cancelClicked();
         Stage stage = (Stage) closeButton.getScene().getWindow();
         stage.close();
     }
 
+    // Метод для кнопки "import": загружает записи из CSV или TSV в фоновом потоке.
+    @FXML
+    private void importClicked() {
+        File file = fileChooser("Import").showOpenDialog(importButton.getScene().getWindow());
+        if (file != null) {
+            start(TableTransfer.importTask(file.toPath(), rows));
+        }
+    }
+
+    // Метод для кнопки "export": сохраняет копию таблицы в CSV или TSV в фоновом потоке.
+    @FXML
+    private void exportClicked() {
+        File file = fileChooser("Export").showSaveDialog(exportButton.getScene().getWindow());
+        if (file != null) {
+            start(TableTransfer.exportTask(file.toPath(), rows));
+        }
+    }
+
+    // Метод для кнопки "cancel".
+    @FXML
+    private void cancelClicked() {
+        if (transfer != null) {
+            transfer.cancel();
+        }
+    }
+
+    // Метод для кнопки "workload": открывает окно генератора нагрузки с графиками.
+    @FXML
+    private void workloadClicked() throws IOException {
+        FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("workload.fxml"));
+        Stage stage = new Stage();
+        stage.setTitle("Workload");
+        stage.setScene(new Scene(fxmlLoader.load()));
+        WorkloadController controller = fxmlLoader.getController();
+        stage.setOnHidden(event -> controller.shutdown());
+        stage.show();
+    }
+
+    private FileChooser fileChooser(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("TSV", "*.tsv", "*.tab"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        return chooser;
+    }
+
+    // Запускает задачу в фоновом потоке и показывает ее прогресс; кнопки импорта и экспорта блокируются до конца.
+    private void start(Task<Long> task) {
+        transfer = task;
+        importButton.setDisable(true);
+        exportButton.setDisable(true);
+        cancelButton.setDisable(false);
+        progressBar.progressProperty().bind(task.progressProperty());
+        transferLabel.textProperty().bind(task.messageProperty());
+        task.stateProperty().addListener((observable, oldState, state) -> {
+            if (!task.isDone()) {
+                return;
+            }
+            progressBar.progressProperty().unbind();
+            transferLabel.textProperty().unbind();
+            if (task.getException() != null) {
+                transferLabel.setText("Failed: " + task.getException().getMessage());
+            } else if (task.isCancelled()) {
+                transferLabel.setText("Cancelled, " + transferLabel.getText());
+            }
+            importButton.setDisable(false);
+            exportButton.setDisable(false);
+            cancelButton.setDisable(true);
+            transfer = null;
+        });
+        Thread thread = new Thread(task, "table-transfer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     // Метод, проверяющий содержание ключа (да или нет).
     @FXML
     private void containsKeyTyped() {
@@ -88,7 +193,7 @@ public class Controller {
     // Метод, реализующий нажатие клавиши "Delete".
     @FXML
     public void deleteHandle(KeyEvent keyEvent) {
-        if (keyEvent.getCode() == KeyCode.DELETE) removeClicked();
+        if (keyEvent.getCode() == KeyCode.DELETE && !removeButton.isDisabled()) removeClicked();
     }
 
 }
@@ -0,0 +1,40 @@
+package org.example;
+
+/* Общая схема двойного хеширования для HashTable и ее специализированных вариантов.
+ * Все функции работают с hashCode ключа и емкостью массива, поэтому не зависят от типа ключа.
+ * Схема совпадает со стратегиями HashTable по умолчанию: HashStrategy.MURMUR3 и ProbeStrategy.PRIME.
+ */
+final class DoubleHashing {
+
+    private DoubleHashing() {
+    }
+
+    // Возвращает первую ячейку последовательности проб для массива заданной емкости по hashCode ключа.
+    static int start(int hashCode, int capacity) {
+        return ProbeStrategy.PRIME.start(HashStrategy.MURMUR3.mix(hashCode), capacity);
+    }
+
+    // Возвращает шаг последовательности проб для массива заданной емкости по hashCode ключа.
+    static int step(int hashCode, int capacity) {
+        return ProbeStrategy.PRIME.step(HashStrategy.MURMUR3.mix(hashCode), capacity);
+    }
+
+    /* Возвращает следующую ячейку последовательности.
+     * Шаг меньше емкости, поэтому вместо остатка от деления достаточно одного вычитания.
+     */
+    static int next(int index, int step, int capacity) {
+        index += step;
+        return index >= capacity ? index - capacity : index;
+    }
+
+    // Возвращает допустимую (простую) емкость не меньше заданной.
+    static int tableSizeFor(int capacity) {
+        return ProbeStrategy.PRIME.tableSizeFor(capacity);
+    }
+
+    // Возвращает емкость массива после роста.
+    static int grow(int capacity) {
+        return ProbeStrategy.PRIME.grow(capacity);
+    }
+
+}
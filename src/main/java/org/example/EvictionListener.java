@@ -0,0 +1,12 @@
+package org.example;
+
+/* Получает записи, вытесненные из ограниченной таблицы (HashTable.cache).
+ * Вызывается после вставки, которая вытеснила запись, поэтому из метода можно обращаться к таблице.
+ * Явное удаление, замена значения и clear() не считаются вытеснением.
+ */
+@FunctionalInterface
+public interface EvictionListener<K, V> {
+
+    void evicted(K key, V value);
+
+}
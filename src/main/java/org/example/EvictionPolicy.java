@@ -0,0 +1,21 @@
+package org.example;
+
+/* Политика вытеснения ограниченной таблицы (HashTable.cache).
+ * Обе политики хранят по одному long на ячейку рядом с массивами ключей и значений
+ * и не создают объектов на обращение к записи. Кандидаты на вытеснение – до SAMPLES живых записей
+ * последовательности проб вставляемого ключа: двойное хеширование разбрасывает ее по массиву,
+ * поэтому это случайная выборка, а ключ можно вставить прямо на место вытесненной записи.
+ */
+public enum EvictionPolicy {
+    /* Вариант алгоритма "часы" ("второй шанс"): обращение к записи ставит ей бит обращения,
+     * вытесняется первый кандидат без бита, а у пропущенных кандидатов бит снимается.
+     */
+    CLOCK,
+    /* Выборочный LRU: обращение записывает в ячейку номер обращения,
+     * вытесняется кандидат, к которому обращались раньше всех.
+     */
+    SAMPLED_LRU;
+
+    // Количество записей, из которых SAMPLED_LRU выбирает вытесняемую.
+    public static final int SAMPLES = 8;
+}
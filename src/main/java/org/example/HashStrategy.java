@@ -0,0 +1,39 @@
+package org.example;
+
+/* Перемешивание hashCode ключа перед выбором ячейки.
+ * Плохо распределенные hashCode (последовательные числа, совпадающие младшие биты) после перемешивания
+ * дают равномерные старшие и младшие биты, от которых зависят начало и шаг последовательности проб.
+ * Реализация должна быть чистой функцией: одинаковый hashCode всегда дает одинаковый результат.
+ */
+@FunctionalInterface
+public interface HashStrategy {
+
+    // hashCode без изменений. Подходит для ключей с уже хорошо распределенным hashCode.
+    HashStrategy IDENTITY = hashCode -> hashCode;
+
+    // Финализатор MurmurHash3 (fmix32). Используется по умолчанию.
+    HashStrategy MURMUR3 = hashCode -> {
+        int hash = hashCode;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    };
+
+    // Финализатор xxHash32 (avalanche).
+    HashStrategy XXHASH = hashCode -> {
+        int hash = hashCode;
+        hash ^= hash >>> 15;
+        hash *= 0x85EBCA77;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE3D;
+        hash ^= hash >>> 16;
+        return hash;
+    };
+
+    // Возвращает перемешанное хэш-значение по hashCode ключа.
+    int mix(int hashCode);
+
+}
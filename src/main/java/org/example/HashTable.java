@@ -1,19 +1,95 @@
 package org.example;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class HashTable<K, V> implements Map<K, V> {
 
-    private final int HASH_CONST = 47;
+    // Маркер удаленной ячейки в массиве ключей.
+    private static final Object TOMBSTONE = new Object();
+    // Количество ключей, пробы которых чередуются в пакетных операциях.
+    private static final int BATCH = 16;
+    // Количество ключей, начиная с которого перехеширование выполняется параллельно, и размер порции ячеек.
+    private static final int PARALLEL_RESIZE_THRESHOLD = 1 << 16;
+    private static final int RESIZE_CHUNK = 1 << 14;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
 
     private int size = 0;
     private int capacity = 16;
-    private boolean[] deletedCells;
     private float loadFactor = 0.75f;
-    private Cell<K,V>[] table;
+    // Перемешивание hashCode ключей и политика емкости и проб.
+    private final HashStrategy hashStrategy;
+    private final ProbeStrategy probeStrategy;
+    /* Записи хранятся в параллельных массивах: ключ, значение и хэш-значение ключа лежат в ячейках с одним индексом.
+     * Свободная ячейка – null в keys, удаленная – TOMBSTONE.
+     * Сохраненное хэш-значение (hashCode после hashStrategy) сравнивается до вызова equals
+     * и используется при перехешировании.
+     */
+    private Object[] keys;
+    private Object[] vals;
+    private int[] hashes;
+    // Наибольшая длина последовательности проб среди вставок в текущий массив.
+    // Поиск никогда не проходит дальше: ни один ключ не лежит дальше от начала своей последовательности.
+    private int maxProbe = 0;
+    // Количество удаленных ячеек (tombstones), которые еще занимают место в массиве.
+    private int tombstones = 0;
+    // Доля емкости, при превышении которой удаленные ячейки автоматически вычищаются.
+    private float tombstoneThreshold = 0.25f;
+
+    /* Постепенное перехеширование: пока перенос не закончен, старый массив существует рядом с новым.
+     * Каждая операция переносит не больше resizeStep ячеек старого массива; 0 – перенос за один вызов.
+     */
+    private int resizeStep = 0;
+    private Object[] oldKeys;
+    private Object[] oldVals;
+    private int[] oldHashes;
+    private int oldCapacity;
+    private int oldMaxProbe;
+    // Первая ячейка старого массива, которая еще не перенесена.
+    private int migrateIndex;
+    // Счетчик структурных изменений: вставок, удалений и перестановок записей между ячейками.
+    private int modCount = 0;
+    /* Счетчики статистики (длины проб, перехеширования); null, пока статистика выключена.
+     * Поле меняется из потока JMX, поэтому операция читает его в локальную переменную один раз.
+     */
+    private StatsRecorder stats;
+    // Наблюдатель за изменениями ячеек (HashTableRows); null, если не подключен.
+    private SlotListener listener;
+    // Обратный индекс значение -> ключи (setValueIndexEnabled); null, пока выключен.
+    private ValueIndex valueIndex;
+    /* Ограниченная таблица (cache): состояние вытеснения и отметки обращений к ячейкам –
+     * бит обращения для CLOCK или номер последнего обращения для SAMPLED_LRU. Для обычной таблицы null.
+     */
+    private Eviction eviction;
+    private long[] access;
+    /* Истечение записей: срок и время жизни каждой ячейки (время жизни 0 – запись бессрочная)
+     * и колесо таймеров со сроками. Для таблицы без истечения null.
+     */
+    private long[] deadlines;
+    private long[] lifetimes;
+    private TimingWheel wheel;
+    private IntConsumer expiredSlot;
+    private Ticker ticker = Ticker.SYSTEM;
+    // Время жизни записей, записанных без явного ttl, нс (0 – бессрочно), и продлевается ли оно при чтении.
+    private long expireAfterNanos;
+    private boolean expireAfterAccess;
 
 
     /* Создает новую пустую хэш-таблицу с заданной начальной емкостью и заданным коэффициентом загрузки.
@@ -25,6 +101,20 @@ public class HashTable<K, V> implements Map<K, V> {
      * или если коэффициент загрузки является неположительным.
      */
     public HashTable(int capacity, float loadFactor) {
+        this(capacity, loadFactor, HashStrategy.MURMUR3, ProbeStrategy.PRIME);
+    }
+
+    /* Создает новую пустую хэш-таблицу с заданными стратегиями хеширования и проб.
+     * Параметры:
+     * capacity – начальная емкость хэш-таблицы (округляется вверх до допустимой для probeStrategy).
+     * loadFactor – коэффициент загрузки хэш-таблицы.
+     * hashStrategy – перемешивание hashCode ключей.
+     * probeStrategy – политика емкости, начала и шага последовательности проб.
+     * Бросает:
+     * Исключение IllegalArgumentException – если начальная емкость меньше нуля
+     * или если коэффициент загрузки является неположительным.
+     */
+    public HashTable(int capacity, float loadFactor, HashStrategy hashStrategy, ProbeStrategy probeStrategy) {
         if (capacity < 0) {
             throw new IllegalArgumentException(
                     "Illegal Capacity: " + capacity
@@ -35,13 +125,15 @@ public class HashTable<K, V> implements Map<K, V> {
             throw new IllegalArgumentException("Illegal Load: " + loadFactor);
         }
 
-        if (capacity==0) {
-            capacity = 1;
-        }
+        this.hashStrategy = Objects.requireNonNull(hashStrategy);
+        this.probeStrategy = Objects.requireNonNull(probeStrategy);
+        capacity = probeStrategy.tableSizeFor(capacity);
 
+        this.capacity = capacity;
         this.loadFactor = loadFactor;
-        table = new Cell[capacity];
-        deletedCells = new boolean[capacity];
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        hashes = new int[capacity];
     }
 
     /* Создает новую пустую хэш-таблицу с заданной начальной емкостью и коэффициентом загрузки по умолчанию (0,75).
@@ -59,6 +151,65 @@ public class HashTable<K, V> implements Map<K, V> {
         this(16, 0.75f);
     }
 
+    /* Строит таблицу из записей без промежуточных перехеширований: массив сразу рассчитан на expectedSize ключей.
+     * Записи параллельного потока вставляются одновременно из нескольких потоков, ячейки занимаются через CAS.
+     * Если ключ встречается несколько раз, остается одно из его значений (для последовательного потока – последнее).
+     * Записи сверх expectedSize откладываются и вставляются обычным put после параллельной фазы.
+     * Бросает:
+     * Исключение NullPointerException – если среди ключей или значений есть null.
+     */
+    public static <K, V> HashTable<K, V> build(Stream<? extends Map.Entry<? extends K, ? extends V>> entries,
+                                               int expectedSize) {
+        HashTable<K, V> table = new HashTable<>();
+        table.ensureCapacity(expectedSize);
+        HashTable<K, V>.ConcurrentInsert insert = table.new ConcurrentInsert(false);
+        Queue<Map.Entry<? extends K, ? extends V>> overflow = new ConcurrentLinkedQueue<>();
+        entries.forEach(entry -> {
+            K key = entry.getKey();
+            V value = entry.getValue();
+            if (key == null || value == null) {
+                throw new NullPointerException("HashTable does not permit null keys or values");
+            }
+            if (!insert.insert(key, value, table.hash(key))) {
+                overflow.add(entry);
+            }
+        });
+        table.size = insert.claimed.get();
+        table.maxProbe = insert.maxProbe.get();
+        table.modCount++;
+        for (Map.Entry<? extends K, ? extends V> entry : overflow) {
+            table.put(entry.getKey(), entry.getValue());
+        }
+        return table;
+    }
+
+    // Строит таблицу из коллекции записей, обрабатывая ее параллельным потоком.
+    public static <K, V> HashTable<K, V> build(Collection<? extends Map.Entry<? extends K, ? extends V>> entries,
+                                               int expectedSize) {
+        return build(entries.parallelStream(), expectedSize);
+    }
+
+    /* Создает ограниченную таблицу, которая хранит не больше maxEntries записей.
+     * Вставка нового ключа в заполненную таблицу вытесняет запись по политике policy, выбирая ее среди записей
+     * последовательности проб нового ключа: обычно ключ занимает ячейку вытесненной записи, иначе она помечается
+     * удаленной, как при remove. Массив сразу рассчитан на maxEntries записей, поэтому таблица не растет.
+     * Обращением к записи считаются get, getOrDefault, getAll и замена значения.
+     * Бросает:
+     * Исключение IllegalArgumentException – если maxEntries не положительно.
+     */
+    public static <K, V> HashTable<K, V> cache(int maxEntries, EvictionPolicy policy) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Illegal max entries: " + maxEntries);
+        }
+        HashTable<K, V> table = new HashTable<>();
+        table.eviction = new Eviction(maxEntries, Objects.requireNonNull(policy));
+        table.ensureCapacity(maxEntries);
+        table.access = new long[table.capacity];
+        // Заполненная таблица не растет, поэтому удаленные ячейки вычищаются при половине свободного места.
+        table.tombstoneThreshold = (1 - table.loadFactor) / 2;
+        return table;
+    }
+
     // Возвращает количество ключей в этой хэш-таблице.
     @Override
     public int size() {
@@ -77,7 +228,7 @@ public class HashTable<K, V> implements Map<K, V> {
     // Проверяет, является ли указанный объект ключом в этой хэш-таблице.
     @Override
     public boolean containsKey(Object key) {
-        return contains(key) >= 0;
+        return lookup(key) != -1;
     }
 
     // Возвращает значение true, если эта хэш-таблица сопоставляет один или несколько ключей с этим значением.
@@ -86,12 +237,14 @@ public class HashTable<K, V> implements Map<K, V> {
         if (value == null) {
             throw new NullPointerException("HashTable does not permit null values");
         }
+        if (valueIndex != null) {
+            return deadlines == null ? valueIndex.contains(value) : indexedKeys(value) != null;
+        }
 
+        finishResize();
         for (int i = 0; i < capacity; i++) {
-            if (!deletedCells[i] && table[i] != null) {
-                if (value.equals(table[i].getValue())) {
-                    return true;
-                }
+            if (visible(i) && value.equals(vals[i])) {
+                return true;
             }
         }
         return false;
@@ -101,11 +254,21 @@ public class HashTable<K, V> implements Map<K, V> {
     // если эта map не содержит сопоставления для ключа.
     @Override
     public V get(Object key) {
-        int index = contains(key);
+        int index = lookup(key);
+        if (index < -1) {
+            // Ключ еще в старом массиве: постепенный перенос идет только без вытеснения и сроков записей.
+            return foundValue(index);
+        }
+        if (eviction != null) {
+            accessed(index);
+        }
+        if (expireAfterAccess && index >= 0) {
+            read(index);
+        }
         if (index < 0) {
             return null;
         }
-        return table[index].getValue();
+        return valueAt(index);
     }
 
     // Сопоставляет указанный ключ с указанным значением в этой хэш-таблице.
@@ -116,24 +279,43 @@ public class HashTable<K, V> implements Map<K, V> {
             throw new NullPointerException();
         }
 
-        if (contains(key) >= 0) {
-            int index = this.contains(key);
-            V oldValue = table[index].getValue();
-            table[index].setValue(value);
+        int hash = hash(key);
+        int index = findOrClaim(key, hash);
+        if (index >= 0) {
+            V oldValue = valueAt(index);
+            replaceValue(index, value);
             return oldValue;
         }
 
-        size++;
-        double newLoadFactor = (double) size / capacity;
-        if (newLoadFactor >= loadFactor) {
-            rehash();
-        }
+        insert(index, key, value, hash);
+//      Returns null if there was no mapping for key before
+        return null;
+    }
 
-        int index = findEmptyIndex(key);
-        Cell<K,V> newCell = new Cell<>(key, value);
-        table[index] = newCell;
+    /* Сопоставляет ключ значению на время ttl: после него запись считается отсутствующей.
+     * Время жизни записи заменяет заданное setExpireAfterWrite/setExpireAfterAccess; в режиме expireAfterAccess
+     * каждое чтение продлевает запись на ее ttl. Следующая запись значения без ttl задает время жизни по умолчанию.
+     * Бросает:
+     * Исключение IllegalArgumentException – если ttl не положителен.
+     */
+    public V put(K key, V value, long ttl, TimeUnit unit) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("Illegal TTL: " + ttl);
+        }
+        if (value == null || key == null) {
+            throw new NullPointerException();
+        }
+        enableExpiry();
+        long lifetime = Math.max(1, unit.toNanos(ttl));
 
-//      Returns null if there was no mapping for key before
+        int hash = hash(key);
+        int index = findOrClaim(key, hash);
+        if (index >= 0) {
+            V oldValue = valueAt(index);
+            replaceValue(index, value, lifetime);
+            return oldValue;
+        }
+        insert(index, key, value, hash, lifetime);
         return null;
     }
 
@@ -148,10 +330,8 @@ public class HashTable<K, V> implements Map<K, V> {
             return null;
         }
 
-        V deletedValue = table[index].getValue();
-
-        size--;
-        deletedCells[index] = true;
+        V deletedValue = valueAt(index);
+        removeAt(index);
         return deletedValue;
     }
 
@@ -162,497 +342,2211 @@ public class HashTable<K, V> implements Map<K, V> {
      */
     @Override
     public void putAll(Map<? extends K, ? extends V> map) {
+        ensureCapacity(size + map.size());
         for (Map.Entry<? extends K, ? extends V> elem : map.entrySet()) {
             put(elem.getKey(), elem.getValue());
         }
     }
 
-    // Очищает эту хэш-таблицу, чтобы она не содержала ключей.
-    @Override
-    public void clear() {
-        for (int i = 0; i < capacity; i++) {
-            table[i] = null;
+    /* Увеличивает емкость так, чтобы expectedSize ключей поместились без роста таблицы.
+     * Таблица растет не больше одного раза, а не по одному разу на каждое удвоение.
+     */
+    public void ensureCapacity(int expectedSize) {
+        if (eviction != null) {
+            // Ограниченной таблице не нужно места больше, чем на maxEntries записей.
+            expectedSize = Math.min(expectedSize, eviction.maxEntries);
         }
-        size = 0;
-        deletedCells = new boolean[capacity];
+        if ((double) expectedSize / capacity < loadFactor) {
+            return;
+        }
+        finishResize();
+        resize(probeStrategy.tableSizeFor((int) Math.min(Integer.MAX_VALUE - 8, (long) (expectedSize / loadFactor) + 2)));
     }
 
-    private Set<K> keySet;
-    private Set<Map.Entry<K,V>> entrySet;
-    private Collection<V> values;
-
-    private static final int KEYS = 0;
-    private static final int VALUES = 1;
-    private static final int ENTRIES = 2;
-
-    /* Возвращает заданный вид ключей, содержащихся в этой map.
-     * Набор поддерживается map, поэтому изменения в map отражаются в наборе, и наоборот.
-     * Если map изменяется во время выполнения итерации по набору
-     * (за исключением собственной операции удаления итератора), результаты итерации не определены.
+    /* Пакетный поиск: записывает в out[i] значение ключа keys[i] или null и возвращает количество найденных ключей.
+     * Ключи обрабатываются группами по BATCH: хэш-значения группы считаются заранее,
+     * а пробы разных ключей чередуются, поэтому обращения к памяти для них перекрываются.
+     * Кроме служебных массивов на группу ничего не выделяется.
+     * Пока идет постепенный перенос, ключи ищутся по одному (см. probeBatch).
+     * Бросает:
+     * Исключение IllegalArgumentException – если out короче keys.
      */
-    @Override
-    public Set<K> keySet() {
-        if (keySet == null) {
-            keySet = new KeySet();
+    public int getAll(K[] keys, V[] out) {
+        if (out.length < keys.length) {
+            throw new IllegalArgumentException("Output array is shorter than keys: " + out.length);
         }
-        return keySet;
+        int found = 0;
+        int start = 0;
+        for (; start < keys.length && oldKeys != null; start++) {
+            out[start] = get(keys[start]);
+            if (out[start] != null) {
+                found++;
+            }
+        }
+
+        BatchProbe batch = new BatchProbe();
+        for (int from = start; from < keys.length; from += BATCH) {
+            int count = Math.min(BATCH, keys.length - from);
+            probeBatch(keys, from, count, batch, false);
+            for (int j = 0; j < count; j++) {
+                int index = batch.result[j];
+                if (index >= 0 && deadlines != null && expired(index)) {
+                    // Истекшая запись – промах; чтение ее не удаляет.
+                    index = -1;
+                }
+                if (eviction != null) {
+                    accessed(index);
+                }
+                if (expireAfterAccess && index >= 0) {
+                    read(index);
+                }
+                if (index >= 0) {
+                    out[from + j] = valueAt(index);
+                    found++;
+                } else {
+                    out[from + j] = null;
+                }
+            }
+        }
+        return found;
     }
 
-    /* Набор поддерживает удаление элемента,
-     * которое удаляет соответствующее отображение из map с помощью операций
-     * Iterator.remove, Set.remove, removeAll, retainAll и clear.
+    /* Пакетная вставка: сопоставляет keys[i] значению values[i].
+     * Таблица заранее растет под все ключи, затем ячейки каждой группы находятся чередующимися пробами.
+     * Бросает:
+     * Исключение IllegalArgumentException – если длины массивов различаются.
+     * Исключение NullPointerException – если среди ключей или значений есть null.
      */
-    private class KeySet extends AbstractSet<K> {
-        public Iterator<K> iterator() {
-            return getIterator(KEYS);
+    public void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " != " + values.length);
         }
-
-        public int size() {
-            return size;
+        for (V value : values) {
+            if (value == null) throw new NullPointerException("HashTable does not permit null values");
         }
-
-        public boolean contains(Object o) {
-            return containsKey(o);
+        if (eviction != null || deadlines != null) {
+            // Вытеснение и истечение могут удалить записи и сдвинуть ячейки, заранее найденные для группы.
+            for (int i = 0; i < keys.length; i++) {
+                put(keys[i], values[i]);
+            }
+            return;
         }
-
-        public boolean remove(Object o) {
-            return HashTable.this.remove(o) != null;
+        int start = 0;
+        for (; start < keys.length && oldKeys != null; start++) {
+            put(keys[start], values[start]);
         }
-
-        public void clear() {
-            HashTable.this.clear();
+        ensureCapacity(size + keys.length - start);
+
+        BatchProbe batch = new BatchProbe();
+        for (int from = start; from < keys.length; from += BATCH) {
+            int count = Math.min(BATCH, keys.length - from);
+            probeBatch(keys, from, count, batch, true);
+            for (int j = 0; j < count; j++) {
+                K key = keys[from + j];
+                V value = values[from + j];
+                int index = batch.result[j];
+                if (index < 0) {
+                    int claim = -(index + 1);
+                    // Ячейку мог занять предыдущий ключ группы (в том числе такой же ключ).
+                    if (this.keys[claim] != null && this.keys[claim] != TOMBSTONE) {
+                        index = findOrClaim(key, batch.hash[j]);
+                    }
+                }
+                if (index >= 0) {
+                    replaceValue(index, value);
+                } else {
+                    insert(index, key, value, batch.hash[j]);
+                }
+            }
         }
     }
 
-    /* Возвращает представление коллекции значений, содержащихся в этой map.
-     * Коллекция поддерживается map, поэтому изменения, внесенные в map, отражаются в коллекции, и наоборот.
-     * Если map изменяется во время выполнения итерации по коллекции
-     * (за исключением собственной операции удаления итератора), результаты итерации не определены.
+    /* Пакетное удаление ключей. Возвращает количество удаленных записей.
+     * Удаленные ячейки вычищаются не чаще одного раза, после всей пачки.
      */
-    @Override
-    public Collection<V> values() {
-        if (values == null) {
-            values = new ValueCollection();
+    public int removeAll(K[] keys) {
+        int removed = 0;
+        int start = 0;
+        for (; start < keys.length && oldKeys != null; start++) {
+            if (remove(keys[start]) != null) {
+                removed++;
+            }
         }
-        return values;
-    }
 
-    /* Коллекция поддерживает удаление элементов,
-     * которое удаляет соответствующее отображение из map с помощью операций
-     * Iterator.remove, Collection.remove, removeAll, retainAll и clear.
-     */
-    private class ValueCollection extends AbstractCollection<V> {
-        public Iterator<V> iterator() {
-            return getIterator(VALUES);
+        BatchProbe batch = new BatchProbe();
+        for (int from = start; from < keys.length; from += BATCH) {
+            int count = Math.min(BATCH, keys.length - from);
+            probeBatch(keys, from, count, batch, false);
+            for (int j = 0; j < count; j++) {
+                int index = batch.result[j];
+                // Повторный ключ в группе указывает на уже удаленную ячейку.
+                if (index >= 0 && this.keys[index] != TOMBSTONE) {
+                    // Истекшая запись удаляется, но уже не считается.
+                    boolean live = deadlines == null || !expired(index);
+                    markRemoved(index);
+                    if (live) {
+                        removed++;
+                    }
+                }
+            }
         }
-
-        public int size() {
-            return size;
+        if (tombstones > tombstoneThreshold * capacity) {
+            compact();
         }
+        return removed;
+    }
 
-        public boolean contains(Object o) {
-            return containsValue(o);
+    /* Чередующийся поиск count ключей batch[from...]: на каждом шаге проверяется очередная ячейка каждого
+     * еще не найденного ключа. В result[j] записывается индекс ключа или, если его нет,
+     * -(ячейка для вставки + 1) при claim и -1 без claim. В hash[j] остается хэш-значение ключа.
+     * Вызывается только без незавершенного постепенного переноса: пакетные операции до его конца
+     * обрабатывают ключи по одному, и каждый вызов переносит не больше resizeStep ячеек,
+     * а не весь старый массив сразу.
+     */
+    private void probeBatch(Object[] keyBatch, int from, int count, BatchProbe batch, boolean claim) {
+        StatsRecorder recorder = stats;
+        int[] hash = batch.hash;
+        int[] result = batch.result;
+        int[] index = batch.index;
+        int[] step = batch.step;
+        int[] free = batch.free;
+        for (int j = 0; j < count; j++) {
+            int h = hash(keyBatch[from + j]);
+            hash[j] = h;
+            index[j] = probeStrategy.start(h, capacity);
+            step[j] = probeStrategy.step(h, capacity);
+            free[j] = -1;
         }
 
-        public void clear() {
-            HashTable.this.clear();
+        int active = (1 << count) - 1;
+        for (int n = 0; active != 0; n++) {
+            for (int pending = active; pending != 0; pending &= pending - 1) {
+                int j = Integer.numberOfTrailingZeros(pending);
+                int i = index[j];
+                Object candidate = keys[i];
+                boolean done = false;
+                if (candidate == null || candidate == TOMBSTONE) {
+                    if (claim && free[j] < 0) {
+                        free[j] = i;
+                        maxProbe = Math.max(maxProbe, n);
+                    }
+                    done = candidate == null;
+                } else if (n <= maxProbe && hashes[i] == hash[j]) {
+                    Object key = keyBatch[from + j];
+                    if (candidate == key || candidate.equals(key)) {
+                        result[j] = i;
+                        active &= ~(1 << j);
+                        if (recorder != null) {
+                            recorder.hit(n);
+                        }
+                        continue;
+                    }
+                }
+                if (done || (n >= maxProbe && (!claim || free[j] >= 0))) {
+                    result[j] = claim ? -(free[j] + 1) : -1;
+                    active &= ~(1 << j);
+                    if (recorder != null) {
+                        recorder.miss(n);
+                    }
+                } else {
+                    index[j] = DoubleHashing.next(i, step[j], capacity);
+                }
+            }
         }
     }
 
-    /* Возвращает заданный вид отображений, содержащихся в этой map.
-     * Набор поддерживается map, поэтому изменения в map отражаются в наборе, и наоборот.
-     * Если map изменяется во время выполнения итерации по набору
-     * (за исключением собственной операции удаления итератора), результаты итерации не определены.
-     */
+    // Очищает эту хэш-таблицу, чтобы она не содержала ключей.
     @Override
-    public Set<Map.Entry<K, V>> entrySet() {
-        if (entrySet == null) {
-            entrySet = new EntrySet();
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(vals, null);
+        oldKeys = null;
+        oldVals = null;
+        oldHashes = null;
+        size = 0;
+        maxProbe = 0;
+        tombstones = 0;
+        if (wheel != null) {
+            Arrays.fill(lifetimes, 0);
+            wheel.reset(capacity);
+        }
+        if (valueIndex != null) {
+            valueIndex.clear();
+        }
+        modCount++;
+        if (listener != null) {
+            listener.reloaded();
         }
-        return entrySet;
     }
 
-    /* Набор поддерживает удаление элемента,
-     * которое удаляет соответствующее отображение из map с помощью операций
-     * Iterator.remove, Set.remove, removeAll, retainAll и clear.
+    /* Вычищает удаленные ячейки без изменения емкости.
+     * Каждая живая запись переставляется в первую ячейку своей последовательности проб,
+     * которая не занята уже переставленной записью; вытесненная запись переставляется следующей.
+     * Дополнительная память – один бит на ячейку.
+     * После вызова поиск снова заканчивается на первой пустой ячейке, а maxProbe пересчитан.
      */
-    class EntrySet extends AbstractSet<Map.Entry<K, V>> {
-        public Iterator<Entry<K, V>> iterator() {
-            return getIterator(ENTRIES);
+    public void compact() {
+        StatsRecorder recorder = stats;
+        finishResize();
+        long started = recorder != null ? System.nanoTime() : 0;
+        modCount++;
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] == TOMBSTONE) {
+                keys[i] = null;
+            }
         }
-
-        public boolean add(Map.Entry<K, V> o) {
-            return super.add(o);
+        tombstones = 0;
+        maxProbe = 0;
+        if (listener != null) {
+            listener.relocating(capacity);
         }
 
-        public boolean contains(Object o) {
-            if (!(o instanceof Cell)) {
-                return false;
+        BitSet placed = new BitSet(capacity);
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] == null || placed.get(i)) {
+                continue;
             }
-            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
-            Object key = entry.getKey();
-            return HashTable.this.containsKey(key);
-        }
-
-        public boolean remove(Object o) {
-            if (!(o instanceof Map.Entry)) {
-                return false;
+            Object key = keys[i];
+            Object value = vals[i];
+            int hash = hashes[i];
+            long stamp = access != null ? access[i] : 0;
+            long deadline = deadlines != null ? deadlines[i] : 0;
+            long lifetime = deadlines != null ? lifetimes[i] : 0;
+            // Ячейка, из которой пришла переставляемая запись.
+            int origin = i;
+            keys[i] = null;
+            vals[i] = null;
+            while (key != null) {
+                int index = probeStrategy.start(hash, capacity);
+                int step = probeStrategy.step(hash, capacity);
+                for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+                    Object occupant = keys[index];
+                    if (occupant == null || !placed.get(index)) {
+                        Object occupantValue = vals[index];
+                        int occupantHash = hashes[index];
+                        keys[index] = key;
+                        vals[index] = value;
+                        hashes[index] = hash;
+                        if (access != null) {
+                            long occupantStamp = access[index];
+                            access[index] = stamp;
+                            stamp = occupantStamp;
+                        }
+                        if (deadlines != null) {
+                            long occupantDeadline = deadlines[index];
+                            long occupantLifetime = lifetimes[index];
+                            deadlines[index] = deadline;
+                            lifetimes[index] = lifetime;
+                            deadline = occupantDeadline;
+                            lifetime = occupantLifetime;
+                        }
+                        placed.set(index);
+                        maxProbe = Math.max(maxProbe, n);
+                        if (listener != null) {
+                            listener.moved(origin, index);
+                        }
+                        key = occupant;
+                        value = occupantValue;
+                        hash = occupantHash;
+                        origin = index;
+                        break;
+                    }
+                }
             }
-            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
-            Object key = entry.getKey();
-            return HashTable.this.remove(key) != null;
         }
-
-        public void clear() {
-            HashTable.this.clear();
+        if (wheel != null) {
+            reschedule();
         }
-
-        @Override
-        public int size() {
-            return size;
+        if (listener != null) {
+            listener.relocated();
+        }
+        if (recorder != null) {
+            recorder.compaction(System.nanoTime() - started);
         }
     }
 
-    // Сравнивает указанный объект с этой map на предмет равенства в соответствии с определением в интерфейсе map.
-    @Override
-    public boolean equals(Object o) {
-        if (o == this) {
-            return true;
+    /* Уменьшает емкость хэш-таблицы до минимальной, при которой не превышается коэффициент загрузки,
+     * и переносит только живые записи. Если уменьшать некуда, только вычищает удаленные ячейки.
+     */
+    public void trimToSize() {
+        finishResize();
+        int newCapacity = probeStrategy.tableSizeFor((int) (size / loadFactor) + 1);
+        if (newCapacity < capacity) {
+            resize(newCapacity);
+        } else {
+            compact();
         }
+    }
 
-        if (!(o instanceof Map)) {
-            return false;
-        }
+    // Возвращает стратегию перемешивания hashCode ключей.
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
 
-        Map<?,?> t = (Map<?,?>) o;
-        if (t.size() != size())
-            return false;
+    // Возвращает политику емкости и последовательности проб.
+    public ProbeStrategy getProbeStrategy() {
+        return probeStrategy;
+    }
 
-        try {
-            for (Map.Entry<K, V> e : entrySet()) {
-                K key = e.getKey();
-                V value = e.getValue();
-                if (!value.equals(t.get(key))) {
-                    return false;
-                }
-            }
-        } catch (ClassCastException | NullPointerException ex)   {
-            return false;
+    // Возвращает коэффициент загрузки.
+    public float getLoadFactor() {
+        return loadFactor;
+    }
+
+    /* Включает или выключает сбор статистики: гистограмм длин проб поиска, промахов и вставок,
+     * количества, времени и объема перехеширований. Выключение сбрасывает накопленные значения.
+     */
+    public void setStatisticsEnabled(boolean enabled) {
+        if (!enabled) {
+            stats = null;
+        } else if (stats == null) {
+            stats = new StatsRecorder();
         }
+    }
 
-        return true;
+    // Проверяет, собирается ли статистика.
+    public boolean isStatisticsEnabled() {
+        return stats != null;
     }
 
-    // Возвращает значение хэш-кода для этой map в соответствии с определением в интерфейсе map.
-    @Override
-    public int hashCode() {
-        int hash = 0;
-        for (Entry<K, V> entry : entrySet) {
-            hash += entry.hashCode();
+    // Обнуляет накопленную статистику, не выключая ее сбор.
+    public void resetStatistics() {
+        if (stats != null) {
+            stats = new StatsRecorder();
         }
-        return hash;
     }
 
-    // Возвращает строковое представление содержимого указанного массива.
-    @Override
-    public String toString() {
-        return Arrays.toString(table);
+    // Возвращает снимок состояния и статистики таблицы.
+    public HashTableStats stats() {
+        return new HashTableStats(size, capacity, tombstones, loadFactor, maxProbe, stats);
     }
 
-    // Возвращает значение, которому сопоставлен указанный ключ, или значение по умолчанию,
-    // если эта map не содержит сопоставления для ключа.
-    @Override
-    public V getOrDefault(Object key, V defaultValue) {
-        int index = contains(key);
-        if (index >= 0) {
-            return table[index].getValue();
-        } else {
-            return defaultValue;
-        }
+    // Возвращает политику вытеснения ограниченной таблицы или null для обычной.
+    public EvictionPolicy getEvictionPolicy() {
+        return eviction != null ? eviction.policy : null;
     }
 
-    // Выполняет указанное действие для каждой записи в этой map до тех пор,
-    // пока все записи не будут обработаны или действие не вызовет исключение.
-    @Override
-    public void forEach(BiConsumer<? super K, ? super V> action) {
-        Objects.requireNonNull(action);
+    // Возвращает наибольшее количество записей ограниченной таблицы (Integer.MAX_VALUE для обычной).
+    public int getMaxEntries() {
+        return eviction != null ? eviction.maxEntries : Integer.MAX_VALUE;
+    }
 
-        if (entrySet == null) {
-            entrySet = entrySet();
-        }
+    // Счетчики ограниченной таблицы: найденные и не найденные ключи get, getOrDefault и getAll, вытеснения.
+    // Для обычной таблицы всегда 0.
+    public long getHitCount() {
+        return eviction != null ? eviction.hits : 0;
+    }
 
-        int size = entrySet.size();
+    public long getMissCount() {
+        return eviction != null ? eviction.misses : 0;
+    }
 
-        for (Entry<K, V> cell : entrySet) {
-            action.accept(cell.getKey(), cell.getValue());
-            if (entrySet.size() != size) {
-                throw new ConcurrentModificationException();
-            }
-        }
+    public long getEvictionCount() {
+        return eviction != null ? eviction.evictions : 0;
     }
 
-    // Заменяет значение каждой записи результатом вызова данной функции для этой записи до тех пор,
-    // пока все записи не будут обработаны или функция не выдаст исключение.
+    /* Задает получателя вытесненных записей (null – отключает).
+     * Бросает:
+     * Исключение IllegalStateException – если таблица не ограничена.
+     */
+    public void setEvictionListener(EvictionListener<? super K, ? super V> listener) {
+        if (eviction == null) {
+            throw new IllegalStateException("HashTable is not bounded");
+        }
+        eviction.listener = listener;
+    }
+
+    /* Задает время жизни записей, записанных без явного ttl: запись истекает через duration после
+     * последней записи значения. 0 – такие записи бессрочные. Уже записанные значения не меняются.
+     * Истекшая запись сразу перестает быть видна get, containsKey, containsValue и обходу таблицы, но чтение ее
+     * не удаляет (и не меняет таблицу во время обхода): место освобождается при следующих вставках
+     * или вызове expire(); до этого size() еще учитывает ее.
+     * Бросает:
+     * Исключение IllegalArgumentException – если duration отрицательно.
+     */
+    public void setExpireAfterWrite(long duration, TimeUnit unit) {
+        setExpiry(duration, unit, false);
+    }
+
+    /* То же, что setExpireAfterWrite, но каждое чтение (get, getOrDefault, getAll) продлевает запись
+     * на ее время жизни: истекают записи, к которым не обращались дольше него.
+     */
+    public void setExpireAfterAccess(long duration, TimeUnit unit) {
+        setExpiry(duration, unit, true);
+    }
+
+    private void setExpiry(long duration, TimeUnit unit, boolean afterAccess) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("Illegal duration: " + duration);
+        }
+        enableExpiry();
+        expireAfterNanos = duration == 0 ? 0 : Math.max(1, unit.toNanos(duration));
+        expireAfterAccess = afterAccess;
+    }
+
+    // Возвращает время жизни записей без явного ttl в заданных единицах (0 – бессрочно).
+    public long getExpireAfter(TimeUnit unit) {
+        return unit.convert(expireAfterNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Проверяет, продлевает ли чтение время жизни записей.
+    public boolean isExpireAfterAccess() {
+        return expireAfterAccess;
+    }
+
+    /* Задает источник времени для истечения записей (по умолчанию Ticker.SYSTEM).
+     * Бросает:
+     * Исключение IllegalStateException – если истечение уже включено: сроки записей отсчитаны по прежним часам.
+     */
+    public void setTicker(Ticker ticker) {
+        if (wheel != null) {
+            throw new IllegalStateException("Expiration is already enabled");
+        }
+        this.ticker = Objects.requireNonNull(ticker);
+    }
+
+    /* Удаляет записи, срок которых прошел, и возвращает их количество.
+     * Стоимость пропорциональна количеству записей в пройденных корзинах колеса таймеров, а не емкости таблицы.
+     */
+    public int expire() {
+        if (wheel == null) {
+            return 0;
+        }
+        int before = size;
+        wheel.advance(ticker.nanos(), deadlines, expiredSlot, true);
+        int removed = before - size;
+        if (tombstones > tombstoneThreshold * capacity) {
+            compact();
+        }
+        return removed;
+    }
+
+    /* Включает или выключает обратный индекс значение -> ключи. С индексом containsValue, values().contains,
+     * values().remove, getKeysForValue и inverse() находят значение за O(1) вместо прохода по всему массиву ячеек.
+     * Индекс обновляется при каждой вставке, удалении и смене значения (put, remove, replace, compute*, merge,
+     * setValue записей), что удорожает эти операции в 1,5–2 раза, но не влияет на get и containsKey.
+     * Память (замер на 10^6 записей, сжатые ссылки): индекс – еще одна таблица ключей по значениям,
+     * около 16 байт на запись при уникальных значениях, столько же, сколько сама таблица. Значение, общее
+     * для 2–8 ключей, хранит их в массиве – 90–200 байт на значение; у больших групп – 35–75 байт на ключ.
+     * Включение строит индекс за один проход по таблице; выключение освобождает его.
+     * Значения должны иметь согласованные equals и hashCode и не меняться, пока лежат в таблице.
+     */
+    public void setValueIndexEnabled(boolean enabled) {
+        if (!enabled) {
+            valueIndex = null;
+        } else if (valueIndex == null) {
+            finishResize();
+            indexValues();
+        }
+    }
+
+    // Проверяет, включен ли обратный индекс значений.
+    public boolean isValueIndexEnabled() {
+        return valueIndex != null;
+    }
+
+    /* Возвращает неизменяемую копию множества ключей, сопоставленных значению value (пустое, если таких нет).
+     * Без обратного индекса проходит по всему массиву ячеек.
+     */
+    public Set<K> getKeysForValue(V value) {
+        if (value == null) {
+            throw new NullPointerException("HashTable does not permit null values");
+        }
+        if (valueIndex != null) {
+            Set<K> keys = indexedKeys(value);
+            return keys != null ? keys : Collections.emptySet();
+        }
+        finishResize();
+        HashTable<K, Boolean> found = new HashTable<>(4);
+        for (int i = 0; i < capacity; i++) {
+            if (visible(i) && value.equals(vals[i])) {
+                found.put(keyAt(i), Boolean.TRUE);
+            }
+        }
+        return found.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(found.keySet());
+    }
+
+    /* Возвращает обратный вид таблицы: значение -> неизменяемая копия множества его ключей.
+     * Вид поддерживается обратным индексом: изменения таблицы сразу видны в нем. Вставлять через вид нельзя,
+     * remove(value) удаляет из таблицы все записи с этим значением.
+     * Бросает:
+     * Исключение IllegalStateException – если обратный индекс не включен (и при обращении к виду после выключения).
+     */
+    public Map<V, Set<K>> inverse() {
+        requireValueIndex();
+        if (inverse == null) {
+            inverse = new Inverse();
+        }
+        return inverse;
+    }
+
+    private ValueIndex requireValueIndex() {
+        if (valueIndex == null) {
+            throw new IllegalStateException("Value index is not enabled");
+        }
+        return valueIndex;
+    }
+
+    // Строит обратный индекс заново по текущим ячейкам.
+    private void indexValues() {
+        valueIndex = new ValueIndex(size);
+        for (int i = 0; i < capacity; i++) {
+            Object key = keys[i];
+            if (key != null && key != TOMBSTONE) {
+                valueIndex.add(vals[i], key);
+            }
+        }
+    }
+
+    /* Доступ к массивам для снимков (HashTableSnapshot): массивы возвращаются без копирования.
+     * Незавершенный постепенный перенос сначала заканчивается, чтобы все записи лежали в одном массиве.
+     */
+    Object[] keySlots() {
+        finishResize();
+        return keys;
+    }
+
+    Object[] valueSlots() {
+        finishResize();
+        return vals;
+    }
+
+    int[] hashSlots() {
+        finishResize();
+        return hashes;
+    }
+
+    int maxProbe() {
+        return maxProbe;
+    }
+
+    /* Проверяет, прошел ли срок записи в занятой ячейке. Такая запись еще лежит в массивах keySlots(),
+     * но снимки и копии сохраняют ее ячейку как удаленную.
+     */
+    boolean isExpired(int slot) {
+        return deadlines != null && expired(slot);
+    }
+
+    int tombstones() {
+        return tombstones;
+    }
+
+    // Маркер удаленной ячейки; снимок сохраняет удаленные ячейки, чтобы не разрывать последовательности проб.
+    static Object tombstone() {
+        return TOMBSTONE;
+    }
+
+    /* Заменяет содержимое таблицы массивами, разложенными той же hashStrategy и probeStrategy
+     * (записи остаются в своих ячейках, перехеширования нет). Длина массивов становится емкостью.
+     */
+    void restore(Object[] keys, Object[] vals, int[] hashes, int size, int tombstones, int maxProbe) {
+        oldKeys = null;
+        oldVals = null;
+        oldHashes = null;
+        this.keys = keys;
+        this.vals = vals;
+        this.hashes = hashes;
+        this.capacity = keys.length;
+        this.size = size;
+        this.tombstones = tombstones;
+        this.maxProbe = maxProbe;
+        if (access != null) {
+            access = new long[capacity];
+        }
+        if (wheel != null) {
+            // Сроки не сохраняются: восстановленные записи бессрочные.
+            deadlines = new long[capacity];
+            lifetimes = new long[capacity];
+            wheel.reset(capacity);
+        }
+        if (valueIndex != null) {
+            indexValues();
+        }
+        modCount++;
+        if (listener != null) {
+            listener.reloaded();
+        }
+    }
+
+    /* Подключает наблюдателя за изменениями ячеек (null – отключает). Пока наблюдатель подключен,
+     * перехеширование выполняется целиком и последовательно, чтобы о каждом переносе записи можно было сообщить.
+     * Бросает:
+     * Исключение IllegalStateException – если другой наблюдатель уже подключен.
+     */
+    void setSlotListener(SlotListener listener) {
+        if (listener != null && this.listener != null) {
+            throw new IllegalStateException("HashTable already has a slot listener");
+        }
+        finishResize();
+        this.listener = listener;
+    }
+
+    // Возвращает расстояние ячейки от начала последовательности проб ее ключа (0 – первая ячейка).
+    int probeDistance(int slot) {
+        int hash = hashes[slot];
+        int index = probeStrategy.start(hash, capacity);
+        int step = probeStrategy.step(hash, capacity);
+        for (int n = 0; n < capacity; n++, index = DoubleHashing.next(index, step, capacity)) {
+            if (index == slot) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    /* Возвращает копию таблицы с теми же ячейками: массивы копируются целиком, записи не перехешируются.
+     * Копируются только записи, срок которых не прошел (ячейки истекших записей становятся удаленными);
+     * сроки не копируются, записи копии бессрочные.
+     */
+    HashTable<K, V> copy() {
+        finishResize();
+        Object[] keys = this.keys.clone();
+        Object[] vals = this.vals.clone();
+        int size = this.size;
+        int tombstones = this.tombstones;
+        if (deadlines != null) {
+            for (int i = 0; i < capacity; i++) {
+                Object key = keys[i];
+                if (key != null && key != TOMBSTONE && expired(i)) {
+                    keys[i] = TOMBSTONE;
+                    vals[i] = null;
+                    size--;
+                    tombstones++;
+                }
+            }
+        }
+        HashTable<K, V> copy = new HashTable<>(0, loadFactor, hashStrategy, probeStrategy);
+        copy.restore(keys, vals, hashes.clone(), size, tombstones, maxProbe);
+        return copy;
+    }
+
+    // Возвращает долю емкости, при превышении которой удаленные ячейки вычищаются автоматически.
+    public float getTombstoneThreshold() {
+        return tombstoneThreshold;
+    }
+
+    /* Задает долю емкости, которую могут занимать удаленные ячейки до автоматического вызова compact().
+     * Бросает:
+     * Исключение IllegalArgumentException – если доля не лежит в (0, 1].
+     */
+    public void setTombstoneThreshold(float tombstoneThreshold) {
+        if (!(tombstoneThreshold > 0 && tombstoneThreshold <= 1)) {
+            throw new IllegalArgumentException("Illegal tombstone threshold: " + tombstoneThreshold);
+        }
+        this.tombstoneThreshold = tombstoneThreshold;
+    }
+
+    // Возвращает наибольшее число ячеек старого массива, переносимых за одну операцию (0 – перенос за один вызов).
+    public int getIncrementalResize() {
+        return resizeStep;
+    }
+
+    /* Включает постепенное перехеширование.
+     * При росте таблицы старый и новый массивы существуют одновременно, поиск проверяет оба и таблицу не меняет,
+     * а каждая операция вставки или удаления переносит не больше bucketsPerOperation ячеек старого массива.
+     * Так стоимость роста распределяется по многим операциям вместо одной долгой паузы внутри put.
+     * Значение не меньше 2 гарантирует, что перенос закончится раньше следующего роста;
+     * иначе остаток переносится перед ростом за один вызов. 0 отключает режим.
+     * Бросает:
+     * Исключение IllegalArgumentException – если значение отрицательное.
+     */
+    public void setIncrementalResize(int bucketsPerOperation) {
+        if (bucketsPerOperation < 0) {
+            throw new IllegalArgumentException("Illegal resize step: " + bucketsPerOperation);
+        }
+        resizeStep = bucketsPerOperation;
+        if (resizeStep == 0) {
+            finishResize();
+        }
+    }
+
+    // Проверяет, идет ли сейчас постепенный перенос записей в новый массив.
+    public boolean isResizing() {
+        return oldKeys != null;
+    }
+
+    private Set<K> keySet;
+    private Set<Map.Entry<K,V>> entrySet;
+    private Collection<V> values;
+    private Map<V, Set<K>> inverse;
+
+    private static final int KEYS = 0;
+    private static final int VALUES = 1;
+    private static final int ENTRIES = 2;
+
+    /* Возвращает заданный вид ключей, содержащихся в этой map.
+     * Набор поддерживается map, поэтому изменения в map отражаются в наборе, и наоборот.
+     * Если map изменяется во время выполнения итерации по набору
+     * (за исключением собственной операции удаления итератора), результаты итерации не определены.
+     */
+    @Override
+    public Set<K> keySet() {
+        if (keySet == null) {
+            keySet = new KeySet();
+        }
+        return keySet;
+    }
+
+    /* Набор поддерживает удаление элемента,
+     * которое удаляет соответствующее отображение из map с помощью операций
+     * Iterator.remove, Set.remove, removeAll, retainAll и clear.
+     */
+    private class KeySet extends AbstractSet<K> {
+        public Iterator<K> iterator() {
+            return getIterator(KEYS);
+        }
+
+        public Spliterator<K> spliterator() {
+            return getSpliterator(KEYS);
+        }
+
+        public boolean removeIf(Predicate<? super K> filter) {
+            Objects.requireNonNull(filter);
+            return removeSlots(i -> filter.test(keyAt(i)));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        public boolean remove(Object o) {
+            return HashTable.this.remove(o) != null;
+        }
+
+        public void clear() {
+            HashTable.this.clear();
+        }
+    }
+
+    /* Возвращает представление коллекции значений, содержащихся в этой map.
+     * Коллекция поддерживается map, поэтому изменения, внесенные в map, отражаются в коллекции, и наоборот.
+     * Если map изменяется во время выполнения итерации по коллекции
+     * (за исключением собственной операции удаления итератора), результаты итерации не определены.
+     */
+    @Override
+    public Collection<V> values() {
+        if (values == null) {
+            values = new ValueCollection();
+        }
+        return values;
+    }
+
+    /* Коллекция поддерживает удаление элементов,
+     * которое удаляет соответствующее отображение из map с помощью операций
+     * Iterator.remove, Collection.remove, removeAll, retainAll и clear.
+     */
+    private class ValueCollection extends AbstractCollection<V> {
+        public Iterator<V> iterator() {
+            return getIterator(VALUES);
+        }
+
+        public Spliterator<V> spliterator() {
+            return getSpliterator(VALUES);
+        }
+
+        public boolean removeIf(Predicate<? super V> filter) {
+            Objects.requireNonNull(filter);
+            return removeSlots(i -> filter.test(valueAt(i)));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        // С обратным индексом запись с этим значением находится без прохода по таблице.
+        public boolean remove(Object o) {
+            if (valueIndex == null) {
+                return super.remove(o);
+            }
+            Object key;
+            if (deadlines == null) {
+                key = valueIndex.key(o);
+            } else {
+                Set<K> keys = indexedKeys(o);
+                key = keys == null ? null : keys.iterator().next();
+            }
+            if (key == null) {
+                return false;
+            }
+            HashTable.this.remove(key);
+            return true;
+        }
+
+        public void clear() {
+            HashTable.this.clear();
+        }
+    }
+
+    // Обратный вид таблицы (inverse()): все операции идут через обратный индекс.
+    private final class Inverse extends AbstractMap<V, Set<K>> {
+        // С истечением значения, у которых остались только истекшие ключи, не считаются: размер – проход по индексу.
+        @Override
+        public int size() {
+            if (deadlines == null) {
+                return requireValueIndex().size();
+            }
+            return entrySet().size();
+        }
+
+        @Override
+        public boolean containsKey(Object value) {
+            requireValueIndex();
+            return containsValue(value);
+        }
+
+        @Override
+        public Set<K> get(Object value) {
+            requireValueIndex();
+            return indexedKeys(value);
+        }
+
+        @Override
+        public Set<K> remove(Object value) {
+            requireValueIndex();
+            Set<K> keys = indexedKeys(value);
+            if (keys != null) {
+                for (K key : keys) {
+                    HashTable.this.remove(key);
+                }
+            }
+            return keys;
+        }
+
+        @Override
+        public void clear() {
+            requireValueIndex();
+            HashTable.this.clear();
+        }
+
+        @Override
+        public Set<Entry<V, Set<K>>> entrySet() {
+            return new AbstractSet<Entry<V, Set<K>>>() {
+                @Override
+                public Iterator<Entry<V, Set<K>>> iterator() {
+                    MapCursor<Object, Object> cursor = requireValueIndex().cursor();
+                    return new Iterator<Entry<V, Set<K>>>() {
+                        private Entry<V, Set<K>> next;
+
+                        // Значения, у которых остались только истекшие ключи, пропускаются.
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public boolean hasNext() {
+                            while (next == null && cursor.advance()) {
+                                V value = (V) cursor.key();
+                                Set<K> keys = deadlines == null ? ValueIndex.keysOf(cursor.value()) : indexedKeys(value);
+                                if (keys != null) {
+                                    next = new SimpleImmutableEntry<>(value, keys);
+                                }
+                            }
+                            return next != null;
+                        }
+
+                        @Override
+                        public Entry<V, Set<K>> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<V, Set<K>> entry = next;
+                            next = null;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    if (deadlines == null) {
+                        return requireValueIndex().size();
+                    }
+                    int count = 0;
+                    for (Iterator<Entry<V, Set<K>>> it = iterator(); it.hasNext(); it.next()) {
+                        count++;
+                    }
+                    return count;
+                }
+            };
+        }
+    }
+
+    /* Возвращает заданный вид отображений, содержащихся в этой map.
+     * Набор поддерживается map, поэтому изменения в map отражаются в наборе, и наоборот.
+     * Если map изменяется во время выполнения итерации по набору
+     * (за исключением собственной операции удаления итератора), результаты итерации не определены.
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /* Набор поддерживает удаление элемента,
+     * которое удаляет соответствующее отображение из map с помощью операций
+     * Iterator.remove, Set.remove, removeAll, retainAll и clear.
+     */
+    class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public Iterator<Entry<K, V>> iterator() {
+            return getIterator(ENTRIES);
+        }
+
+        public Spliterator<Entry<K, V>> spliterator() {
+            return getSpliterator(ENTRIES);
+        }
+
+        public boolean removeIf(Predicate<? super Entry<K, V>> filter) {
+            Objects.requireNonNull(filter);
+            return removeSlots(i -> filter.test(new EntryView(i)));
+        }
+
+        public boolean add(Map.Entry<K, V> o) {
+            return super.add(o);
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            int index = lookup(entry.getKey());
+            return index != -1 && foundValue(index).equals(entry.getValue());
+        }
+
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Object key = entry.getKey();
+            return HashTable.this.remove(key) != null;
+        }
+
+        public void clear() {
+            HashTable.this.clear();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Сравнивает указанный объект с этой map на предмет равенства в соответствии с определением в интерфейсе map.
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (!(o instanceof Map)) {
+            return false;
+        }
+
+        Map<?,?> t = (Map<?,?>) o;
+        if (t.size() != size())
+            return false;
+
+        try {
+            for (Map.Entry<K, V> e : entrySet()) {
+                K key = e.getKey();
+                V value = e.getValue();
+                if (!value.equals(t.get(key))) {
+                    return false;
+                }
+            }
+        } catch (ClassCastException | NullPointerException ex)   {
+            return false;
+        }
+
+        return true;
+    }
+
+    // Возвращает значение хэш-кода для этой map в соответствии с определением в интерфейсе map.
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (Entry<K, V> entry : entrySet()) {
+            hash += entry.hashCode();
+        }
+        return hash;
+    }
+
+    // Возвращает строковое представление содержимого массива ячеек; пустые и удаленные ячейки выводятся как null.
+    @Override
+    public String toString() {
+        finishResize();
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < capacity; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            if (keys[i] == null || keys[i] == TOMBSTONE) {
+                builder.append("null");
+            } else {
+                builder.append(keys[i]).append('=').append(vals[i]);
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    // Возвращает значение, которому сопоставлен указанный ключ, или значение по умолчанию,
+    // если эта map не содержит сопоставления для ключа.
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        int index = lookup(key);
+        if (index < -1) {
+            return foundValue(index);
+        }
+        if (eviction != null) {
+            accessed(index);
+        }
+        if (expireAfterAccess && index >= 0) {
+            read(index);
+        }
+        if (index >= 0) {
+            return valueAt(index);
+        } else {
+            return defaultValue;
+        }
+    }
+
+    // Выполняет указанное действие для каждой записи в этой map до тех пор,
+    // пока все записи не будут обработаны или действие не вызовет исключение.
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        finishResize();
+
+        Object[] keys = this.keys;
+        Object[] vals = this.vals;
+        int expectedModCount = modCount;
+        for (int i = 0; i < keys.length && modCount == expectedModCount; i++) {
+            Object key = keys[i];
+            if (key != null && key != TOMBSTONE && (deadlines == null || !expired(i))) {
+                action.accept((K) key, (V) vals[i]);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /* Параллельно выполняет действие для каждой записи на общем пуле ForkJoin.
+     * Диапазон ячеек делится между задачами, пока на задачу приходится больше parallelismThreshold записей;
+     * если записей в таблице не больше порога, действие выполняется в вызывающем потоке (Long.MAX_VALUE – всегда).
+     * Действие вызывается из разных потоков. Таблицу нельзя изменять, пока операция выполняется.
+     */
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        finishResize();
+        ForEachTask task = new ForEachTask(0, capacity, parallelismThreshold, action);
+        if (size <= parallelismThreshold) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+    }
+
+    /* Параллельно свертывает записи: transformer преобразует каждую запись (null – запись пропускается),
+     * reducer объединяет результаты. Возвращает null, если ни одна запись не дала результата.
+     * Порог и ограничения те же, что у forEach(long, BiConsumer).
+     */
+    public <U> U reduce(long parallelismThreshold,
+                        BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        finishResize();
+        ReduceTask<U> task = new ReduceTask<>(0, capacity, parallelismThreshold, transformer, reducer);
+        if (size <= parallelismThreshold) {
+            return task.compute();
+        }
+        return ForkJoinPool.commonPool().invoke(task);
+    }
+
+    /* Параллельно ищет запись, для которой searchFunction возвращает не null, и возвращает этот результат
+     * (любой из найденных) или null. Найдя результат, задачи прекращают перебор.
+     * Порог и ограничения те же, что у forEach(long, BiConsumer).
+     */
+    public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        Objects.requireNonNull(searchFunction);
+        finishResize();
+        SearchTask<U> task = new SearchTask<>(0, capacity, parallelismThreshold, searchFunction, new AtomicReference<>());
+        if (size <= parallelismThreshold) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        return task.result.get();
+    }
+
+    // Проверяет, нужно ли делить диапазон ячеек [lo, hi): примерное количество записей в нем больше порога.
+    private boolean shouldSplit(int lo, int hi, long threshold) {
+        return hi - lo > 1 && (long) (hi - lo) * size / capacity > threshold;
+    }
+
+    // Задача forEach над диапазоном ячеек.
+    private final class ForEachTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo;
+        private final int hi;
+        private final long threshold;
+        private final BiConsumer<? super K, ? super V> action;
+
+        ForEachTask(int lo, int hi, long threshold, BiConsumer<? super K, ? super V> action) {
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (shouldSplit(lo, hi, threshold)) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ForEachTask(lo, mid, threshold, action), new ForEachTask(mid, hi, threshold, action));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                if (visible(i)) {
+                    action.accept(keyAt(i), valueAt(i));
+                }
+            }
+        }
+    }
+
+    // Задача reduce над диапазоном ячеек.
+    private final class ReduceTask<U> extends RecursiveTask<U> {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo;
+        private final int hi;
+        private final long threshold;
+        private final BiFunction<? super K, ? super V, ? extends U> transformer;
+        private final BiFunction<? super U, ? super U, ? extends U> reducer;
+
+        ReduceTask(int lo, int hi, long threshold,
+                   BiFunction<? super K, ? super V, ? extends U> transformer,
+                   BiFunction<? super U, ? super U, ? extends U> reducer) {
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+            this.transformer = transformer;
+            this.reducer = reducer;
+        }
+
+        @Override
+        protected U compute() {
+            if (shouldSplit(lo, hi, threshold)) {
+                int mid = (lo + hi) >>> 1;
+                ReduceTask<U> left = new ReduceTask<>(lo, mid, threshold, transformer, reducer);
+                left.fork();
+                U right = new ReduceTask<>(mid, hi, threshold, transformer, reducer).compute();
+                return combine(left.join(), right);
+            }
+            U result = null;
+            for (int i = lo; i < hi; i++) {
+                if (visible(i)) {
+                    result = combine(result, transformer.apply(keyAt(i), valueAt(i)));
+                }
+            }
+            return result;
+        }
+
+        private U combine(U left, U right) {
+            if (left == null) {
+                return right;
+            }
+            return right == null ? left : reducer.apply(left, right);
+        }
+    }
+
+    // Задача search над диапазоном ячеек; общий result останавливает остальные задачи.
+    private final class SearchTask<U> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo;
+        private final int hi;
+        private final long threshold;
+        private final BiFunction<? super K, ? super V, ? extends U> searchFunction;
+        final AtomicReference<U> result;
+
+        SearchTask(int lo, int hi, long threshold,
+                   BiFunction<? super K, ? super V, ? extends U> searchFunction, AtomicReference<U> result) {
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+            this.searchFunction = searchFunction;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (result.get() != null) {
+                return;
+            }
+            if (shouldSplit(lo, hi, threshold)) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SearchTask<>(lo, mid, threshold, searchFunction, result),
+                        new SearchTask<>(mid, hi, threshold, searchFunction, result));
+                return;
+            }
+            for (int i = lo; i < hi && result.get() == null; i++) {
+                if (visible(i)) {
+                    U found = searchFunction.apply(keyAt(i), valueAt(i));
+                    if (found != null) {
+                        result.compareAndSet(null, found);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // Заменяет значение каждой записи результатом вызова данной функции для этой записи до тех пор,
+    // пока все записи не будут обработаны или функция не выдаст исключение.
     @Override
+    @SuppressWarnings("unchecked")
     public synchronized void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
         Objects.requireNonNull(function);
-
-        if (entrySet == null) {
-            entrySet = entrySet();
+        finishResize();
+
+        Object[] keys = this.keys;
+        Object[] vals = this.vals;
+        int expectedModCount = modCount;
+        for (int i = 0; i < keys.length && modCount == expectedModCount; i++) {
+            Object key = keys[i];
+            // Новое значение продлило бы истекшую запись, поэтому она пропускается.
+            if (key != null && key != TOMBSTONE && (deadlines == null || !expired(i))) {
+                replaceValue(i, Objects.requireNonNull(function.apply((K) key, (V) vals[i])));
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
         }
+    }
 
-        int size = entrySet.size();
+    /* Удаляет все записи, для которых выполняется условие, одним проходом по массиву.
+     * Ячейки помечаются удаленными на месте; вычистка, если нужна, выполняется один раз в конце.
+     * Возвращает true, если что-то было удалено.
+     */
+    public boolean removeIf(BiPredicate<? super K, ? super V> filter) {
+        Objects.requireNonNull(filter);
+        return removeSlots(i -> filter.test(keyAt(i), valueAt(i)));
+    }
 
-        for (Entry<K, V> cell : entrySet) {
-            Objects.requireNonNull(
-                    cell.setValue(function.apply(cell.getKey(), cell.getValue()))
-            );
-            if (entrySet.size() != size) {
-                throw new ConcurrentModificationException();
+    // Общий проход removeIf: условие получает индекс занятой ячейки.
+    private boolean removeSlots(IntPredicate filter) {
+        finishResize();
+        Object[] keys = this.keys;
+        int expectedModCount = modCount;
+        boolean removed = false;
+        for (int i = 0; i < keys.length; i++) {
+            if (visible(i)) {
+                boolean matches = filter.test(i);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (matches) {
+                    markRemoved(i);
+                    expectedModCount = modCount;
+                    removed = true;
+                }
             }
         }
+        if (tombstones > tombstoneThreshold * capacity) {
+            compact();
+        }
+        return removed;
     }
 
     // Если указанный ключ еще не связан со значением (или сопоставлен нулю),
     // он связывает его с заданным значением и возвращает null, иначе возвращает текущее значение.
     @Override
     public V putIfAbsent(K key, V value) {
+        if (value == null || key == null) {
+            throw new NullPointerException();
+        }
+
+        int hash = hash(key);
+        int index = findOrClaim(key, hash);
+        if (index >= 0) {
+            return valueAt(index);
+        }
+        insert(index, key, value, hash);
+        return null;
+    }
+
+    // Удаляет запись для указанного ключа только в том случае,
+    // если в данный момент она сопоставлена с указанным значением.
+    @Override
+    public boolean remove(Object key, Object value) {
+        int index = contains(key);
+        if (index < 0 || !vals[index].equals(value)) {
+            return false;
+        }
+
+        removeAt(index);
+        return true;
+    }
+
+    // Заменяет запись для указанного ключа только в том случае,
+    // если в данный момент сопоставлено с указанным значением.
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (oldValue == null || newValue == null) throw new NullPointerException();
+
+        int index = contains(key);
+        if (index < 0 || !vals[index].equals(oldValue)) {
+            return false;
+        }
+
+        replaceValue(index, newValue);
+        return true;
+    }
+
+    // Заменяет запись для указанного ключа только в том случае,
+    // если в данный момент он сопоставлен с некоторым значением.
+    @Override
+    public V replace(K key, V value) {
+        if (value == null) throw new NullPointerException();
+
+        int index = contains(key);
+        if (index < 0) {
+            return null;
+        }
+
+        V old = valueAt(index);
+        replaceValue(index, value);
+        return old;
+    }
+
+    /* Если указанный ключ еще не связан со значением (или сопоставлен нулю),
+     * пытается вычислить его значение с помощью заданной функции сопоставления и вводит его в эту map,
+     * если не указано значение null.
+     * Если функция сопоставления возвращает значение null,
+     * сопоставление не записывается. Если функция сопоставления сама выдает (непроверенное) исключение,
+     * исключение повторно генерируется, и сопоставление не записывается.
+     */
+    @Override
+    public synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+
+        int hash = hash(key);
+        int index = findOrClaim(key, hash);
+        if (index >= 0) {
+            return valueAt(index);
+        }
+
+        int expectedModCount = modCount;
+        V newValue = mappingFunction.apply(key);
+        if (newValue != null) {
+            store(key, hash, expectedModCount == modCount ? index : findOrClaim(key, hash), newValue);
+        }
+        return newValue;
+    }
+
+    /* Если значение для указанного ключа присутствует и не равно нулю,
+     * выполняется попытка вычисления нового сопоставления с учетом ключа и его текущего сопоставленного значения.
+     * Если функция переназначения возвращает значение null, сопоставление удаляется.
+     * Если сама функция переназначения выдает (непроверенное) исключение, исключение повторно генерируется,
+     * а текущее сопоставление остается неизменным.
+     */
+    @Override
+    public synchronized V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+
         int index = contains(key);
+        if (index < 0) {
+            return null;
+        }
+
+        int hash = hashes[index];
+        int expectedModCount = modCount;
+        V newValue = remappingFunction.apply(key, valueAt(index));
+        store(key, hash, expectedModCount == modCount ? index : findOrClaim(key, hash), newValue);
+        return newValue;
+    }
+
+    // Пытается вычислить сопоставление для указанного ключа и его текущего сопоставленного значения
+    // (или null, если текущее сопоставление отсутствует).
+    @Override
+    public synchronized V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+
+        int hash = hash(key);
+        int index = findOrClaim(key, hash);
+        V oldValue = index >= 0 ? valueAt(index) : null;
+
+        int expectedModCount = modCount;
+        V newValue = remappingFunction.apply(key, oldValue);
+        store(key, hash, expectedModCount == modCount ? index : findOrClaim(key, hash), newValue);
+        return newValue;
+    }
+
+
+    /* Если указанный ключ еще не связан со значением или связан с null,
+     * связывает его с заданным ненулевым значением.
+     * В противном случае заменяет связанное значение результатами данной функции переназначения или удаляет,
+     * если результат равен нулю.
+     * Этот метод может быть полезен при объединении нескольких сопоставленных значений для ключа.
+     */
+    @Override
+    public synchronized V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        Objects.requireNonNull(value);
+
+        int hash = hash(key);
+        int index = findOrClaim(key, hash);
+        if (index < 0) {
+            insert(index, key, value, hash);
+            return value;
+        }
+
+        int expectedModCount = modCount;
+        V newValue = remappingFunction.apply(valueAt(index), value);
+        store(key, hash, expectedModCount == modCount ? index : findOrClaim(key, hash), newValue);
+        return newValue;
+    }
+
+    // Состояние вытеснения ограниченной таблицы.
+    private static final class Eviction {
+        final int maxEntries;
+        final EvictionPolicy policy;
+        EvictionListener<?, ?> listener;
+        long hits;
+        long misses;
+        long evictions;
+        // Номер последнего обращения для SAMPLED_LRU.
+        long tick;
+
+        Eviction(int maxEntries, EvictionPolicy policy) {
+            this.maxEntries = maxEntries;
+            this.policy = policy;
+        }
+
+        // Отметка обращения к ячейке: бит обращения для CLOCK, следующий номер обращения для SAMPLED_LRU.
+        long stamp() {
+            return policy == EvictionPolicy.CLOCK ? 1 : ++tick;
+        }
+    }
+
+    // Служебные массивы пакетного поиска, общие для всех групп одного вызова.
+    private static final class BatchProbe {
+        final int[] hash = new int[BATCH];
+        final int[] result = new int[BATCH];
+        final int[] index = new int[BATCH];
+        final int[] step = new int[BATCH];
+        final int[] free = new int[BATCH];
+    }
+
+    /* Записывает результат compute-операции в ячейку, найденную findOrClaim:
+     * обновляет или удаляет существующую запись, вставляет новую, если значение не null.
+     */
+    private void store(K key, int hash, int index, V value) {
         if (index >= 0) {
-            return table[index].getValue();
+            if (value != null) {
+                replaceValue(index, value);
+            } else {
+                removeAt(index);
+            }
+        } else if (value != null) {
+            insert(index, key, value, hash);
+        }
+    }
+
+    /* Вставляет отсутствующий ключ в ячейку, которую вернул findOrClaim (закодированную как -(индекс + 1)).
+     * Если вставка превышает коэффициент загрузки, таблица сначала растет, и ячейка ищется заново.
+     */
+    private void insert(int claim, K key, V value, int hash) {
+        insert(claim, key, value, hash, expireAfterNanos);
+    }
+
+    // Вставляет ключ со временем жизни lifetime нс (0 – бессрочно; учитывается, только если истечение включено).
+    private void insert(int claim, K key, V value, int hash, long lifetime) {
+        int index = -(claim + 1);
+        if (keys[index] != null && keys[index] != TOMBSTONE) {
+            // Ячейка истекшей записи того же ключа (findOrClaim): запись удаляется только теперь, при записи.
+            markRemoved(index);
+        }
+        Object evictedKey = null;
+        Object evictedValue = null;
+        if (eviction != null && size >= eviction.maxEntries) {
+            int victim = victim(hash);
+            if (victim >= 0) {
+                // Новый ключ занимает ячейку вытесненной записи, и удаленная ячейка не остается.
+                index = victim;
+            } else {
+                victim = -(victim + 1);
+            }
+            evictedKey = keys[victim];
+            evictedValue = vals[victim];
+            markRemoved(victim);
+            eviction.evictions++;
+        }
+        if ((double) (size + 1) / capacity >= loadFactor) {
+            finishResize();
+            rehash();
+            index = findEmptyIndex(hash);
+        } else if (keys[index] == TOMBSTONE) {
+            tombstones--;
+        }
+        keys[index] = key;
+        vals[index] = value;
+        hashes[index] = hash;
+        if (access != null) {
+            access[index] = eviction.stamp();
+        }
+        if (deadlines != null) {
+            written(index, lifetime);
+        }
+        if (valueIndex != null) {
+            valueIndex.add(value, key);
+        }
+        size++;
+        modCount++;
+        if (listener != null) {
+            listener.inserted(index);
+        }
+        if (wheel != null) {
+            // Вставка продвигает колесо, только когда начался новый тик: истекшие записи удаляются по мере записи.
+            long now = ticker.nanos();
+            if (wheel.due(now)) {
+                wheel.advance(now, deadlines, expiredSlot, false);
+            }
+        }
+        if ((evictedKey != null || wheel != null) && tombstones > tombstoneThreshold * capacity) {
+            compact();
+        }
+        if (evictedKey != null && eviction.listener != null) {
+            evicted(evictedKey, evictedValue);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void evicted(Object key, Object value) {
+        ((EvictionListener<Object, Object>) eviction.listener).evicted(key, value);
+    }
+
+    // Заменяет значение существующей записи.
+    private void replaceValue(int index, Object value) {
+        replaceValue(index, value, expireAfterNanos);
+    }
+
+    // Заменяет значение и задает записи время жизни lifetime нс, если истечение включено.
+    private void replaceValue(int index, Object value, long lifetime) {
+        Object oldValue = vals[index];
+        vals[index] = value;
+        if (access != null) {
+            access[index] = eviction.stamp();
+        }
+        if (deadlines != null) {
+            written(index, lifetime);
+        }
+        if (valueIndex != null && !oldValue.equals(value)) {
+            valueIndex.remove(oldValue, keys[index]);
+            valueIndex.add(value, keys[index]);
+        }
+        if (listener != null) {
+            listener.updated(index, oldValue);
+        }
+    }
+
+    // Учитывает обращение ограниченной таблицы к ключу: index – ячейка ключа или отрицательное число при промахе.
+    private void accessed(int index) {
+        if (index < 0) {
+            eviction.misses++;
+        } else {
+            eviction.hits++;
+            access[index] = eviction.stamp();
+        }
+    }
+
+    // Включает истечение записей: выделяет массивы сроков и колесо таймеров.
+    private void enableExpiry() {
+        if (wheel != null) {
+            return;
+        }
+        finishResize();
+        deadlines = new long[capacity];
+        lifetimes = new long[capacity];
+        wheel = new TimingWheel(capacity, ticker.nanos());
+        expiredSlot = this::markRemoved;
+    }
+
+    // Задает ячейке время жизни lifetime нс от текущего момента (0 – бессрочно) и ставит ее в колесо.
+    private void written(int index, long lifetime) {
+        lifetimes[index] = lifetime;
+        if (lifetime == 0) {
+            wheel.cancel(index);
+        } else {
+            deadlines[index] = ticker.nanos() + lifetime;
+            wheel.schedule(index, deadlines[index]);
+        }
+    }
+
+    // Продлевает запись после чтения в режиме expireAfterAccess.
+    private void read(int index) {
+        if (lifetimes[index] != 0) {
+            written(index, lifetimes[index]);
+        }
+    }
+
+    // Проверяет, прошел ли срок записи в ячейке.
+    private boolean expired(int index) {
+        return lifetimes[index] != 0 && deadlines[index] - ticker.nanos() <= 0;
+    }
+
+    // Проверяет, видна ли запись ячейки обходам и поиску по значению: ячейка занята и срок записи не прошел.
+    private boolean visible(int index) {
+        Object key = keys[index];
+        return key != null && key != TOMBSTONE && (deadlines == null || !expired(index));
+    }
+
+    /* Ключи значения по обратному индексу без истекших записей или null, если таких нет.
+     * Истекшая запись остается в индексе, пока ее не удалят, поэтому при истечении ключи проверяются по таблице.
+     */
+    private Set<K> indexedKeys(Object value) {
+        Set<K> keys = valueIndex.keys(value);
+        if (keys == null || deadlines == null) {
+            return keys;
+        }
+        HashTable<K, Boolean> live = null;
+        for (K key : keys) {
+            if (lookup(key) != -1) {
+                if (live == null) {
+                    live = new HashTable<>(4);
+                }
+                live.put(key, Boolean.TRUE);
+            }
+        }
+        return live == null ? null : Collections.unmodifiableSet(live.keySet());
+    }
+
+    // Заново ставит в колесо все ячейки со сроком после перестановки записей.
+    private void reschedule() {
+        wheel.reset(capacity);
+        for (int i = 0; i < capacity; i++) {
+            Object key = keys[i];
+            if (key != null && key != TOMBSTONE && lifetimes[i] != 0) {
+                wheel.schedule(i, deadlines[i]);
+            }
+        }
+    }
+
+    /* Выбирает запись для вытеснения среди первых SAMPLES живых записей последовательности проб нового ключа
+     * с хэш-значением hash, лежащих до первой свободной ячейки. Двойное хеширование разбрасывает
+     * последовательность по массиву, поэтому это случайная выборка записей. CLOCK берет первую запись
+     * без бита обращения, снимая биты у пропущенных (если бит стоял у всех, берет первую);
+     * SAMPLED_LRU – запись с самым ранним обращением. Возвращается индекс записи: поиск нового ключа
+     * доходит до ее ячейки, и ключ вставляется на ее место без новой удаленной ячейки.
+     * Если до свободной ячейки живых записей нет, выборка продолжается за ней и возвращается -(индекс + 1):
+     * запись удаляется, а ключ вставляется в найденную для него ячейку. Таблица не пуста.
+     */
+    private int victim(int hash) {
+        int index = probeStrategy.start(hash, capacity);
+        int step = probeStrategy.step(hash, capacity);
+        int victim = -1;
+        int victimProbe = 0;
+        int sampled = 0;
+        int freeProbe = -1;
+        for (int n = 0; n < capacity && sampled < EvictionPolicy.SAMPLES; n++, index = DoubleHashing.next(index, step, capacity)) {
+            Object key = keys[index];
+            if (key == null || key == TOMBSTONE) {
+                if (key == null && freeProbe < 0) {
+                    if (sampled > 0) {
+                        break;
+                    }
+                    freeProbe = n;
+                }
+                continue;
+            }
+            sampled++;
+            if (eviction.policy == EvictionPolicy.CLOCK) {
+                if (access[index] == 0) {
+                    victim = index;
+                    victimProbe = n;
+                    break;
+                }
+                access[index] = 0;
+                if (victim < 0) {
+                    victim = index;
+                    victimProbe = n;
+                }
+            } else if (victim < 0 || access[index] < access[victim]) {
+                victim = index;
+                victimProbe = n;
+            }
+        }
+        if (freeProbe >= 0 && victimProbe > freeProbe) {
+            return -(victim + 1);
+        }
+        maxProbe = Math.max(maxProbe, victimProbe);
+        return victim;
+    }
+
+    // Удаляет запись из ячейки; при большом количестве удаленных ячеек вычищает их.
+    private void removeAt(int index) {
+        markRemoved(index);
+        if (tombstones > tombstoneThreshold * capacity) {
+            compact();
+        }
+    }
+
+    // Помечает ячейку удаленной, не вычищая удаленные ячейки.
+    private void markRemoved(int index) {
+        Object key = keys[index];
+        Object value = vals[index];
+        size--;
+        keys[index] = TOMBSTONE;
+        vals[index] = null;
+        if (wheel != null) {
+            wheel.cancel(index);
+            lifetimes[index] = 0;
+        }
+        if (valueIndex != null) {
+            valueIndex.remove(value, key);
+        }
+        tombstones++;
+        modCount++;
+        if (listener != null) {
+            listener.removed(index, key, value);
+        }
+    }
+
+    /* Используется для увеличения емкости хэш-таблицы.
+     * Этот метод вызывается автоматически,
+     * когда количество ключей в хэш-таблице превышает емкость и коэффициент загрузки этой хэш-таблицы.
+     * Он также внутренне реорганизует эту хэш-таблицу.
+     */
+    private void rehash() {
+        int newCapacity = probeStrategy.grow(capacity);
+        if (resizeStep > 0 && listener == null && access == null && deadlines == null) {
+            startResize(newCapacity);
         } else {
-            return put(key, value);
+            resize(newCapacity);
         }
     }
 
-    // Удаляет запись для указанного ключа только в том случае,
-    // если в данный момент она сопоставлена с указанным значением.
-    @Override
-    public boolean remove(Object key, Object value) {
-        V curValue = get(key);
-
-        if (!Objects.equals(curValue, value)) {
-            return false;
+    /* Начинает постепенный перенос: текущий массив становится старым, новые записи попадают в новый массив.
+     * Перенесенные и удаленные ячейки старого массива помечаются удаленными, а не обнуляются,
+     * чтобы не обрывать последовательности проб еще не перенесенных ключей.
+     */
+    private void startResize(int newCapacity) {
+        StatsRecorder recorder = stats;
+        if (recorder != null) {
+            recorder.rehash(0, size);
         }
-
-        remove(key);
-        return true;
+        oldKeys = keys;
+        oldVals = vals;
+        oldHashes = hashes;
+        oldCapacity = capacity;
+        oldMaxProbe = maxProbe;
+        migrateIndex = 0;
+        modCount++;
+
+        capacity = newCapacity;
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        hashes = new int[capacity];
+        maxProbe = 0;
+        tombstones = 0;
     }
 
-    // Заменяет запись для указанного ключа только в том случае,
-    // если в данный момент сопоставлено с указанным значением.
-    @Override
-    public boolean replace(K key, V oldValue, V newValue) {
-        if (oldValue == null) throw new NullPointerException();
-
-        int index = contains(key);
-        if (index < 0 || !table[index].getValue().equals(oldValue)) {
-            return false;
+    // Переносит не больше limit ячеек старого массива; после переноса последней ячейки старый массив освобождается.
+    private void migrate(int limit) {
+        StatsRecorder recorder = stats;
+        long started = recorder != null ? System.nanoTime() : 0;
+        int end = (int) Math.min(oldCapacity, (long) migrateIndex + limit);
+        for (; migrateIndex < end; migrateIndex++) {
+            Object key = oldKeys[migrateIndex];
+            if (key != null && key != TOMBSTONE) {
+                moveFromOld(migrateIndex);
+            }
         }
+        if (recorder != null) {
+            recorder.migrate(System.nanoTime() - started);
+        }
+        if (migrateIndex == oldCapacity) {
+            oldKeys = null;
+            oldVals = null;
+            oldHashes = null;
+        }
+    }
 
-        table[index].setValue(newValue);
-        return true;
+    // Переносит запись из ячейки старого массива в новый массив и возвращает ее новый индекс.
+    private int moveFromOld(int oldIndex) {
+        return moveFromOld(oldIndex, findEmptyIndex(oldHashes[oldIndex]));
     }
 
-    // Заменяет запись для указанного ключа только в том случае,
-    // если в данный момент он сопоставлен с некоторым значением.
-    @Override
-    public V replace(K key, V value) {
-        int index = contains(key);
-        if (index < 0) {
-            return null;
-        }
+    // Переносит запись из ячейки старого массива в заданную свободную ячейку нового массива.
+    private int moveFromOld(int oldIndex, int index) {
+        int hash = oldHashes[oldIndex];
+        keys[index] = oldKeys[oldIndex];
+        vals[index] = oldVals[oldIndex];
+        hashes[index] = hash;
+        oldKeys[oldIndex] = TOMBSTONE;
+        oldVals[oldIndex] = null;
+        modCount++;
+        return index;
+    }
 
-        V old = table[index].getValue();
-        table[index].setValue(value);
-        return old;
+    // Завершает начатый постепенный перенос за один вызов.
+    private void finishResize() {
+        if (oldKeys != null) {
+            migrate(oldCapacity);
+        }
     }
 
-    /* Если указанный ключ еще не связан со значением (или сопоставлен нулю),
-     * пытается вычислить его значение с помощью заданной функции сопоставления и вводит его в эту map,
-     * если не указано значение null.
-     * Если функция сопоставления возвращает значение null,
-     * сопоставление не записывается. Если функция сопоставления сама выдает (непроверенное) исключение,
-     * исключение повторно генерируется, и сопоставление не записывается.
-     */
-    @Override
-    public synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
-        Objects.requireNonNull(mappingFunction);
+    // Переносит живые записи в новый массив заданной емкости. Удаленные ячейки не переносятся,
+    // хэш-значения ключей берутся из сохраненного массива.
+    private void resize(int newCapacity) {
+        StatsRecorder recorder = stats;
+        long started = recorder != null ? System.nanoTime() : 0;
+        int oldCapacity = capacity;
+        capacity = newCapacity;
+        modCount++;
+
+        Object[] subKeys = keys;
+        Object[] subVals = vals;
+        int[] subHashes = hashes;
+        long[] subAccess = access;
+        long[] subDeadlines = deadlines;
+        long[] subLifetimes = lifetimes;
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        hashes = new int[capacity];
+        if (access != null) {
+            access = new long[capacity];
+        }
+        if (deadlines != null) {
+            deadlines = new long[capacity];
+            lifetimes = new long[capacity];
+        }
+        maxProbe = 0;
+        tombstones = 0;
+        if (listener != null) {
+            listener.relocating(capacity);
+        }
 
-        int index = contains(key);
-        if (index >= 0) {
-            return table[index].getValue();
+        // Большие таблицы переносятся диапазонами на общем пуле ForkJoin
+        // (если за ячейками никто не наблюдает и отметки обращений и сроки не нужно переносить).
+        if (size >= PARALLEL_RESIZE_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1
+                && listener == null && access == null && deadlines == null) {
+            ConcurrentInsert insert = new ConcurrentInsert(true);
+            ForkJoinPool.commonPool().invoke(new ResizeTask(0, oldCapacity, subKeys, subVals, subHashes, insert));
+            maxProbe = insert.maxProbe.get();
         } else {
-            V newValue = mappingFunction.apply(key);
-
-            if (newValue == null) {
-                throw new NullPointerException("Computed value is null");
+            for (int i = 0; i < oldCapacity; i++) {
+                Object key = subKeys[i];
+                if (key != null && key != TOMBSTONE) {
+                    int index = findEmptyIndex(subHashes[i]);
+                    keys[index] = key;
+                    vals[index] = subVals[i];
+                    hashes[index] = subHashes[i];
+                    if (access != null) {
+                        access[index] = subAccess[i];
+                    }
+                    if (deadlines != null) {
+                        deadlines[index] = subDeadlines[i];
+                        lifetimes[index] = subLifetimes[i];
+                    }
+                    if (listener != null) {
+                        listener.moved(i, index);
+                    }
+                }
             }
-
-            put(key, newValue);
-            return newValue;
+        }
+        if (wheel != null) {
+            reschedule();
+        }
+        if (listener != null) {
+            listener.relocated();
+        }
+        if (recorder != null) {
+            recorder.rehash(System.nanoTime() - started, size);
         }
     }
 
-    /* Если значение для указанного ключа присутствует и не равно нулю,
-     * выполняется попытка вычисления нового сопоставления с учетом ключа и его текущего сопоставленного значения.
-     * Если функция переназначения возвращает значение null, сопоставление удаляется.
-     * Если сама функция переназначения выдает (непроверенное) исключение, исключение повторно генерируется,
-     * а текущее сопоставление остается неизменным.
+    /* Потокобезопасная вставка в текущие массивы для build и параллельного перехеширования.
+     * Ячейка занимается CAS ключа, значение и хэш записываются занявшим ее потоком; их видимость
+     * обеспечивает завершение параллельной фазы. Ключи сравниваются по equals без проверки хэша:
+     * хэш занятой ячейки может быть еще не записан. При unique ключи заведомо различны и не сравниваются.
      */
-    @Override
-    public synchronized V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
-        Objects.requireNonNull(remappingFunction);
+    private final class ConcurrentInsert {
+        private final boolean unique;
+        final AtomicInteger claimed = new AtomicInteger();
+        final AtomicInteger maxProbe = new AtomicInteger();
 
-        int index = contains(key);
-        if (index >= 0) {
-            Cell<K,V> cell = table[index];
-            V newValue = remappingFunction.apply(key, cell.getValue());
+        ConcurrentInsert(boolean unique) {
+            this.unique = unique;
+        }
 
-            if (newValue == null) {
-                throw new NullPointerException("Computed value is null");
+        // Вставляет запись; возвращает false, если новый ключ превысил бы коэффициент загрузки.
+        boolean insert(Object key, Object value, int hash) {
+            Object[] keys = HashTable.this.keys;
+            int capacity = HashTable.this.capacity;
+            int index = probeStrategy.start(hash, capacity);
+            int step = probeStrategy.step(hash, capacity);
+            for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+                Object candidate = SLOT.getVolatile(keys, index);
+                if (candidate == null) {
+                    if (!unique && !reserve(capacity)) {
+                        return false;
+                    }
+                    if (SLOT.compareAndSet(keys, index, null, key)) {
+                        vals[index] = value;
+                        hashes[index] = hash;
+                        if (n > maxProbe.get()) {
+                            maxProbe.accumulateAndGet(n, Math::max);
+                        }
+                        return true;
+                    }
+                    if (!unique) {
+                        claimed.decrementAndGet();
+                    }
+                    candidate = SLOT.getVolatile(keys, index);
+                }
+                if (!unique && (candidate == key || candidate.equals(key))) {
+                    vals[index] = value;
+                    return true;
+                }
             }
-
-            cell.setValue(newValue);
-            return newValue;
         }
 
-        return null;
+        // Резервирует место под новый ключ, если после вставки коэффициент загрузки не будет превышен.
+        private boolean reserve(int capacity) {
+            while (true) {
+                int current = claimed.get();
+                if ((double) (current + 1) / capacity >= loadFactor) {
+                    return false;
+                }
+                if (claimed.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
     }
 
-    // Пытается вычислить сопоставление для указанного ключа и его текущего сопоставленного значения
-    // (или null, если текущее сопоставление отсутствует).
-    @Override
-    public synchronized V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
-        Objects.requireNonNull(remappingFunction);
-
-        int index = contains(key);
+    // Параллельный перенос диапазона ячеек старого массива в новый.
+    private final class ResizeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo;
+        private final int hi;
+        private final Object[] subKeys;
+        private final Object[] subVals;
+        private final int[] subHashes;
+        private final ConcurrentInsert insert;
+
+        ResizeTask(int lo, int hi, Object[] subKeys, Object[] subVals, int[] subHashes, ConcurrentInsert insert) {
+            this.lo = lo;
+            this.hi = hi;
+            this.subKeys = subKeys;
+            this.subVals = subVals;
+            this.subHashes = subHashes;
+            this.insert = insert;
+        }
 
-        if (index >= 0) {
-            V oldValue = table[index].getValue();
-            V newValue = remappingFunction.apply(key, oldValue);
+        @Override
+        protected void compute() {
+            if (hi - lo > RESIZE_CHUNK) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ResizeTask(lo, mid, subKeys, subVals, subHashes, insert),
+                        new ResizeTask(mid, hi, subKeys, subVals, subHashes, insert));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                Object key = subKeys[i];
+                if (key != null && key != TOMBSTONE) {
+                    insert.insert(key, subVals[i], subHashes[i]);
+                }
+            }
+        }
+    }
 
-            if (newValue != null) {
-                put(key, newValue);
-                return newValue;
-            } else {
-                remove(key);
-                return null;
+    // Возвращает пустой индекс при поиске с начала или конца.
+    private int findEmptyIndex(int hash) {
+        int index = probeStrategy.start(hash, capacity);
+        int step = probeStrategy.step(hash, capacity);
+        for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+            Object key = keys[index];
+            if (key == null) {
+                maxProbe = Math.max(maxProbe, n);
+                return index;
+            } else if (key == TOMBSTONE) {
+                tombstones--;
+                maxProbe = Math.max(maxProbe, n);
+                return  index;
             }
-        } else {
-            V newValue = remappingFunction.apply(key, null);
-            return put(key, newValue);
         }
     }
 
+    // Хэш-значение ключа: hashCode после перемешивания hashStrategy.
+    private int hash(Object key) {
+        if (key == null) throw new NullPointerException("HashTable does not permit null keys");
+        return hashStrategy.mix(key.hashCode());
+    }
 
-    /* Если указанный ключ еще не связан со значением или связан с null,
-     * связывает его с заданным ненулевым значением.
-     * В противном случае заменяет связанное значение результатами данной функции переназначения или удаляет,
-     * если результат равен нулю.
-     * Этот метод может быть полезен при объединении нескольких сопоставленных значений для ключа.
+    /* Проверка на содержание объектов для операций записи (чтения используют lookup).
+     * Во время постепенного переноса сначала проверяется новый массив, затем старый;
+     * найденная в старом массиве запись сразу переносится, поэтому возвращаемый индекс всегда относится к keys.
+     * Каждый вызов также переносит очередные resizeStep ячеек старого массива.
+     * Найденная истекшая запись считается отсутствующей, но не удаляется: чтение не меняет таблицу
+     * (и не ломает идущие обходы), запись удалят колесо таймеров, вставка или expire().
+     * При включенном истечении постепенного переноса нет.
      */
-    @Override
-    public synchronized V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
-        Objects.requireNonNull(remappingFunction);
+    private int contains(Object key) {
+        int hash = hash(key);
+        if (oldKeys == null) {
+            int index = find(keys, hashes, capacity, maxProbe, key, hash);
+            if (index >= 0 && deadlines != null && expired(index)) {
+                return -1;
+            }
+            return index;
+        }
 
-        int index = contains(key);
+        migrate(resizeStep);
+        int index = find(keys, hashes, capacity, maxProbe, key, hash);
+        if (index >= 0 || oldKeys == null) {
+            return index;
+        }
+        int oldIndex = find(oldKeys, oldHashes, oldCapacity, oldMaxProbe, key, hash);
+        if (oldIndex < 0) {
+            return -1;
+        }
+        return moveFromOld(oldIndex);
+    }
 
+    /* Поиск ключа для чтения: таблица не меняется, во время постепенного переноса ячейки не переносятся,
+     * а ключ ищется в обоих массивах. Возвращает индекс ключа в keys, -(индекс в oldKeys + 2),
+     * если ключ еще не перенесен, или -1, если ключа нет или срок его записи прошел.
+     */
+    private int lookup(Object key) {
+        int hash = hash(key);
+        int index = find(keys, hashes, capacity, maxProbe, key, hash);
         if (index >= 0) {
-            Cell<K,V> cell = table[index];
-            V newValue = remappingFunction.apply(cell.getValue(), value);
-            if (newValue != null) {
-                cell.setValue(newValue);
-                return newValue;
-            } else {
-                remove(key);
-                return null;
+            return deadlines != null && expired(index) ? -1 : index;
+        }
+        if (oldKeys != null) {
+            int oldIndex = find(oldKeys, oldHashes, oldCapacity, oldMaxProbe, key, hash);
+            if (oldIndex >= 0) {
+                return -(oldIndex + 2);
             }
-        } else {
-            put(key, value);
-            return value;
         }
+        return -1;
     }
 
-    // Возвращает первое хэш-значение.
-    private int hash1(Object key) {
-        return (key.hashCode() * HASH_CONST) % capacity;
-    }
-
-    // Возвращает второе хэш-значение.
-    private int hash2(Object key) {
-        int hash = (key.hashCode() * HASH_CONST) % (capacity - 1);
-        if (hash % 2 == 0) {
-            hash++;
-        }
-        return hash;
+    // Значение по найденному lookup индексу: из keys или из еще не перенесенной ячейки старого массива.
+    @SuppressWarnings("unchecked")
+    private V foundValue(int index) {
+        return index >= 0 ? (V) vals[index] : (V) oldVals[-(index + 2)];
     }
 
-    /* Используется для увеличения емкости хэш-таблицы.
-     * Этот метод вызывается автоматически,
-     * когда количество ключей в хэш-таблице превышает емкость и коэффициент загрузки этой хэш-таблицы.
-     * Он также внутренне реорганизует эту хэш-таблицу.
+    /* Поиск ключа для записи за один проход последовательности проб.
+     * Возвращает индекс ключа, если он есть, иначе -(ячейка + 1), где ячейка – первая свободная или удаленная
+     * ячейка последовательности, в которую ключ будет вставлен. Совпадение проверяется только в пределах maxProbe,
+     * дальше проход продолжается, лишь пока не найдена ячейка для вставки; maxProbe сразу учитывает ее.
+     * Во время постепенного переноса ключ из старого массива переносится прямо в найденную ячейку.
+     * Для истекшей записи ключа возвращается -(ее ячейка + 1): сама запись удаляется только при вставке (insert),
+     * поэтому операция, которая в итоге ничего не записала, таблицу не меняет.
      */
-    private void rehash() {
-        int oldCapacity = capacity;
-        capacity = capacity * 2 + 1;
-
-        Cell<K, V>[] subTable = Arrays.copyOf(table, oldCapacity);
-        table = new Cell[capacity];
-        deletedCells = new boolean[capacity];
+    private int findOrClaim(Object key, int hash) {
+        StatsRecorder recorder = stats;
+        if (oldKeys != null) {
+            migrate(resizeStep);
+        }
 
-        for (int i = 0; i < oldCapacity; i++) {
-            if (subTable[i] != null) {
-                int index = findEmptyIndex(subTable[i].getKey());
-                table[index] = subTable[i];
+        int index = probeStrategy.start(hash, capacity);
+        int step = probeStrategy.step(hash, capacity);
+        int claim = -1;
+        int claimProbe = 0;
+        for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+            Object candidate = keys[index];
+            if (candidate == null || candidate == TOMBSTONE) {
+                if (claim < 0) {
+                    claim = index;
+                    claimProbe = n;
+                    maxProbe = Math.max(maxProbe, n);
+                }
+                if (candidate == null) {
+                    break;
+                }
+            } else if (n <= maxProbe && hashes[index] == hash && (candidate == key || candidate.equals(key))) {
+                if (deadlines != null && expired(index)) {
+                    // Ключ вставляется на место своей истекшей записи, иначе в таблице оказались бы две записи ключа.
+                    if (recorder != null) {
+                        recorder.insert(n);
+                    }
+                    return -(index + 1);
+                }
+                if (recorder != null) {
+                    recorder.hit(n);
+                }
+                return index;
+            }
+            if (claim >= 0 && n >= maxProbe) {
+                break;
             }
         }
-    }
 
-    // Возвращает пустой индекс при поиске с начала или конца.
-    private int findEmptyIndex(K key) {
-        int n = -1;
-        while (true) {
-            n++;
-            int index = (hash1(key) + n * hash2(key)) % (capacity - 3);
-            if (index < 0) {
-                index = index * -1;
-            }
-            if (table[index] == null) {
-                return index;
-            } else if (deletedCells[index]){
-                deletedCells[index] = false;
-                return  index;
+        if (oldKeys != null) {
+            int oldIndex = find(oldKeys, oldHashes, oldCapacity, oldMaxProbe, key, hash);
+            if (oldIndex >= 0) {
+                if (keys[claim] == TOMBSTONE) {
+                    tombstones--;
+                }
+                return moveFromOld(oldIndex, claim);
             }
         }
+        if (recorder != null) {
+            recorder.insert(claimProbe);
+        }
+        return -(claim + 1);
     }
 
-    // Проверка на содержание объектов.
-    private int contains(Object key) {
-        if (key == null) throw new NullPointerException("HashTable does not permit null keys");
-        int hash1 = hash1(key);
-        int hash2 = hash2(key);
-        int n = -1;
-        while (n != capacity - 1) {
-            n++;
-            int index = (hash1 + n * hash2) % (capacity - 3);
-            if (index < 0) {
-                index = index * -1;
-            }
-            Cell<K, V> cell = table[index];
-            if (cell != null && cell.getKey().equals(key)) {
-                if (deletedCells[index]) {
-                    return -1;
-                } else {
-                    return index;
+    /* Поиск ключа в заданном массиве.
+     * Поиск заканчивается на первой никогда не занятой ячейке: вставка занимает первую свободную ячейку
+     * последовательности, поэтому дальше искомого ключа быть не может. Удаленные ячейки пропускаются.
+     * Длина поиска также ограничена maxProbe, поэтому стоимость промаха зависит от коэффициента загрузки,
+     * а не от емкости таблицы. equals вызывается только при совпадении сохраненного хэш-значения.
+     */
+    private int find(Object[] keys, int[] hashes, int capacity, int maxProbe, Object key, int hash) {
+        StatsRecorder recorder = stats;
+        int index = probeStrategy.start(hash, capacity);
+        int step = probeStrategy.step(hash, capacity);
+        int n = 0;
+        for (; n <= maxProbe; n++, index = DoubleHashing.next(index, step, capacity)) {
+            Object candidate = keys[index];
+            if (candidate == null) {
+                break;
+            }
+            if (hashes[index] == hash && candidate != TOMBSTONE && (candidate == key || candidate.equals(key))) {
+                if (recorder != null) {
+                    recorder.hit(n);
                 }
+                return index;
             }
         }
+        if (recorder != null) {
+            recorder.miss(Math.min(n, maxProbe));
+        }
         return -1;
     }
 
     // Возвращает итератор, который выполняет итерацию по всем элементам.
     private <T> Iterator<T> getIterator(int type) {
+        finishResize();
         if (size == 0) {
             return Collections.emptyIterator();
         } else {
@@ -660,13 +2554,19 @@ public class HashTable<K, V> implements Map<K, V> {
         }
     }
 
-    // Позволяет выполнять итерации по набору значений в хэш-таблице.
+    /* Итератор по ячейкам текущего массива. Бросает ConcurrentModificationException, если таблица
+     * структурно изменилась не через этот итератор, и NoSuchElementException после последнего элемента.
+     * remove() помечает ячейку удаленной на месте, не переставляя остальные записи,
+     * поэтому обход продолжается с той же ячейки; вычистка удаленных ячеек откладывается до следующего remove.
+     */
     class HashIterator<T> implements Iterator<T> {
-        boolean[] iterDeletedCells = deletedCells;
-        int index = -1;
-        int count = 0;
-        int iterSize = size;
-        int type;
+        // Следующая ячейка для просмотра.
+        int index = 0;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+        final int type;
+        // Удалял ли итератор записи: после конца обхода удаленные ячейки вычищаются, как в removeIf.
+        boolean removed;
 
         HashIterator(int type) {
             this.type = type;
@@ -675,35 +2575,266 @@ public class HashTable<K, V> implements Map<K, V> {
         // Проверка, есть ли следующий элемент, и не достигнут ли конец коллекции.
         @Override
         public boolean hasNext() {
-            return count < iterSize;
+            int capacity = HashTable.this.capacity;
+            while (index < capacity && !visible(index)) {
+                index++;
+            }
+            if (index < capacity) {
+                return true;
+            }
+            if (removed && modCount == expectedModCount && tombstones > tombstoneThreshold * capacity) {
+                compactAfterIteration();
+            }
+            return false;
         }
 
-        // Получение следующующего элемента.
+        /* Вычищает удаленные ячейки после конца обхода. compact() переставляет записи,
+         * поэтому последняя возвращенная запись ищется заново: remove() после последнего next() остается доступен.
+         */
+        private void compactAfterIteration() {
+            Object last = lastReturned >= 0 ? keys[lastReturned] : null;
+            compact();
+            if (last != null) {
+                lastReturned = find(keys, hashes, capacity, maxProbe, last, hash(last));
+            }
+            removed = false;
+            expectedModCount = modCount;
+        }
+
+        // Получение следующего элемента.
         @Override
+        @SuppressWarnings("unchecked")
         public T next() {
-            index++;
-            while (index < capacity) {
-                Cell<K,V> cell = table[index];
-                if (!iterDeletedCells[index] && cell != null) {
-                    count++;
-                    return type == KEYS ? (T) cell.getKey() : (type == VALUES ? (T) cell.getValue() : (T) cell);
-                } else {
-                    index++;
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = index++;
+            return type == KEYS ? (T) keys[lastReturned] : (type == VALUES ? (T) vals[lastReturned] : (T) new EntryView(lastReturned));
+        }
+
+        // Удаление последнего возвращенного элемента.
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            markRemoved(lastReturned);
+            lastReturned = -1;
+            expectedModCount = modCount;
+            removed = true;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // Возвращает курсор по записям этой хэш-таблицы.
+    public MapCursor<K, V> cursor() {
+        finishResize();
+        return new Cursor();
+    }
+
+    // Курсор по ячейкам текущего массива; не создает объектов на запись.
+    private final class Cursor implements MapCursor<K, V> {
+        private int index = -1;
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean advance() {
+            checkForComodification();
+            int capacity = HashTable.this.capacity;
+            while (++index < capacity) {
+                if (visible(index)) {
+                    return true;
                 }
             }
-            return null;
+            return false;
+        }
+
+        @Override
+        public K key() {
+            return keyAt(current());
+        }
+
+        @Override
+        public V value() {
+            return valueAt(current());
+        }
+
+        @Override
+        public V setValue(V value) {
+            Objects.requireNonNull(value);
+            int index = current();
+            V oldValue = valueAt(index);
+            replaceValue(index, value);
+            return oldValue;
+        }
+
+        // Индекс текущей записи.
+        private int current() {
+            checkForComodification();
+            if (index < 0 || index >= capacity) {
+                throw new NoSuchElementException();
+            }
+            return index;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /* Разделяемый обход диапазона ячеек [index, fence) для потоков и parallelStream().
+     * Деление пополам по ячейкам; размер непосредственно созданного итератора точный (SIZED),
+     * у частей после деления это оценка. forEachRemaining проходит массивы одним циклом, пропуская
+     * свободные и удаленные ячейки, и бросает ConcurrentModificationException, если таблица изменилась.
+     */
+    final class HashSpliterator<T> implements Spliterator<T> {
+        private int index;
+        private final int fence;
+        private long estimate;
+        private final int type;
+        private final int expectedModCount;
+        private final boolean exact;
+
+        // С истечением size учитывает еще не удаленные истекшие записи, поэтому размер – только оценка.
+        HashSpliterator(int type) {
+            this(0, capacity, size, type, deadlines == null);
+        }
+
+        private HashSpliterator(int index, int fence, long estimate, int type, boolean exact) {
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.type = type;
+            this.exact = exact;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (index >= mid) {
+                return null;
+            }
+            estimate >>>= 1;
+            HashSpliterator<T> prefix = new HashSpliterator<>(index, mid, estimate, type, false);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            while (index < fence) {
+                int i = index++;
+                if (visible(i)) {
+                    action.accept(element(i));
+                    checkForComodification();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            Object[] keys = HashTable.this.keys;
+            Object[] vals = HashTable.this.vals;
+            int fence = this.fence;
+            for (int i = index; i < fence && modCount == expectedModCount; i++) {
+                Object key = keys[i];
+                if (key != null && key != TOMBSTONE && (deadlines == null || !expired(i))) {
+                    action.accept(type == KEYS ? (T) key : (type == VALUES ? (T) vals[i] : (T) new EntryView(i)));
+                }
+            }
+            index = fence;
+            checkForComodification();
+        }
+
+        @SuppressWarnings("unchecked")
+        private T element(int i) {
+            return type == KEYS ? (T) keys[i] : (type == VALUES ? (T) vals[i] : (T) new EntryView(i));
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = Spliterator.NONNULL | (exact ? Spliterator.SIZED : 0);
+            return type == VALUES ? characteristics : characteristics | Spliterator.DISTINCT;
         }
     }
 
-    // Запись списка коллизий хэш-таблицы.
-    private static class Cell<K, V> implements Map.Entry<K, V> {
+    // Создает разделяемый обход для представления заданного типа.
+    private <T> Spliterator<T> getSpliterator(int type) {
+        finishResize();
+        return new HashSpliterator<T>(type);
+    }
+
+    // Получение ключа из ячейки.
+    @SuppressWarnings("unchecked")
+    private K keyAt(int index) {
+        return (K) keys[index];
+    }
+
+    // Получение значения из ячейки.
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) vals[index];
+    }
+
+    /* Легковесное представление записи, лежащей в ячейке index.
+     * Чтение и запись значения идут прямо в массив vals; если запись с тех пор переместилась
+     * (перехеширование, compact), ячейка находится заново по ключу.
+     */
+    private final class EntryView implements Map.Entry<K, V> {
 
-        private K key;
+        private final K key;
+        private final int index;
+        // Последнее известное значение, возвращается, если запись уже удалена.
         private V value;
 
-        public Cell(K key, V value) {
-            this.key = key;
-            this.value = value;
+        EntryView(int index) {
+            this.index = index;
+            this.key = keyAt(index);
+            this.value = valueAt(index);
+        }
+
+        // Индекс записи для чтения по правилам lookup или -1, если ее нет или ее срок прошел.
+        private int find() {
+            if (index < capacity && keys[index] == key) {
+                return deadlines != null && expired(index) ? -1 : index;
+            }
+            return lookup(key);
+        }
+
+        // Индекс ячейки, в которой сейчас лежит запись, или -1, если ее нет или ее срок прошел.
+        private int slot() {
+            int slot = index < capacity && keys[index] == key ? index : HashTable.this.contains(key);
+            if (slot >= 0 && deadlines != null && expired(slot)) {
+                // Истекшая запись считается удаленной: setValue не должен продлевать ее.
+                return -1;
+            }
+            return slot;
         }
 
         // Получение ключа.
@@ -715,37 +2846,46 @@ public class HashTable<K, V> implements Map<K, V> {
         // Получение значения
         @Override
         public V getValue() {
+            int slot = find();
+            if (slot != -1) {
+                value = foundValue(slot);
+            }
             return value;
         }
 
-        // Установка значения.
+        // Установка значения, возвращает предыдущее значение.
         @Override
         public V setValue(V value) {
+            Objects.requireNonNull(value);
+            V oldValue = getValue();
+            int slot = slot();
+            if (slot >= 0) {
+                replaceValue(slot, value);
+            }
             this.value = value;
-            return value;
+            return oldValue;
         }
 
-        // Проверка на содержание.
+        // Проверка на равенство по определению Map.Entry.
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            Cell<?, ?> cell = (Cell<?, ?>) o;
-            return Objects.equals(key, cell.key) &&
-                    Objects.equals(value, cell.value);
+            if (!(o instanceof Map.Entry)) return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return key.equals(entry.getKey()) && getValue().equals(entry.getValue());
         }
 
-        // Возвращение хэш-значения.
+        // Возвращение хэш-значения по определению Map.Entry.
         @Override
         public int hashCode() {
-            return Objects.hash(key, value);
+            return key.hashCode() ^ getValue().hashCode();
         }
 
         // Преобразование в строку.
         @Override
         public String toString() {
             return key +
-                    "=" + value;
+                    "=" + getValue();
         }
     }
 
@@ -0,0 +1,57 @@
+package org.example;
+
+/* Управляющий интерфейс JMX для HashTable (регистрируется через HashTableMonitor.register).
+ * Атрибуты повторяют HashTableStats; гистограммы и счетчики заполняются, пока включен StatisticsEnabled.
+ */
+public interface HashTableMXBean {
+
+    boolean isStatisticsEnabled();
+
+    void setStatisticsEnabled(boolean enabled);
+
+    void resetStatistics();
+
+    int getSize();
+
+    int getCapacity();
+
+    int getTombstones();
+
+    double getTombstoneRatio();
+
+    float getLoadFactor();
+
+    double getEffectiveLoadFactor();
+
+    int getMaxProbe();
+
+    long[] getHitProbeHistogram();
+
+    long[] getMissProbeHistogram();
+
+    long[] getInsertProbeHistogram();
+
+    double getMeanHitProbe();
+
+    double getMeanMissProbe();
+
+    double getMeanInsertProbe();
+
+    // 99-й процентиль длины пробы успешного поиска и промаха.
+    int getHitProbeP99();
+
+    int getMissProbeP99();
+
+    long getRehashCount();
+
+    long getRehashNanos();
+
+    long getMaxRehashNanos();
+
+    long getRehashBytesCopied();
+
+    long getCompactionCount();
+
+    long getCompactionNanos();
+
+}
@@ -0,0 +1,173 @@
+package org.example;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+
+/* MBean HashTable в платформенном MBeanServer с именем org.example:type=HashTable,name=<name>.
+ * Каждое чтение атрибута берет новый снимок HashTable.stats(). Таблица не синхронизирована,
+ * поэтому снимок читается без блокировок и при одновременных изменениях может быть слегка неточным.
+ */
+public final class HashTableMonitor implements HashTableMXBean {
+
+    private final HashTable<?, ?> table;
+    private final ObjectName name;
+
+    private HashTableMonitor(HashTable<?, ?> table, ObjectName name) {
+        this.table = table;
+        this.name = name;
+    }
+
+    /* Включает статистику таблицы и регистрирует для нее MBean.
+     * Бросает:
+     * Исключение IllegalArgumentException – если имя недопустимо или уже зарегистрировано.
+     */
+    public static HashTableMonitor register(HashTable<?, ?> table, String name) {
+        try {
+            ObjectName objectName = new ObjectName("org.example:type=HashTable,name=" + ObjectName.quote(name));
+            HashTableMonitor monitor = new HashTableMonitor(table, objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, objectName);
+            table.setStatisticsEnabled(true);
+            return monitor;
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException e) {
+            throw new IllegalArgumentException("Cannot register HashTable MBean " + name, e);
+        } catch (MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Снимает MBean с регистрации; статистика таблицы остается включенной.
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (InstanceNotFoundException e) {
+            // Уже снят.
+        } catch (MBeanRegistrationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return name;
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        return table.isStatisticsEnabled();
+    }
+
+    @Override
+    public void setStatisticsEnabled(boolean enabled) {
+        table.setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public void resetStatistics() {
+        table.resetStatistics();
+    }
+
+    @Override
+    public int getSize() {
+        return table.stats().getSize();
+    }
+
+    @Override
+    public int getCapacity() {
+        return table.stats().getCapacity();
+    }
+
+    @Override
+    public int getTombstones() {
+        return table.stats().getTombstones();
+    }
+
+    @Override
+    public double getTombstoneRatio() {
+        return table.stats().getTombstoneRatio();
+    }
+
+    @Override
+    public float getLoadFactor() {
+        return table.stats().getLoadFactor();
+    }
+
+    @Override
+    public double getEffectiveLoadFactor() {
+        return table.stats().getEffectiveLoadFactor();
+    }
+
+    @Override
+    public int getMaxProbe() {
+        return table.stats().getMaxProbe();
+    }
+
+    @Override
+    public long[] getHitProbeHistogram() {
+        return table.stats().getHitProbeHistogram();
+    }
+
+    @Override
+    public long[] getMissProbeHistogram() {
+        return table.stats().getMissProbeHistogram();
+    }
+
+    @Override
+    public long[] getInsertProbeHistogram() {
+        return table.stats().getInsertProbeHistogram();
+    }
+
+    @Override
+    public double getMeanHitProbe() {
+        return table.stats().getMeanHitProbe();
+    }
+
+    @Override
+    public double getMeanMissProbe() {
+        return table.stats().getMeanMissProbe();
+    }
+
+    @Override
+    public double getMeanInsertProbe() {
+        return table.stats().getMeanInsertProbe();
+    }
+
+    @Override
+    public int getHitProbeP99() {
+        return table.stats().getHitProbePercentile(0.99);
+    }
+
+    @Override
+    public int getMissProbeP99() {
+        return table.stats().getMissProbePercentile(0.99);
+    }
+
+    @Override
+    public long getRehashCount() {
+        return table.stats().getRehashCount();
+    }
+
+    @Override
+    public long getRehashNanos() {
+        return table.stats().getRehashNanos();
+    }
+
+    @Override
+    public long getMaxRehashNanos() {
+        return table.stats().getMaxRehashNanos();
+    }
+
+    @Override
+    public long getRehashBytesCopied() {
+        return table.stats().getRehashBytesCopied();
+    }
+
+    @Override
+    public long getCompactionCount() {
+        return table.stats().getCompactionCount();
+    }
+
+    @Override
+    public long getCompactionNanos() {
+        return table.stats().getCompactionNanos();
+    }
+
+}
@@ -0,0 +1,218 @@
+package org.example;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/* Наблюдаемый список строк HashTable для TableView: одна строка на живую запись
+ * (ключ, значение, индекс ячейки, расстояние от начала последовательности проб).
+ * Строки не хранятся: список держит только плотные массивы соответствия строка -> ячейка и ячейка -> строка,
+ * а объект строки создается при обращении, то есть только для видимых в TableView строк.
+ * Вставка добавляет строку в конец, удаление переносит последнюю строку на место удаленной,
+ * поэтому каждое изменение таблицы обновляет список за O(1). Перехеширование и compact переставляют
+ * записи между ячейками: строки сохраняют порядок, меняются только их ячейки (O(n) на перехеширование).
+ * Список и таблицу можно использовать только из потока JavaFX.
+ */
+public class HashTableRows<K, V> extends ObservableListBase<HashTableRows.Row<K, V>> {
+
+    // Строка таблицы: запись и ее положение в массиве ячеек.
+    public static final class Row<K, V> {
+        private final K key;
+        private final V value;
+        private final int slot;
+        private final int probeDistance;
+
+        Row(K key, V value, int slot, int probeDistance) {
+            this.key = key;
+            this.value = value;
+            this.slot = slot;
+            this.probeDistance = probeDistance;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        // Индекс ячейки записи в массиве таблицы.
+        public int getSlot() {
+            return slot;
+        }
+
+        // Количество проб до ячейки записи: 0 – запись лежит в первой ячейке своей последовательности.
+        public int getProbeDistance() {
+            return probeDistance;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value + " @" + slot + " (+" + probeDistance + ")";
+        }
+    }
+
+    private final HashTable<K, V> table;
+    private final Listener listener = new Listener();
+    private int size;
+    private int[] rowToSlot;
+    private int[] slotToRow;
+    // Соответствие ячейка -> строка для массива после перестановки, пока она идет.
+    private int[] relocatedSlotToRow;
+
+    // Подключает список к таблице. У таблицы может быть только один такой список.
+    public HashTableRows(HashTable<K, V> table) {
+        this.table = table;
+        table.setSlotListener(listener);
+        load();
+    }
+
+    // Отключает список от таблицы; после этого список больше не меняется.
+    public void detach() {
+        table.setSlotListener(null);
+    }
+
+    // Возвращает таблицу, над которой построен список.
+    public HashTable<K, V> getTable() {
+        return table;
+    }
+
+    /* Выполняет действие над таблицей, объединяя все его изменения в одно событие списка.
+     * Пакетная вставка тысяч записей так перерисовывает TableView один раз, а не на каждой записи.
+     */
+    public void batch(Runnable action) {
+        beginChange();
+        try {
+            action.run();
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public Row<K, V> get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return row(rowToSlot[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Возвращает номер строки записи в ячейке или -1, если ячейка не занята.
+    public int rowOfSlot(int slot) {
+        int row = slot < slotToRow.length ? slotToRow[slot] : -1;
+        return row >= 0 && row < size && rowToSlot[row] == slot ? row : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Row<K, V> row(int slot) {
+        return new Row<>((K) table.keySlots()[slot], (V) table.valueSlots()[slot], slot, table.probeDistance(slot));
+    }
+
+    // Заполняет массивы соответствия по текущим ячейкам таблицы в порядке ячеек.
+    private void load() {
+        Object[] keys = table.keySlots();
+        Object tombstone = HashTable.tombstone();
+        slotToRow = new int[keys.length];
+        rowToSlot = new int[Math.max(16, table.size())];
+        size = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null && keys[slot] != tombstone) {
+                slotToRow[slot] = size;
+                rowToSlot[size++] = slot;
+            }
+        }
+    }
+
+    private final class Listener implements SlotListener {
+        @Override
+        public void inserted(int slot) {
+            if (size == rowToSlot.length) {
+                rowToSlot = Arrays.copyOf(rowToSlot, size * 2);
+            }
+            int row = size++;
+            rowToSlot[row] = slot;
+            slotToRow[slot] = row;
+            beginChange();
+            nextAdd(row, row + 1);
+            endChange();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void removed(int slot, Object key, Object value) {
+            int row = slotToRow[slot];
+            int last = size - 1;
+            Row<K, V> removed = new Row<>((K) key, (V) value, slot, table.probeDistance(slot));
+            beginChange();
+            if (row != last) {
+                // Последняя строка переезжает на место удаленной.
+                int lastSlot = rowToSlot[last];
+                Row<K, V> moved = row(lastSlot);
+                rowToSlot[row] = lastSlot;
+                slotToRow[lastSlot] = row;
+                size--;
+                nextSet(row, removed);
+                nextRemove(last, moved);
+            } else {
+                size--;
+                nextRemove(row, removed);
+            }
+            endChange();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void updated(int slot, Object oldValue) {
+            int row = slotToRow[slot];
+            beginChange();
+            nextSet(row, new Row<>((K) table.keySlots()[slot], (V) oldValue, slot, table.probeDistance(slot)));
+            endChange();
+        }
+
+        @Override
+        public void relocating(int capacity) {
+            relocatedSlotToRow = new int[capacity];
+        }
+
+        @Override
+        public void moved(int from, int to) {
+            int row = slotToRow[from];
+            relocatedSlotToRow[to] = row;
+            rowToSlot[row] = to;
+        }
+
+        @Override
+        public void relocated() {
+            slotToRow = relocatedSlotToRow;
+            relocatedSlotToRow = null;
+            // Порядок строк не изменился, изменились ячейки и расстояния проб.
+            beginChange();
+            for (int row = 0; row < size; row++) {
+                nextUpdate(row);
+            }
+            endChange();
+        }
+
+        @Override
+        public void reloaded() {
+            int removed = size;
+            load();
+            beginChange();
+            if (removed > 0) {
+                nextRemove(0, Collections.nCopies(removed, null));
+            }
+            if (size > 0) {
+                nextAdd(0, size);
+            }
+            endChange();
+        }
+    }
+
+}
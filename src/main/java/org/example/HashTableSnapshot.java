@@ -0,0 +1,343 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/* Двоичный снимок HashTable в файле.
+ * Запись выполняется за один последовательный проход по ячейкам таблицы, чтение отображает файл в память
+ * (FileChannel.map) и раскладывает записи по тем же индексам ячеек, без перехеширования:
+ * сохраняются сами ячейки, удаленные ячейки и хэш-значения ключей.
+ *
+ * Формат (порядок байт big-endian):
+ * заголовок, 64 байта: MAGIC, VERSION, flags, capacity, size, tombstones, maxProbe, loadFactor,
+ * идентификаторы hashStrategy и probeStrategy, начало и длина области данных (long);
+ * область ячеек, capacity * 16 байт: смещение записи в области данных (long; FREE или TOMBSTONE),
+ * хэш-значение ключа (int), длина ключа (int);
+ * область данных: для каждой записи байты ключа, длина значения (int, -1 для null) и байты значения.
+ *
+ * Каждая из двух областей отображается одним буфером, поэтому ограничена 2 ГБ
+ * (емкость не больше 2^27 ячеек, суммарный размер ключей и значений меньше 2 ГБ).
+ */
+public final class HashTableSnapshot {
+
+    static final int MAGIC = 0x44485453; // "DHTS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int SLOT_BYTES = 16;
+
+    // Флаг: ключи – строки в UTF-8 (SnapshotCodec.STRING), снимок можно открыть как MappedStringTable.
+    static final int FLAG_UTF8_KEYS = 1;
+
+    // Смещения записей для свободной и удаленной ячеек.
+    static final long FREE = -1;
+    static final long TOMBSTONE = -2;
+
+    // Идентификатор стратегии, которой нет среди встроенных.
+    static final int CUSTOM = -1;
+
+    // Количество ячеек, накапливаемых в буфере перед записью в файл, и начальный размер буфера данных.
+    private static final int SLOT_CHUNK = 4096;
+    private static final int DATA_CHUNK = 1 << 20;
+
+    private HashTableSnapshot() {
+    }
+
+    /* Записывает таблицу в файл (существующий файл заменяется).
+     * Снимок пишется во временный файл рядом (имя файла + ".tmp"), сбрасывается на диск
+     * и атомарно переименовывается: при сбое по пути path остается прежний файл, а не оборванный снимок.
+     * Сроки записей не сохраняются: истекшие записи пишутся как удаленные ячейки, остальные при чтении бессрочные.
+     * Одновременная запись двух снимков по одному пути не поддерживается.
+     * Бросает:
+     * Исключение IllegalArgumentException – если область ячеек или данных не помещается в 2 ГБ.
+     */
+    public static <K, V> void write(HashTable<K, V> table, Path path,
+                                    SnapshotCodec<? super K> keyCodec, SnapshotCodec<? super V> valueCodec) throws IOException {
+        Objects.requireNonNull(keyCodec);
+        Objects.requireNonNull(valueCodec);
+        Object[] keys = table.keySlots();
+        Object[] vals = table.valueSlots();
+        int[] hashes = table.hashSlots();
+        int capacity = keys.length;
+        if ((long) capacity * SLOT_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity too large for a snapshot: " + capacity);
+        }
+        long dataOffset = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+        Object tombstone = HashTable.tombstone();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        boolean moved = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer slots = ByteBuffer.allocate(SLOT_CHUNK * SLOT_BYTES);
+                ByteBuffer data = ByteBuffer.allocate(DATA_CHUNK);
+                long dataLength = 0;
+                long slotPosition = HEADER_BYTES;
+                int expired = 0;
+
+                for (int i = 0; i < capacity; i++) {
+                    Object key = keys[i];
+                    if (key == null) {
+                        slots.putLong(FREE).putInt(0).putInt(0);
+                    } else if (key == tombstone) {
+                        slots.putLong(TOMBSTONE).putInt(0).putInt(0);
+                    } else if (table.isExpired(i)) {
+                        slots.putLong(TOMBSTONE).putInt(0).putInt(0);
+                        expired++;
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        byte[] keyBytes = keyCodec.encode((K) key);
+                        @SuppressWarnings("unchecked")
+                        V value = (V) vals[i];
+                        byte[] valueBytes = value == null ? null : valueCodec.encode(value);
+                        int recordBytes = keyBytes.length + Integer.BYTES + (valueBytes == null ? 0 : valueBytes.length);
+                        long recordOffset = dataLength + data.position();
+                        if (recordOffset + recordBytes > Integer.MAX_VALUE) {
+                            throw new IllegalArgumentException("Snapshot data exceeds 2 GB");
+                        }
+                        if (data.remaining() < recordBytes) {
+                            dataLength += flush(channel, data, dataOffset + dataLength);
+                            if (data.capacity() < recordBytes) {
+                                data = ByteBuffer.allocate(recordBytes);
+                            }
+                        }
+                        data.put(keyBytes);
+                        if (valueBytes == null) {
+                            data.putInt(-1);
+                        } else {
+                            data.putInt(valueBytes.length).put(valueBytes);
+                        }
+                        slots.putLong(recordOffset).putInt(hashes[i]).putInt(keyBytes.length);
+                    }
+                    if (!slots.hasRemaining()) {
+                        slotPosition += flush(channel, slots, slotPosition);
+                    }
+                }
+                flush(channel, slots, slotPosition);
+                dataLength += flush(channel, data, dataOffset + dataLength);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putInt(keyCodec == SnapshotCodec.STRING ? FLAG_UTF8_KEYS : 0)
+                        .putInt(capacity)
+                        .putInt(table.size() - expired)
+                        .putInt(table.tombstones() + expired)
+                        .putInt(table.maxProbe())
+                        .putFloat(table.getLoadFactor())
+                        .putInt(hashStrategyId(table.getHashStrategy()))
+                        .putInt(probeStrategyId(table.getProbeStrategy()))
+                        .putLong(dataOffset)
+                        .putLong(dataLength);
+                header.position(HEADER_BYTES);
+                flush(channel, header, 0);
+                channel.force(true);
+            }
+            // Файл закрыт до переименования: на Windows открытый файл переместить нельзя.
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    /* Загружает таблицу из снимка со встроенными стратегиями хеширования и проб.
+     * Бросает:
+     * Исключение IOException – если файл не является снимком или снимок записан с пользовательской стратегией.
+     */
+    public static <K, V> HashTable<K, V> read(Path path, SnapshotCodec<? extends K> keyCodec,
+                                              SnapshotCodec<? extends V> valueCodec) throws IOException {
+        return read(path, keyCodec, valueCodec, null, null);
+    }
+
+    /* Загружает таблицу из снимка. Для снимка с пользовательской стратегией нужно передать ту же стратегию,
+     * что была у записанной таблицы; null означает встроенную стратегию, записанную в снимке.
+     * Кодеки должны копировать байты, а не сохранять ссылки на переданный буфер: отображение файла
+     * отпускается после чтения и снимается сборщиком мусора.
+     * Бросает:
+     * Исключение IOException – если файл не является снимком или стратегии не указаны.
+     * Исключение IllegalArgumentException – если стратегия не совпадает со встроенной стратегией снимка.
+     */
+    public static <K, V> HashTable<K, V> read(Path path, SnapshotCodec<? extends K> keyCodec,
+                                              SnapshotCodec<? extends V> valueCodec,
+                                              HashStrategy hashStrategy, ProbeStrategy probeStrategy) throws IOException {
+        Objects.requireNonNull(keyCodec);
+        Objects.requireNonNull(valueCodec);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = Header.read(channel, path);
+            hashStrategy = resolve(hashStrategy, hashStrategyFor(header.hashStrategyId), path);
+            probeStrategy = resolve(probeStrategy, probeStrategyFor(header.probeStrategyId), path);
+            if (probeStrategy.tableSizeFor(header.capacity) != header.capacity) {
+                throw new IOException("Snapshot capacity " + header.capacity + " does not match " + probeStrategy);
+            }
+
+            MappedByteBuffer slots = header.mapSlots(channel);
+            MappedByteBuffer data = header.mapData(channel);
+            int capacity = header.capacity;
+            Object[] keys = new Object[capacity];
+            Object[] vals = new Object[capacity];
+            int[] hashes = new int[capacity];
+            Object tombstone = HashTable.tombstone();
+            for (int i = 0; i < capacity; i++) {
+                int slot = i * SLOT_BYTES;
+                long offset = slots.getLong(slot);
+                if (offset == FREE) {
+                    continue;
+                }
+                if (offset == TOMBSTONE) {
+                    keys[i] = tombstone;
+                    continue;
+                }
+                int keyOffset = (int) offset;
+                int keyLength = slots.getInt(slot + 12);
+                int valueLength = data.getInt(keyOffset + keyLength);
+                keys[i] = keyCodec.decode(data, keyOffset, keyLength);
+                vals[i] = valueLength < 0 ? null
+                        : valueCodec.decode(data, keyOffset + keyLength + Integer.BYTES, valueLength);
+                hashes[i] = slots.getInt(slot + 8);
+            }
+            HashTable<K, V> table = new HashTable<>(0, header.loadFactor, hashStrategy, probeStrategy);
+            table.restore(keys, vals, hashes, header.size, header.tombstones, header.maxProbe);
+            return table;
+        }
+    }
+
+    // Записывает буфер целиком начиная с заданной позиции файла и очищает его; возвращает число байт.
+    private static int flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return bytes;
+    }
+
+    private static <T> T resolve(T given, T stored, Path path) throws IOException {
+        if (stored == null) {
+            if (given == null) {
+                throw new IOException("Snapshot uses a custom strategy, pass it explicitly: " + path);
+            }
+            return given;
+        }
+        if (given != null && given != stored) {
+            throw new IllegalArgumentException("Snapshot was written with " + stored + ", not " + given);
+        }
+        return stored;
+    }
+
+    static int hashStrategyId(HashStrategy strategy) {
+        if (strategy == HashStrategy.IDENTITY) {
+            return 0;
+        }
+        if (strategy == HashStrategy.MURMUR3) {
+            return 1;
+        }
+        if (strategy == HashStrategy.XXHASH) {
+            return 2;
+        }
+        return CUSTOM;
+    }
+
+    static HashStrategy hashStrategyFor(int id) {
+        switch (id) {
+            case 0:
+                return HashStrategy.IDENTITY;
+            case 1:
+                return HashStrategy.MURMUR3;
+            case 2:
+                return HashStrategy.XXHASH;
+            default:
+                return null;
+        }
+    }
+
+    static int probeStrategyId(ProbeStrategy strategy) {
+        if (strategy == ProbeStrategy.PRIME) {
+            return 0;
+        }
+        if (strategy == ProbeStrategy.POWER_OF_TWO) {
+            return 1;
+        }
+        return CUSTOM;
+    }
+
+    static ProbeStrategy probeStrategyFor(int id) {
+        switch (id) {
+            case 0:
+                return ProbeStrategy.PRIME;
+            case 1:
+                return ProbeStrategy.POWER_OF_TWO;
+            default:
+                return null;
+        }
+    }
+
+    // Прочитанный заголовок снимка.
+    static final class Header {
+        int flags;
+        int capacity;
+        int size;
+        int tombstones;
+        int maxProbe;
+        float loadFactor;
+        int hashStrategyId;
+        int probeStrategyId;
+        long dataOffset;
+        long dataLength;
+
+        // Читает и проверяет заголовок.
+        static Header read(FileChannel channel, Path path) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    throw new IOException("Truncated snapshot: " + path);
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a HashTable snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            Header header = new Header();
+            header.flags = buffer.getInt();
+            header.capacity = buffer.getInt();
+            header.size = buffer.getInt();
+            header.tombstones = buffer.getInt();
+            header.maxProbe = buffer.getInt();
+            header.loadFactor = buffer.getFloat();
+            header.hashStrategyId = buffer.getInt();
+            header.probeStrategyId = buffer.getInt();
+            header.dataOffset = buffer.getLong();
+            header.dataLength = buffer.getLong();
+            if (header.capacity <= 0 || (long) header.capacity * SLOT_BYTES > Integer.MAX_VALUE
+                    || header.dataOffset != HEADER_BYTES + (long) header.capacity * SLOT_BYTES
+                    || header.dataLength < 0 || header.dataLength > Integer.MAX_VALUE
+                    || header.dataOffset + header.dataLength > channel.size()) {
+                throw new IOException("Corrupted snapshot header: " + path);
+            }
+            return header;
+        }
+
+        MappedByteBuffer mapSlots(FileChannel channel) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) capacity * SLOT_BYTES);
+        }
+
+        MappedByteBuffer mapData(FileChannel channel) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, dataLength);
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+package org.example;
+
+import java.util.Arrays;
+
+/* Неизменяемый снимок состояния и статистики HashTable (HashTable.stats()).
+ * Размер, емкость, удаленные ячейки и maxProbe доступны всегда; гистограммы проб и счетчики перехеширования
+ * заполняются, только пока статистика включена (HashTable.setStatisticsEnabled), иначе они нулевые.
+ * Длина пробы – количество ячеек, просмотренных до нужной, минус один: 0 означает первую ячейку последовательности.
+ */
+public final class HashTableStats {
+
+    private final int size;
+    private final int capacity;
+    private final int tombstones;
+    private final float loadFactor;
+    private final int maxProbe;
+    private final boolean enabled;
+    private final long[] hitProbes;
+    private final long[] missProbes;
+    private final long[] insertProbes;
+    private final long rehashCount;
+    private final long rehashNanos;
+    private final long maxRehashNanos;
+    private final long rehashBytes;
+    private final long compactionCount;
+    private final long compactionNanos;
+
+    HashTableStats(int size, int capacity, int tombstones, float loadFactor, int maxProbe, StatsRecorder recorder) {
+        this.size = size;
+        this.capacity = capacity;
+        this.tombstones = tombstones;
+        this.loadFactor = loadFactor;
+        this.maxProbe = maxProbe;
+        this.enabled = recorder != null;
+        if (recorder == null) {
+            recorder = new StatsRecorder();
+        }
+        hitProbes = recorder.hits.clone();
+        missProbes = recorder.misses.clone();
+        insertProbes = recorder.inserts.clone();
+        rehashCount = recorder.rehashCount;
+        rehashNanos = recorder.rehashNanos;
+        maxRehashNanos = recorder.maxRehashNanos;
+        rehashBytes = recorder.rehashBytes;
+        compactionCount = recorder.compactionCount;
+        compactionNanos = recorder.compactionNanos;
+    }
+
+    // Проверяет, была ли статистика включена в момент снимка.
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Возвращает количество удаленных ячеек, которые еще занимают место в массиве.
+    public int getTombstones() {
+        return tombstones;
+    }
+
+    // Возвращает долю емкости, занятую удаленными ячейками.
+    public double getTombstoneRatio() {
+        return capacity == 0 ? 0 : (double) tombstones / capacity;
+    }
+
+    // Возвращает заданный коэффициент загрузки.
+    public float getLoadFactor() {
+        return loadFactor;
+    }
+
+    /* Возвращает фактическую заполненность массива: живые и удаленные ячейки на одну ячейку емкости.
+     * Именно она определяет длину проб, поскольку удаленные ячейки не прерывают поиск.
+     */
+    public double getEffectiveLoadFactor() {
+        return capacity == 0 ? 0 : (double) (size + tombstones) / capacity;
+    }
+
+    // Возвращает наибольшую длину пробы среди вставок в текущий массив (самую длинную цепочку).
+    public int getMaxProbe() {
+        return maxProbe;
+    }
+
+    // Гистограммы длин проб успешных поисков, промахов и вставок; последний элемент – все более длинные пробы.
+    public long[] getHitProbeHistogram() {
+        return hitProbes.clone();
+    }
+
+    public long[] getMissProbeHistogram() {
+        return missProbes.clone();
+    }
+
+    public long[] getInsertProbeHistogram() {
+        return insertProbes.clone();
+    }
+
+    public double getMeanHitProbe() {
+        return mean(hitProbes);
+    }
+
+    public double getMeanMissProbe() {
+        return mean(missProbes);
+    }
+
+    public double getMeanInsertProbe() {
+        return mean(insertProbes);
+    }
+
+    // Возвращает наименьшую длину пробы, которую не превышает доля quantile успешных поисков.
+    public int getHitProbePercentile(double quantile) {
+        return percentile(hitProbes, quantile);
+    }
+
+    public int getMissProbePercentile(double quantile) {
+        return percentile(missProbes, quantile);
+    }
+
+    public int getInsertProbePercentile(double quantile) {
+        return percentile(insertProbes, quantile);
+    }
+
+    // Возвращает количество перехеширований в массив другой емкости.
+    public long getRehashCount() {
+        return rehashCount;
+    }
+
+    // Возвращает суммарное время перехеширований (для постепенного переноса – всех его порций), нс.
+    public long getRehashNanos() {
+        return rehashNanos;
+    }
+
+    // Возвращает самое долгое перехеширование или порцию постепенного переноса, нс.
+    public long getMaxRehashNanos() {
+        return maxRehashNanos;
+    }
+
+    // Возвращает оценку скопированных при перехешировании байт: ссылки на ключ и значение и хэш-значение на запись.
+    public long getRehashBytesCopied() {
+        return rehashBytes;
+    }
+
+    // Возвращает количество вычисток удаленных ячеек (compact) и их суммарное время, нс.
+    public long getCompactionCount() {
+        return compactionCount;
+    }
+
+    public long getCompactionNanos() {
+        return compactionNanos;
+    }
+
+    private static double mean(long[] histogram) {
+        long count = 0;
+        long total = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            count += histogram[i];
+            total += histogram[i] * i;
+        }
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    private static int percentile(long[] histogram, double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Illegal quantile: " + quantile);
+        }
+        long count = 0;
+        for (long c : histogram) {
+            count += c;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "HashTableStats{size=" + size +
+                ", capacity=" + capacity +
+                ", tombstones=" + tombstones +
+                ", effectiveLoadFactor=" + String.format("%.3f", getEffectiveLoadFactor()) +
+                ", maxProbe=" + maxProbe +
+                ", meanHitProbe=" + String.format("%.3f", getMeanHitProbe()) +
+                ", meanMissProbe=" + String.format("%.3f", getMeanMissProbe()) +
+                ", meanInsertProbe=" + String.format("%.3f", getMeanInsertProbe()) +
+                ", rehashCount=" + rehashCount +
+                ", rehashNanos=" + rehashNanos +
+                ", rehashBytesCopied=" + rehashBytes +
+                ", compactionCount=" + compactionCount +
+                ", hitProbes=" + Arrays.toString(trim(hitProbes)) +
+                '}';
+    }
+
+    // Гистограмма без нулевого хвоста.
+    private static long[] trim(long[] histogram) {
+        int length = histogram.length;
+        while (length > 0 && histogram[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(histogram, length);
+    }
+
+}
@@ -0,0 +1,281 @@
+package org.example;
+
+import java.util.Arrays;
+
+/* Хэш-таблица с двойным хешированием для ключей и значений типа int без упаковки.
+ * Использует ту же последовательность проб, что и HashTable.
+ * Ключи и значения хранятся в двух массивах int, свободная и удаленная ячейки отмечаются
+ * ключами-маркерами FREE_KEY и REMOVED_KEY. Сами эти ключи хранятся отдельно от массивов.
+ * Операции get, put, remove и addTo ничего не выделяют в куче, кроме роста таблицы.
+ */
+public class IntIntDoubleHashTable {
+
+    private static final int FREE_KEY = 0;
+    private static final int REMOVED_KEY = Integer.MIN_VALUE;
+
+    private int size = 0;
+    private int capacity;
+    private final float loadFactor;
+    private int[] keys;
+    private int[] vals;
+    private int maxProbe = 0;
+    private int tombstones = 0;
+
+    // Значения для ключей, совпадающих с маркерами.
+    private boolean hasFreeKey;
+    private int freeKeyValue;
+    private boolean hasRemovedKey;
+    private int removedKeyValue;
+
+    /* Создает новую пустую хэш-таблицу с заданной начальной емкостью и заданным коэффициентом загрузки.
+     * Бросает:
+     * Исключение IllegalArgumentException – если начальная емкость меньше нуля
+     * или если коэффициент загрузки не лежит в (0, 1).
+     */
+    public IntIntDoubleHashTable(int capacity, float loadFactor) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal Load: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.capacity = DoubleHashing.tableSizeFor(capacity);
+        keys = new int[this.capacity];
+        vals = new int[this.capacity];
+    }
+
+    // Создает новую пустую хэш-таблицу с заданной начальной емкостью и коэффициентом загрузки по умолчанию (0,75).
+    public IntIntDoubleHashTable(int capacity) {
+        this(capacity, 0.75f);
+    }
+
+    // Создает новую пустую хэш-таблицу с начальной емкостью по умолчанию (16) и коэффициентом загрузки (0,75).
+    public IntIntDoubleHashTable() {
+        this(16, 0.75f);
+    }
+
+    // Возвращает количество ключей в этой хэш-таблице.
+    public int size() {
+        return size;
+    }
+
+    // Проверяет, пуста ли хэш-таблица.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Проверяет, является ли указанное число ключом в этой хэш-таблице.
+    public boolean containsKey(int key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        if (key == REMOVED_KEY) {
+            return hasRemovedKey;
+        }
+        return find(key) >= 0;
+    }
+
+    // Возвращает значение, сопоставленное ключу, или 0, если сопоставления нет.
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    // Возвращает значение, сопоставленное ключу, или defaultValue, если сопоставления нет.
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        if (key == REMOVED_KEY) {
+            return hasRemovedKey ? removedKeyValue : defaultValue;
+        }
+        int index = find(key);
+        return index >= 0 ? vals[index] : defaultValue;
+    }
+
+    // Сопоставляет ключу значение и возвращает предыдущее значение или 0, если ключа не было.
+    public int put(int key, int value) {
+        if (key == FREE_KEY) {
+            int old = hasFreeKey ? freeKeyValue : 0;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return old;
+        }
+        if (key == REMOVED_KEY) {
+            int old = hasRemovedKey ? removedKeyValue : 0;
+            if (!hasRemovedKey) {
+                hasRemovedKey = true;
+                size++;
+            }
+            removedKeyValue = value;
+            return old;
+        }
+
+        int index = find(key);
+        if (index >= 0) {
+            int old = vals[index];
+            vals[index] = value;
+            return old;
+        }
+        insert(key, value);
+        return 0;
+    }
+
+    /* Прибавляет increment к значению ключа (отсутствующий ключ считается равным 0)
+     * и возвращает новое значение. Удобно для счетчиков: одна операция вместо get и put.
+     */
+    public int addTo(int key, int increment) {
+        if (key == FREE_KEY || key == REMOVED_KEY) {
+            int value = getOrDefault(key, 0) + increment;
+            put(key, value);
+            return value;
+        }
+        int index = find(key);
+        if (index >= 0) {
+            return vals[index] += increment;
+        }
+        insert(key, increment);
+        return increment;
+    }
+
+    // Удаляет ключ и возвращает его значение или 0, если ключа не было.
+    public int remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return 0;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeKeyValue;
+        }
+        if (key == REMOVED_KEY) {
+            if (!hasRemovedKey) {
+                return 0;
+            }
+            hasRemovedKey = false;
+            size--;
+            return removedKeyValue;
+        }
+
+        int index = find(key);
+        if (index < 0) {
+            return 0;
+        }
+        int old = vals[index];
+        keys[index] = REMOVED_KEY;
+        size--;
+        tombstones++;
+        return old;
+    }
+
+    // Очищает эту хэш-таблицу, чтобы она не содержала ключей.
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        size = 0;
+        maxProbe = 0;
+        tombstones = 0;
+        hasFreeKey = false;
+        hasRemovedKey = false;
+    }
+
+    // Выполняет действие для каждой пары ключ-значение.
+    public void forEach(EntryConsumer action) {
+        if (hasFreeKey) {
+            action.accept(FREE_KEY, freeKeyValue);
+        }
+        if (hasRemovedKey) {
+            action.accept(REMOVED_KEY, removedKeyValue);
+        }
+        for (int i = 0; i < capacity; i++) {
+            int key = keys[i];
+            if (key != FREE_KEY && key != REMOVED_KEY) {
+                action.accept(key, vals[i]);
+            }
+        }
+    }
+
+    // Действие над парой ключ-значение без упаковки.
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    // Поиск ключа: до первой свободной ячейки, но не дальше maxProbe проб.
+    private int find(int key) {
+        int index = DoubleHashing.start(key, capacity);
+        int step = DoubleHashing.step(key, capacity);
+        for (int n = 0; n <= maxProbe; n++, index = DoubleHashing.next(index, step, capacity)) {
+            int candidate = keys[index];
+            if (candidate == key) {
+                return index;
+            }
+            if (candidate == FREE_KEY) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // Вставка отсутствующего ключа; при необходимости таблица растет или очищается от удаленных ячеек.
+    private void insert(int key, int value) {
+        if (size + tombstones + 1 >= loadFactor * capacity) {
+            rehash(tombstones > size / 2 ? capacity : DoubleHashing.grow(capacity));
+        }
+        int index = findEmptyIndex(key);
+        keys[index] = key;
+        vals[index] = value;
+        size++;
+    }
+
+    // Возвращает первую свободную или удаленную ячейку последовательности ключа.
+    private int findEmptyIndex(int key) {
+        int index = DoubleHashing.start(key, capacity);
+        int step = DoubleHashing.step(key, capacity);
+        for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+            int candidate = keys[index];
+            if (candidate == FREE_KEY || candidate == REMOVED_KEY) {
+                if (candidate == REMOVED_KEY) {
+                    tombstones--;
+                }
+                maxProbe = Math.max(maxProbe, n);
+                return index;
+            }
+        }
+    }
+
+    // Переносит живые записи в новый массив заданной емкости, удаленные ячейки отбрасываются.
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldVals = vals;
+        capacity = newCapacity;
+        keys = new int[capacity];
+        vals = new int[capacity];
+        maxProbe = 0;
+        tombstones = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY && key != REMOVED_KEY) {
+                int index = findEmptyIndex(key);
+                keys[index] = key;
+                vals[index] = oldVals[i];
+            }
+        }
+    }
+
+    // Возвращает строковое представление пар ключ-значение.
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+}
@@ -0,0 +1,834 @@
+package org.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/* HashTable с журналом изменений (write-ahead log) в каталоге на диске.
+ * Каждое изменение дописывает в журнал компактную двоичную запись с результатом операции:
+ * PUT (ключ и новое значение), REMOVE (ключ) или CLEAR. Для compute и merge записывается итог, а не функция,
+ * поэтому восстановление не вызывает пользовательский код.
+ * Фоновый поток периодически сохраняет снимок таблицы (HashTableSnapshot) и удаляет журналы, вошедшие в него.
+ * При открытии таблица восстанавливается из последнего снимка и журналов после него.
+ *
+ * Файлы каталога: snapshot-N.dhts – снимок со всеми изменениями журналов с номерами меньше N,
+ * journal-N.log – журнал изменений после снимка N.
+ * Запись журнала: длина данных (int), CRC32 данных (int), данные: операция (byte), длина ключа (int), ключ,
+ * для PUT – длина значения (int) и значение. Оборванная запись в конце журнала (сбой во время записи)
+ * при восстановлении отбрасывается.
+ *
+ * Методы синхронизированы на самой таблице. Обход представлений (entrySet, keySet, values)
+ * нужно выполнять в блоке synchronized (table), как для Collections.synchronizedMap.
+ */
+public class JournaledHashTable<K, V> extends AbstractMap<K, V> implements Closeable {
+
+    // Когда записи журнала сбрасываются на диск (fsync).
+    public enum SyncMode {
+        // Операция возвращается после fsync своей записи. Одновременные операции разделяют один fsync (group commit).
+        ALWAYS,
+        // Операция возвращается сразу; fsync выполняется каждые batchSize записей и каждые syncInterval.
+        // При сбое теряются изменения не больше чем за syncInterval.
+        BATCH,
+        // Записи передаются ОС при заполнении буфера; fsync только при контрольной точке и закрытии.
+        NONE
+    }
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".dhts";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+
+    // Размер буфера записей, при котором он передается в файл без ожидания fsync.
+    private static final int BUFFER_BYTES = 1 << 20;
+    // Длина записи, больше которой запись при восстановлении считается поврежденной.
+    private static final int MAX_RECORD_BYTES = Integer.MAX_VALUE - 8;
+
+    private final HashTable<K, V> table;
+    private final Path directory;
+    private final SnapshotCodec<K> keyCodec;
+    private final SnapshotCodec<V> valueCodec;
+    private final SyncMode syncMode;
+    private final int batchSize;
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService background;
+
+    /* Порядок захвата блокировок: this, затем syncLock, затем bufferLock.
+     * this защищает таблицу, syncLock – файл журнала и буфер spare, bufferLock – буфер pending и счетчик записей.
+     * Сброс на диск не требует блокировки таблицы, поэтому изменения продолжаются во время fsync,
+     * а поток, который держит блокировку таблицы (обход представлений), тоже может сбросить журнал.
+     */
+    private final Object syncLock = new Object();
+    private final Object bufferLock = new Object();
+
+    // Записи, еще не переданные в файл, и второй буфер, который пишется в файл, пока заполняется первый.
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_BYTES);
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_BYTES);
+    // Номер последней добавленной записи, последней переданной в файл и последней сброшенной на диск.
+    private long appended;
+    private volatile long written;
+    private volatile long durable;
+
+    private FileChannel journal;
+    private long generation;
+    private volatile boolean closed;
+    // Ошибка фонового потока; после нее изменения таблицы бросают UncheckedIOException.
+    private volatile IOException failure;
+
+    private JournaledHashTable(Path directory, SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec,
+                               SyncMode syncMode, int batchSize, Duration syncInterval, Duration checkpointInterval)
+            throws IOException {
+        this.directory = directory;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.syncMode = syncMode;
+        this.batchSize = batchSize;
+        Files.createDirectories(directory);
+        table = recover();
+
+        background = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "journal " + directory);
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (syncMode == SyncMode.BATCH) {
+            long period = syncInterval.toNanos();
+            background.scheduleWithFixedDelay(() -> runInBackground(() -> flush(appendedCount(), true)),
+                    period, period, TimeUnit.NANOSECONDS);
+        }
+        if (!checkpointInterval.isZero()) {
+            long period = checkpointInterval.toNanos();
+            background.scheduleWithFixedDelay(() -> runInBackground(this::checkpoint),
+                    period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /* Открывает или создает журналируемую таблицу в каталоге.
+     * Параметры:
+     * directory – каталог снимков и журналов (создается при необходимости).
+     * syncMode – режим сброса журнала на диск.
+     * batchSize – число записей, после которого в режиме BATCH выполняется fsync.
+     * syncInterval – наибольший интервал между fsync в режиме BATCH.
+     * checkpointInterval – интервал фоновых контрольных точек; Duration.ZERO отключает их.
+     * Бросает:
+     * Исключение IllegalArgumentException – если batchSize неположителен или интервал отрицателен (syncInterval – неположителен).
+     */
+    public static <K, V> JournaledHashTable<K, V> open(Path directory, SnapshotCodec<K> keyCodec,
+                                                       SnapshotCodec<V> valueCodec, SyncMode syncMode,
+                                                       int batchSize, Duration syncInterval,
+                                                       Duration checkpointInterval) throws IOException {
+        Objects.requireNonNull(keyCodec);
+        Objects.requireNonNull(valueCodec);
+        Objects.requireNonNull(syncMode);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+        }
+        if (syncInterval.isNegative() || syncInterval.isZero()) {
+            throw new IllegalArgumentException("Illegal sync interval: " + syncInterval);
+        }
+        if (checkpointInterval.isNegative()) {
+            throw new IllegalArgumentException("Illegal checkpoint interval: " + checkpointInterval);
+        }
+        return new JournaledHashTable<>(directory, keyCodec, valueCodec, syncMode, batchSize,
+                syncInterval, checkpointInterval);
+    }
+
+    // Открывает таблицу с fsync каждые 1024 записи или 10 мс (для BATCH) и контрольной точкой раз в минуту.
+    public static <K, V> JournaledHashTable<K, V> open(Path directory, SnapshotCodec<K> keyCodec,
+                                                       SnapshotCodec<V> valueCodec, SyncMode syncMode) throws IOException {
+        return open(directory, keyCodec, valueCodec, syncMode, 1024, Duration.ofMillis(10), Duration.ofMinutes(1));
+    }
+
+    // Возвращает режим сброса журнала на диск.
+    public SyncMode getSyncMode() {
+        return syncMode;
+    }
+
+    @Override
+    public synchronized int size() {
+        return table.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return table.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return table.containsKey(key);
+    }
+
+    @Override
+    public synchronized boolean containsValue(Object value) {
+        return table.containsValue(value);
+    }
+
+    @Override
+    public synchronized V get(Object key) {
+        return table.get(key);
+    }
+
+    @Override
+    public synchronized V getOrDefault(Object key, V defaultValue) {
+        return table.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V old;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            old = table.put(key, value);
+            record = append(PUT, key, value);
+        }
+        commit(record);
+        return old;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            record = 0;
+            for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+                table.put(entry.getKey(), entry.getValue());
+                record = append(PUT, entry.getKey(), entry.getValue());
+            }
+        }
+        commit(record);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V old;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            old = table.putIfAbsent(key, value);
+            record = old == null ? append(PUT, key, value) : 0;
+        }
+        commit(record);
+        return old;
+    }
+
+    @Override
+    public V remove(Object key) {
+        V old;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            old = table.remove(key);
+            record = old != null ? appendRemove(key) : 0;
+        }
+        commit(record);
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        boolean removed;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            removed = table.remove(key, value);
+            record = removed ? appendRemove(key) : 0;
+        }
+        commit(record);
+        return removed;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        V old;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            old = table.replace(key, value);
+            record = old != null ? append(PUT, key, value) : 0;
+        }
+        commit(record);
+        return old;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        boolean replaced;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            replaced = table.replace(key, oldValue, newValue);
+            record = replaced ? append(PUT, key, newValue) : 0;
+        }
+        commit(record);
+        return replaced;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            int before = table.size();
+            value = table.computeIfAbsent(key, mappingFunction);
+            record = table.size() > before ? append(PUT, key, value) : 0;
+        }
+        commit(record);
+        return value;
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        V value;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            int before = table.size();
+            value = table.computeIfPresent(key, remappingFunction);
+            record = value != null || table.size() < before ? appendResult(key, value) : 0;
+        }
+        commit(record);
+        return value;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        V value;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            int before = table.size();
+            value = table.compute(key, remappingFunction);
+            record = value != null || table.size() < before ? appendResult(key, value) : 0;
+        }
+        commit(record);
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        V result;
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            result = table.merge(key, value, remappingFunction);
+            record = appendResult(key, result);
+        }
+        commit(record);
+        return result;
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            table.replaceAll((key, value) -> {
+                V result = function.apply(key, value);
+                append(PUT, key, result);
+                return result;
+            });
+            record = appendedCount();
+        }
+        commit(record);
+    }
+
+    @Override
+    public void clear() {
+        long record;
+        synchronized (this) {
+            ensureOpen();
+            table.clear();
+            record = append(CLEAR, null, null);
+        }
+        commit(record);
+    }
+
+    // Представление записей; удаление через итератор и setValue записываются в журнал.
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    @Override
+    public synchronized boolean equals(Object o) {
+        return o == this || table.equals(o);
+    }
+
+    @Override
+    public synchronized int hashCode() {
+        return table.hashCode();
+    }
+
+    /* Сбрасывает на диск все записи журнала, добавленные до вызова.
+     * Бросает:
+     * Исключение UncheckedIOException – при ошибке записи.
+     */
+    public void sync() {
+        commit(appendedCount(), true);
+    }
+
+    /* Контрольная точка: журнал переключается на новый файл, копия таблицы сохраняется в снимок,
+     * после чего старые снимки и журналы удаляются. Копия делается под блокировкой таблицы,
+     * а снимок пишется без нее, поэтому изменения во время записи снимка не блокируются.
+     */
+    public void checkpoint() throws IOException {
+        HashTable<K, V> copy;
+        long snapshotGeneration;
+        synchronized (this) {
+            synchronized (syncLock) {
+                ByteBuffer full;
+                long upTo;
+                synchronized (bufferLock) {
+                    ensureOpen();
+                    full = pending;
+                    pending = spare;
+                    upTo = appended;
+                }
+                copy = table.copy();
+                snapshotGeneration = ++generation;
+                spare = full;
+                writeFully(full);
+                journal.force(false);
+                journal.close();
+                written = upTo;
+                durable = upTo;
+                journal = openJournal(snapshotGeneration);
+            }
+        }
+
+        /* Одновременные контрольные точки безопасны: каждая удаляет только файлы старше своего снимка.
+         * write пишет снимок во временный файл snapshot-N.dhts.tmp и атомарно переименовывает его.
+         */
+        HashTableSnapshot.write(copy, snapshotPath(snapshotGeneration), keyCodec, valueCodec);
+        deleteBefore(snapshotGeneration);
+    }
+
+    /* Останавливает фоновые задачи, сбрасывает журнал на диск и закрывает его. Повторный вызов ничего не делает.
+     * Фоновый поток не прерывается (прерывание во время записи закрыло бы FileChannel): close ждет, пока он
+     * завершит текущую задачу, если только вызывающий поток сам не держит блокировку таблицы.
+     */
+    @Override
+    public void close() throws IOException {
+        background.shutdown();
+        if (!Thread.holdsLock(this)) {
+            try {
+                background.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            synchronized (syncLock) {
+                ByteBuffer full;
+                synchronized (bufferLock) {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    full = pending;
+                }
+                try {
+                    writeFully(full);
+                    journal.force(false);
+                } finally {
+                    journal.close();
+                }
+            }
+        }
+    }
+
+    // Добавляет запись PUT или REMOVE по результату compute или merge (null – ключ удален).
+    private long appendResult(K key, V value) {
+        return value == null ? append(REMOVE, key, null) : append(PUT, key, value);
+    }
+
+    // Ключ удаляется только если он был в таблице, поэтому имеет тип K.
+    @SuppressWarnings("unchecked")
+    private long appendRemove(Object key) {
+        return append(REMOVE, (K) key, null);
+    }
+
+    // Добавляет запись в буфер и возвращает ее номер, начиная с 1. Вызывается под блокировкой таблицы.
+    private long append(byte operation, K key, V value) {
+        byte[] keyBytes = key == null ? null : keyCodec.encode(key);
+        byte[] valueBytes = value == null ? null : valueCodec.encode(value);
+        int length = 1;
+        if (keyBytes != null) {
+            length += Integer.BYTES + keyBytes.length;
+        }
+        if (valueBytes != null) {
+            length += Integer.BYTES + valueBytes.length;
+        }
+
+        synchronized (bufferLock) {
+            if (closed) {
+                throw new IllegalStateException("JournaledHashTable is closed");
+            }
+            if (pending.remaining() < 2 * Integer.BYTES + length) {
+                int needed = pending.position() + 2 * Integer.BYTES + length;
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, needed));
+                pending.flip();
+                pending = grown.put(pending);
+            }
+
+            int start = pending.position();
+            pending.putInt(length).putInt(0).put(operation);
+            if (keyBytes != null) {
+                pending.putInt(keyBytes.length).put(keyBytes);
+            }
+            if (valueBytes != null) {
+                pending.putInt(valueBytes.length).put(valueBytes);
+            }
+            crc.reset();
+            crc.update(pending.array(), start + 2 * Integer.BYTES, length);
+            pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+            return ++appended;
+        }
+    }
+
+    private long appendedCount() {
+        synchronized (bufferLock) {
+            return appended;
+        }
+    }
+
+    private boolean bufferFull() {
+        synchronized (bufferLock) {
+            return pending.position() >= BUFFER_BYTES;
+        }
+    }
+
+    // Завершает изменение по режиму сброса: ждет fsync (ALWAYS), сбрасывает накопленную группу (BATCH)
+    // или передает заполненный буфер в файл. Номер 0 означает, что операция ничего не изменила.
+    private void commit(long record) {
+        switch (syncMode) {
+            case ALWAYS:
+                commit(record, true);
+                break;
+            case BATCH:
+                if (record - durable >= batchSize) {
+                    commit(record, true);
+                } else if (bufferFull()) {
+                    commit(record, false);
+                }
+                break;
+            default:
+                if (bufferFull()) {
+                    commit(record, false);
+                }
+                break;
+        }
+    }
+
+    private void commit(long record, boolean force) {
+        try {
+            flush(record, force);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* Передает накопленные записи в файл и при force выполняет fsync, если запись record еще не сброшена.
+     * Пока один поток выполняет fsync, остальные ждут на syncLock и затем видят, что их записи уже сохранены.
+     */
+    private void flush(long record, boolean force) throws IOException {
+        if ((force ? durable : written) >= record) {
+            return;
+        }
+        synchronized (syncLock) {
+            if ((force ? durable : written) >= record) {
+                return;
+            }
+            ByteBuffer full;
+            long upTo;
+            synchronized (bufferLock) {
+                if (closed) {
+                    return;
+                }
+                full = pending;
+                pending = spare;
+                upTo = appended;
+            }
+            spare = full;
+            writeFully(full);
+            written = upTo;
+            if (force) {
+                journal.force(false);
+                durable = upTo;
+            }
+        }
+    }
+
+    // Пишет содержимое буфера в конец журнала и очищает буфер. Вызывается под syncLock.
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("JournaledHashTable is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Journal background task failed", failure);
+        }
+    }
+
+    // Фоновая задача; ошибка запоминается и делает таблицу недоступной для изменений.
+    private void runInBackground(IORunnable task) {
+        try {
+            task.run();
+        } catch (IOException e) {
+            failure = e;
+        } catch (IllegalStateException e) {
+            // Таблица уже закрыта.
+        }
+    }
+
+    @FunctionalInterface
+    private interface IORunnable {
+        void run() throws IOException;
+    }
+
+    /* Восстанавливает таблицу: последний снимок и журналы с номерами не меньше его номера по порядку.
+     * Оборванная запись в конце журнала отбрасывается, журнал усекается до последней целой записи.
+     * Новые записи дописываются в последний журнал.
+     */
+    private HashTable<K, V> recover() throws IOException {
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        TreeMap<Long, Path> journals = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Long snapshot = generationOf(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                Long log = generationOf(name, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+                if (snapshot != null) {
+                    snapshots.put(snapshot, file);
+                } else if (log != null) {
+                    journals.put(log, file);
+                } else if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(".tmp")) {
+                    // Снимок, запись которого прервалась.
+                    Files.delete(file);
+                }
+            }
+        }
+
+        HashTable<K, V> recovered;
+        long base;
+        if (snapshots.isEmpty()) {
+            base = 0;
+            recovered = new HashTable<>();
+        } else {
+            base = snapshots.lastKey();
+            recovered = HashTableSnapshot.read(snapshots.lastEntry().getValue(), keyCodec, valueCodec);
+        }
+        generation = base;
+        for (Map.Entry<Long, Path> entry : journals.tailMap(base, true).entrySet()) {
+            generation = entry.getKey();
+            replay(entry.getValue(), recovered);
+        }
+        journal = openJournal(generation);
+        // Журналы после снимка base удаляются только следующей контрольной точкой.
+        deleteBefore(base);
+        return recovered;
+    }
+
+    // Применяет записи журнала к таблице и усекает журнал после последней целой записи.
+    private void replay(Path file, HashTable<K, V> target) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] payload = new byte[64];
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    if (payload.length < length) {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(ByteBuffer.wrap(payload, 0, length), target);
+                valid += 2 * Integer.BYTES + length;
+            }
+        }
+        if (Files.size(file) > valid) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+    }
+
+    // Применяет одну запись журнала.
+    private void apply(ByteBuffer record, HashTable<K, V> target) {
+        byte operation = record.get(0);
+        if (operation == CLEAR) {
+            target.clear();
+            return;
+        }
+        int keyLength = record.getInt(1);
+        K key = keyCodec.decode(record, 1 + Integer.BYTES, keyLength);
+        if (operation == PUT) {
+            int valueOffset = 1 + Integer.BYTES + keyLength;
+            target.put(key, valueCodec.decode(record, valueOffset + Integer.BYTES, record.getInt(valueOffset)));
+        } else {
+            target.remove(key);
+        }
+    }
+
+    private FileChannel openJournal(long generation) throws IOException {
+        return FileChannel.open(journalPath(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    // Удаляет снимки и журналы с номерами меньше заданного: их изменения уже вошли в снимок.
+    private void deleteBefore(long generation) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Long snapshot = generationOf(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                Long log = generationOf(name, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+                if (snapshot != null && snapshot < generation || log != null && log < generation) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path snapshotPath(long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+
+    private Path journalPath(long generation) {
+        return directory.resolve(JOURNAL_PREFIX + generation + JOURNAL_SUFFIX);
+    }
+
+    // Возвращает номер из имени файла вида prefix + N + suffix или null.
+    private static Long generationOf(String name, String prefix, String suffix) {
+        if (!name.startsWith(prefix) || !name.endsWith(suffix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Представление записей поверх entrySet таблицы.
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            synchronized (JournaledHashTable.this) {
+                return new EntryIterator(table.entrySet().iterator());
+            }
+        }
+
+        @Override
+        public int size() {
+            return JournaledHashTable.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            V value = get(entry.getKey());
+            return value != null && value.equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return JournaledHashTable.this.remove(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void clear() {
+            JournaledHashTable.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final Iterator<Map.Entry<K, V>> iterator;
+        private K lastKey;
+
+        EntryIterator(Iterator<Map.Entry<K, V>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            Map.Entry<K, V> entry = iterator.next();
+            lastKey = entry.getKey();
+            return new JournaledEntry(entry);
+        }
+
+        @Override
+        public void remove() {
+            long record;
+            synchronized (JournaledHashTable.this) {
+                ensureOpen();
+                iterator.remove();
+                record = append(REMOVE, lastKey, null);
+            }
+            commit(record);
+        }
+    }
+
+    // Запись, изменение значения которой записывается в журнал.
+    private final class JournaledEntry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        JournaledEntry(Map.Entry<K, V> entry) {
+            super(entry);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+}
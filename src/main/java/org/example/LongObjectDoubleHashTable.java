@@ -0,0 +1,284 @@
+package org.example;
+
+import java.util.Arrays;
+
+/* Хэш-таблица с двойным хешированием для ключей типа long без упаковки и объектных значений.
+ * Использует ту же последовательность проб, что и HashTable.
+ * Ключи хранятся в массиве long, значения – в массиве Object; свободная и удаленная ячейки отмечаются
+ * ключами-маркерами FREE_KEY и REMOVED_KEY. Сами эти ключи хранятся отдельно от массивов.
+ * Значения null не допускаются. Операции get, put и remove ничего не выделяют в куче, кроме роста таблицы.
+ */
+public class LongObjectDoubleHashTable<V> {
+
+    private static final long FREE_KEY = 0;
+    private static final long REMOVED_KEY = Long.MIN_VALUE;
+
+    private int size = 0;
+    private int capacity;
+    private final float loadFactor;
+    private long[] keys;
+    private Object[] vals;
+    private int maxProbe = 0;
+    private int tombstones = 0;
+
+    // Значения для ключей, совпадающих с маркерами.
+    private boolean hasFreeKey;
+    private V freeKeyValue;
+    private boolean hasRemovedKey;
+    private V removedKeyValue;
+
+    /* Создает новую пустую хэш-таблицу с заданной начальной емкостью и заданным коэффициентом загрузки.
+     * Бросает:
+     * Исключение IllegalArgumentException – если начальная емкость меньше нуля
+     * или если коэффициент загрузки не лежит в (0, 1).
+     */
+    public LongObjectDoubleHashTable(int capacity, float loadFactor) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal Load: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.capacity = DoubleHashing.tableSizeFor(capacity);
+        keys = new long[this.capacity];
+        vals = new Object[this.capacity];
+    }
+
+    // Создает новую пустую хэш-таблицу с заданной начальной емкостью и коэффициентом загрузки по умолчанию (0,75).
+    public LongObjectDoubleHashTable(int capacity) {
+        this(capacity, 0.75f);
+    }
+
+    // Создает новую пустую хэш-таблицу с начальной емкостью по умолчанию (16) и коэффициентом загрузки (0,75).
+    public LongObjectDoubleHashTable() {
+        this(16, 0.75f);
+    }
+
+    // Возвращает количество ключей в этой хэш-таблице.
+    public int size() {
+        return size;
+    }
+
+    // Проверяет, пуста ли хэш-таблица.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Проверяет, является ли указанное число ключом в этой хэш-таблице.
+    public boolean containsKey(long key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        if (key == REMOVED_KEY) {
+            return hasRemovedKey;
+        }
+        return find(key) >= 0;
+    }
+
+    // Возвращает значение, сопоставленное ключу, или null, если сопоставления нет.
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    // Возвращает значение, сопоставленное ключу, или defaultValue, если сопоставления нет.
+    public V getOrDefault(long key, V defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        if (key == REMOVED_KEY) {
+            return hasRemovedKey ? removedKeyValue : defaultValue;
+        }
+        int index = find(key);
+        return index >= 0 ? valueAt(index) : defaultValue;
+    }
+
+    /* Сопоставляет ключу значение и возвращает предыдущее значение или null, если ключа не было.
+     * Бросает:
+     * Исключение NullPointerException – если значение null.
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("LongObjectDoubleHashTable does not permit null values");
+        }
+        if (key == FREE_KEY) {
+            V old = freeKeyValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return old;
+        }
+        if (key == REMOVED_KEY) {
+            V old = removedKeyValue;
+            if (!hasRemovedKey) {
+                hasRemovedKey = true;
+                size++;
+            }
+            removedKeyValue = value;
+            return old;
+        }
+
+        int index = find(key);
+        if (index >= 0) {
+            V old = valueAt(index);
+            vals[index] = value;
+            return old;
+        }
+        insert(key, value);
+        return null;
+    }
+
+    // Удаляет ключ и возвращает его значение или null, если ключа не было.
+    public V remove(long key) {
+        if (key == FREE_KEY) {
+            V old = freeKeyValue;
+            if (hasFreeKey) {
+                hasFreeKey = false;
+                freeKeyValue = null;
+                size--;
+            }
+            return old;
+        }
+        if (key == REMOVED_KEY) {
+            V old = removedKeyValue;
+            if (hasRemovedKey) {
+                hasRemovedKey = false;
+                removedKeyValue = null;
+                size--;
+            }
+            return old;
+        }
+
+        int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        V old = valueAt(index);
+        keys[index] = REMOVED_KEY;
+        vals[index] = null;
+        size--;
+        tombstones++;
+        return old;
+    }
+
+    // Очищает эту хэш-таблицу, чтобы она не содержала ключей.
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        Arrays.fill(vals, null);
+        size = 0;
+        maxProbe = 0;
+        tombstones = 0;
+        hasFreeKey = false;
+        freeKeyValue = null;
+        hasRemovedKey = false;
+        removedKeyValue = null;
+    }
+
+    // Выполняет действие для каждой пары ключ-значение.
+    public void forEach(EntryConsumer<? super V> action) {
+        if (hasFreeKey) {
+            action.accept(FREE_KEY, freeKeyValue);
+        }
+        if (hasRemovedKey) {
+            action.accept(REMOVED_KEY, removedKeyValue);
+        }
+        for (int i = 0; i < capacity; i++) {
+            long key = keys[i];
+            if (key != FREE_KEY && key != REMOVED_KEY) {
+                action.accept(key, valueAt(i));
+            }
+        }
+    }
+
+    // Действие над парой ключ-значение без упаковки ключа.
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    // Поиск ключа: до первой свободной ячейки, но не дальше maxProbe проб.
+    private int find(long key) {
+        int hash = Long.hashCode(key);
+        int index = DoubleHashing.start(hash, capacity);
+        int step = DoubleHashing.step(hash, capacity);
+        for (int n = 0; n <= maxProbe; n++, index = DoubleHashing.next(index, step, capacity)) {
+            long candidate = keys[index];
+            if (candidate == key) {
+                return index;
+            }
+            if (candidate == FREE_KEY) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // Вставка отсутствующего ключа; при необходимости таблица растет или очищается от удаленных ячеек.
+    private void insert(long key, V value) {
+        if (size + tombstones + 1 >= loadFactor * capacity) {
+            rehash(tombstones > size / 2 ? capacity : DoubleHashing.grow(capacity));
+        }
+        int index = findEmptyIndex(key);
+        keys[index] = key;
+        vals[index] = value;
+        size++;
+    }
+
+    // Возвращает первую свободную или удаленную ячейку последовательности ключа.
+    private int findEmptyIndex(long key) {
+        int hash = Long.hashCode(key);
+        int index = DoubleHashing.start(hash, capacity);
+        int step = DoubleHashing.step(hash, capacity);
+        for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+            long candidate = keys[index];
+            if (candidate == FREE_KEY || candidate == REMOVED_KEY) {
+                if (candidate == REMOVED_KEY) {
+                    tombstones--;
+                }
+                maxProbe = Math.max(maxProbe, n);
+                return index;
+            }
+        }
+    }
+
+    // Переносит живые записи в новый массив заданной емкости, удаленные ячейки отбрасываются.
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldVals = vals;
+        capacity = newCapacity;
+        keys = new long[capacity];
+        vals = new Object[capacity];
+        maxProbe = 0;
+        tombstones = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY && key != REMOVED_KEY) {
+                int index = findEmptyIndex(key);
+                keys[index] = key;
+                vals[index] = oldVals[i];
+            }
+        }
+    }
+
+    // Получение значения из ячейки.
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) vals[index];
+    }
+
+    // Возвращает строковое представление пар ключ-значение.
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+}
@@ -18,7 +18,7 @@ public class Main extends Application {
     @Override
     public void start(Stage stage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("primary.fxml"));
-        Scene scene = new Scene(fxmlLoader.load(), 630, 380);
+        Scene scene = new Scene(fxmlLoader.load(), 630, 460);
         stage.setTitle("Hashtable");
         stage.getIcons().add(new Image(Objects.requireNonNull
                 (Main.class.getResourceAsStream("icon.png"))));
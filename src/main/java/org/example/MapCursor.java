@@ -0,0 +1,28 @@
+package org.example;
+
+/* Курсор по записям таблицы без выделения объектов на запись.
+ * После создания курсор стоит перед первой записью; advance() переходит к следующей.
+ * key(), value() и setValue() относятся к текущей записи. Как и итераторы, курсор бросает
+ * ConcurrentModificationException, если таблица структурно изменилась не через него.
+ *
+ * Пример:
+ * MapCursor<String, Integer> cursor = table.cursor();
+ * while (cursor.advance()) {
+ *     cursor.setValue(cursor.value() + 1);
+ * }
+ */
+public interface MapCursor<K, V> {
+
+    // Переходит к следующей записи; возвращает false, если записей больше нет.
+    boolean advance();
+
+    // Возвращает ключ текущей записи.
+    K key();
+
+    // Возвращает значение текущей записи.
+    V value();
+
+    // Заменяет значение текущей записи и возвращает предыдущее.
+    V setValue(V value);
+
+}
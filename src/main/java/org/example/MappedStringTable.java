@@ -0,0 +1,167 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/* Таблица только для чтения поверх снимка HashTableSnapshot со строковыми ключами.
+ * Файл отображается в память и не загружается в кучу: поиск идет по ячейкам снимка той же последовательностью
+ * проб, ключи сравниваются с искомой строкой прямо в байтах UTF-8, декодируется только найденное значение.
+ * Чтение из нескольких потоков безопасно; close() нельзя вызывать одновременно с чтением.
+ */
+public final class MappedStringTable<V> implements Closeable {
+
+    private final SnapshotCodec<? extends V> valueCodec;
+    private final HashStrategy hashStrategy;
+    private final ProbeStrategy probeStrategy;
+    private final int capacity;
+    private final int size;
+    private final int maxProbe;
+    private MappedByteBuffer slots;
+    private MappedByteBuffer data;
+
+    private MappedStringTable(HashTableSnapshot.Header header, MappedByteBuffer slots, MappedByteBuffer data,
+                              SnapshotCodec<? extends V> valueCodec) {
+        this.valueCodec = valueCodec;
+        this.hashStrategy = HashTableSnapshot.hashStrategyFor(header.hashStrategyId);
+        this.probeStrategy = HashTableSnapshot.probeStrategyFor(header.probeStrategyId);
+        this.capacity = header.capacity;
+        this.size = header.size;
+        this.maxProbe = header.maxProbe;
+        this.slots = slots;
+        this.data = data;
+    }
+
+    /* Открывает снимок, записанный с кодеком ключей SnapshotCodec.STRING и встроенными стратегиями.
+     * Бросает:
+     * Исключение IOException – если файл не является таким снимком.
+     */
+    public static <V> MappedStringTable<V> open(Path path, SnapshotCodec<? extends V> valueCodec) throws IOException {
+        Objects.requireNonNull(valueCodec);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            HashTableSnapshot.Header header = HashTableSnapshot.Header.read(channel, path);
+            if ((header.flags & HashTableSnapshot.FLAG_UTF8_KEYS) == 0) {
+                throw new IOException("Snapshot keys are not UTF-8 strings: " + path);
+            }
+            if (HashTableSnapshot.hashStrategyFor(header.hashStrategyId) == null
+                    || HashTableSnapshot.probeStrategyFor(header.probeStrategyId) == null) {
+                throw new IOException("Snapshot uses a custom strategy: " + path);
+            }
+            // Отображение остается действительным после закрытия канала.
+            return new MappedStringTable<>(header, header.mapSlots(channel), header.mapData(channel), valueCodec);
+        }
+    }
+
+    // Возвращает количество ключей.
+    public int size() {
+        return size;
+    }
+
+    // Проверяет, пуста ли таблица.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Проверяет, является ли строка ключом.
+    public boolean containsKey(String key) {
+        return find(key) >= 0;
+    }
+
+    // Возвращает значение, сопоставленное ключу, или null, если сопоставления нет.
+    public V get(String key) {
+        return getOrDefault(key, null);
+    }
+
+    // Возвращает значение, сопоставленное ключу, или defaultValue, если сопоставления нет.
+    public V getOrDefault(String key, V defaultValue) {
+        int slot = find(key);
+        if (slot < 0) {
+            return defaultValue;
+        }
+        int offset = (int) slots.getLong(slot) + slots.getInt(slot + 12);
+        int valueLength = data.getInt(offset);
+        return valueLength < 0 ? null : valueCodec.decode(data, offset + Integer.BYTES, valueLength);
+    }
+
+    /* Отпускает отображение файла; после закрытия обращения к таблице бросают IllegalStateException.
+     * Само отображение снимает сборщик мусора, когда на буферы не остается ссылок.
+     */
+    @Override
+    public void close() {
+        if (slots != null) {
+            slots = null;
+            data = null;
+        }
+    }
+
+    // Возвращает смещение ячейки ключа в области ячеек или -1: до первой свободной ячейки, но не дальше maxProbe проб.
+    private int find(String key) {
+        if (slots == null) {
+            throw new IllegalStateException("MappedStringTable is closed");
+        }
+        int hash = hashStrategy.mix(key.hashCode());
+        int index = probeStrategy.start(hash, capacity);
+        int step = probeStrategy.step(hash, capacity);
+        for (int n = 0; n <= maxProbe; n++, index = DoubleHashing.next(index, step, capacity)) {
+            int slot = index * HashTableSnapshot.SLOT_BYTES;
+            long offset = slots.getLong(slot);
+            if (offset == HashTableSnapshot.FREE) {
+                return -1;
+            }
+            if (offset != HashTableSnapshot.TOMBSTONE && slots.getInt(slot + 8) == hash
+                    && utf8Equals((int) offset, slots.getInt(slot + 12), key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /* Сравнивает байты UTF-8 с символами строки без декодирования.
+     * Непарный суррогат кодируется String.getBytes как '?', так же он и сравнивается.
+     */
+    private boolean utf8Equals(int offset, int length, String key) {
+        int end = offset + length;
+        int position = offset;
+        int count = key.length();
+        for (int i = 0; i < count; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                if (position >= end || data.get(position++) != c) {
+                    return false;
+                }
+            } else if (c < 0x800) {
+                if (end - position < 2
+                        || data.get(position++) != (byte) (0xC0 | c >> 6)
+                        || data.get(position++) != (byte) (0x80 | c & 0x3F)) {
+                    return false;
+                }
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(key.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, key.charAt(++i));
+                    if (end - position < 4
+                            || data.get(position++) != (byte) (0xF0 | codePoint >> 18)
+                            || data.get(position++) != (byte) (0x80 | codePoint >> 12 & 0x3F)
+                            || data.get(position++) != (byte) (0x80 | codePoint >> 6 & 0x3F)
+                            || data.get(position++) != (byte) (0x80 | codePoint & 0x3F)) {
+                        return false;
+                    }
+                } else if (position >= end || data.get(position++) != '?') {
+                    return false;
+                }
+            } else {
+                if (end - position < 3
+                        || data.get(position++) != (byte) (0xE0 | c >> 12)
+                        || data.get(position++) != (byte) (0x80 | c >> 6 & 0x3F)
+                        || data.get(position++) != (byte) (0x80 | c & 0x3F)) {
+                    return false;
+                }
+            }
+        }
+        return position == end;
+    }
+
+}
@@ -0,0 +1,587 @@
+package org.example;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Неблокирующая хэш-таблица с двойным хешированием (в духе NonBlockingHashMap Клиффа Клика).
+ * Ни одна операция не захватывает блокировок: ячейки занимаются и изменяются через CAS (VarHandle)
+ * по той же последовательности проб, что и в HashTable.
+ *
+ * Состояния ячейки. Ключ: null – ячейка свободна; ключ – ячейка закреплена за ним до конца жизни массива;
+ * TOMBSTONE – свободная ячейка заблокирована при переносе. Значение: null – еще не записано;
+ * значение; TOMBSTONE – удалено; Prime – значение заморожено на время переноса; MOVED – перенесено.
+ * Удаление не освобождает ячейку ключа, а записывает TOMBSTONE в значение, поэтому цепочки проб не рвутся.
+ *
+ * Рост таблицы совместный: новый массив создается одним потоком, а ячейки старого массива
+ * переносят порциями все потоки, которые в этот момент обращаются к таблице. Операция над ключом,
+ * ячейка которого еще не перенесена, сначала переносит эту ячейку и продолжает в новом массиве.
+ *
+ * compute*, merge и прочие составные операции – стандартные циклы ConcurrentMap поверх атомарных
+ * putIfAbsent, replace и remove: функция может быть вызвана несколько раз.
+ * Итераторы слабо согласованы. Ключи и значения null не допускаются.
+ */
+public class NonBlockingDoubleHashTable<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    private static final Object TOMBSTONE = new Object();
+    private static final Prime MOVED = new Prime(TOMBSTONE);
+    // Ожидаемое значение для безусловной записи.
+    private static final Object NO_MATCH_OLD = new Object();
+    // Ожидаемое значение «любое живое» для replace(key, value).
+    private static final Object MATCH_ANY = new Object();
+    // Количество ячеек, переносимых потоком за одно обращение к таблице во время роста.
+    private static final int COPY_CHUNK = 1024;
+
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle NEXT;
+    private static final VarHandle TOP;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            NEXT = lookup.findVarHandle(Table.class, "next", Table.class);
+            TOP = lookup.findVarHandle(NonBlockingDoubleHashTable.class, "top", Table.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final float loadFactor;
+    // Текущий верхний массив; заменяется следующим, когда перенос закончен.
+    private volatile Table top;
+
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /* Создает новую пустую таблицу с заданной начальной емкостью и коэффициентом загрузки.
+     * Бросает:
+     * Исключение IllegalArgumentException – если емкость отрицательная или коэффициент загрузки не лежит в (0, 1).
+     */
+    public NonBlockingDoubleHashTable(int capacity, float loadFactor) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal Load: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        top = new Table(DoubleHashing.tableSizeFor((int) (capacity / loadFactor) + 1), new LongAdder());
+    }
+
+    // Создает новую пустую таблицу с заданной начальной емкостью и коэффициентом загрузки 0,75.
+    public NonBlockingDoubleHashTable(int capacity) {
+        this(capacity, 0.75f);
+    }
+
+    // Создает новую пустую таблицу с параметрами по умолчанию.
+    public NonBlockingDoubleHashTable() {
+        this(16);
+    }
+
+    // Возвращает количество ключей. При одновременных изменениях результат приблизителен.
+    @Override
+    public int size() {
+        long size = top.size.sum();
+        return (int) Math.max(0, Math.min(size, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object value = get(top, key, key.hashCode());
+        return (V) value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return result(putIfMatch(key, Objects.requireNonNull(value), NO_MATCH_OLD));
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return result(putIfMatch(key, Objects.requireNonNull(value), TOMBSTONE));
+    }
+
+    @Override
+    public V remove(Object key) {
+        return result(putIfMatch(key, TOMBSTONE, NO_MATCH_OLD));
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (value == null) {
+            return false;
+        }
+        return matches(putIfMatch(key, TOMBSTONE, value), value);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return result(putIfMatch(key, Objects.requireNonNull(value), MATCH_ANY));
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue);
+        return matches(putIfMatch(key, Objects.requireNonNull(newValue), oldValue), oldValue);
+    }
+
+    // Очищает таблицу, заменяя верхний массив пустым. Одновременные изменения могут попасть в старый массив.
+    @Override
+    public void clear() {
+        Table fresh = new Table(DoubleHashing.tableSizeFor(16), new LongAdder());
+        TOP.setVolatile(this, fresh);
+    }
+
+    // Возвращает слабо согласованный набор записей.
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    // Приводит внутреннее представление отсутствующего значения к null.
+    @SuppressWarnings("unchecked")
+    private static <V> V result(Object value) {
+        return value == null || value == TOMBSTONE ? null : (V) value;
+    }
+
+    // Проверяет, живое ли значение ячейки.
+    private static boolean isLive(Object value) {
+        return value != null && value != TOMBSTONE;
+    }
+
+    /* Проверяет, удовлетворяет ли текущее значение ячейки ожиданию операции:
+     * NO_MATCH_OLD – любое; MATCH_ANY – любое живое; TOMBSTONE – отсутствие значения;
+     * null – ячейка нового массива еще не записана (перенос); иначе – равное живое значение.
+     */
+    private static boolean matches(Object current, Object expected) {
+        if (expected == NO_MATCH_OLD) {
+            return true;
+        }
+        if (expected == MATCH_ANY) {
+            return isLive(current);
+        }
+        if (expected == TOMBSTONE) {
+            return !isLive(current);
+        }
+        if (expected == null) {
+            return current == null;
+        }
+        return isLive(current) && (current == expected || expected.equals(current));
+    }
+
+    // Проверяет, совпадает ли ключ в ячейке с искомым.
+    private static boolean keyEquals(Object candidate, Object key) {
+        return candidate == key || (candidate != TOMBSTONE && candidate.equals(key));
+    }
+
+    // Поиск значения ключа начиная с массива table; переходит в более новые массивы во время роста.
+    private Object get(Table table, Object key, int hash) {
+        while (true) {
+            int capacity = table.capacity;
+            int index = DoubleHashing.start(hash, capacity);
+            int step = DoubleHashing.step(hash, capacity);
+            int limit = table.reprobeLimit();
+            Table retry = null;
+            for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+                Object candidate = SLOT.getVolatile(table.keys, index);
+                if (candidate == null) {
+                    // Ключи занимают первую свободную ячейку, поэтому дальше этого ключа нет.
+                    return null;
+                }
+                Object value = SLOT.getVolatile(table.vals, index);
+                if (keyEquals(candidate, key)) {
+                    if (!(value instanceof Prime)) {
+                        return result(value);
+                    }
+                    retry = table.copySlotAndCheck(this, index, true);
+                    break;
+                }
+                // TOMBSTONE-ключ – ячейка заблокирована переносом, значит дальше в этом массиве ключей нет.
+                if (n + 1 >= limit || candidate == TOMBSTONE) {
+                    Table next = table.next;
+                    if (next == null) {
+                        return null;
+                    }
+                    helpCopy();
+                    retry = next;
+                    break;
+                }
+            }
+            table = retry;
+        }
+    }
+
+    // Записывает putval (TOMBSTONE – удаление), если текущее значение удовлетворяет ожиданию expected.
+    private Object putIfMatch(Object key, Object putval, Object expected) {
+        Table table = top;
+        if (table.next != null) {
+            helpCopy();
+        }
+        return putIfMatch(table, key, key.hashCode(), putval, expected);
+    }
+
+    /* Основной цикл записи. Возвращает значение ячейки до операции (null или TOMBSTONE, если значения не было);
+     * запись выполнена, если это значение удовлетворяет ожиданию expected.
+     * expected == null означает перенос: значение записывается только в еще не записанную ячейку,
+     * а счетчик размера не меняется.
+     */
+    private Object putIfMatch(Table table, Object key, int hash, Object putval, Object expected) {
+        outer:
+        while (true) {
+            int capacity = table.capacity;
+            int index = DoubleHashing.start(hash, capacity);
+            int step = DoubleHashing.step(hash, capacity);
+            int limit = table.reprobeLimit();
+            int n = 0;
+            // Поиск или захват ячейки ключа.
+            while (true) {
+                Object candidate = SLOT.getVolatile(table.keys, index);
+                if (candidate == null) {
+                    if (putval == TOMBSTONE) {
+                        // Удаление отсутствующего ключа.
+                        return TOMBSTONE;
+                    }
+                    if (SLOT.compareAndSet(table.keys, index, null, key)) {
+                        table.slots.incrementAndGet();
+                        break;
+                    }
+                    candidate = SLOT.getVolatile(table.keys, index);
+                }
+                if (keyEquals(candidate, key)) {
+                    break;
+                }
+                if (++n >= limit || candidate == TOMBSTONE) {
+                    Table next = table.resize(this);
+                    if (expected != null) {
+                        helpCopy();
+                    }
+                    table = next;
+                    continue outer;
+                }
+                index = DoubleHashing.next(index, step, capacity);
+            }
+
+            Object value = SLOT.getVolatile(table.vals, index);
+            if (value == putval) {
+                return value;
+            }
+            Table next = table.next;
+            if (next == null && ((value == null && table.isFull(this)) || value instanceof Prime)) {
+                next = table.resize(this);
+            }
+            if (next != null) {
+                // Массив переносится: сначала переносим ячейку ключа, затем пишем в новый массив.
+                table = table.copySlotAndCheck(this, index, expected != null);
+                continue;
+            }
+
+            while (true) {
+                if (!matches(value, expected)) {
+                    return value;
+                }
+                if (SLOT.compareAndSet(table.vals, index, value, putval)) {
+                    if (expected != null) {
+                        if (!isLive(value) && isLive(putval)) {
+                            table.size.increment();
+                        } else if (isLive(value) && !isLive(putval)) {
+                            table.size.decrement();
+                        }
+                    }
+                    return value;
+                }
+                value = SLOT.getVolatile(table.vals, index);
+                if (value instanceof Prime) {
+                    table = table.copySlotAndCheck(this, index, expected != null);
+                    continue outer;
+                }
+            }
+        }
+    }
+
+    // Переносит очередную порцию ячеек верхнего массива, если идет рост.
+    private void helpCopy() {
+        Table table = top;
+        if (table.next != null) {
+            table.copyChunk(this, false);
+        }
+    }
+
+    // Завершает все начатые переносы и возвращает верхний массив.
+    private Table settledTop() {
+        Table table = top;
+        while (table.next != null) {
+            table.copyChunk(this, true);
+            table = top;
+        }
+        return table;
+    }
+
+    // Замороженное на время переноса значение.
+    private static final class Prime {
+        final Object value;
+
+        Prime(Object value) {
+            this.value = value;
+        }
+    }
+
+    // Один массив таблицы вместе с состоянием его переноса.
+    private static final class Table {
+        final Object[] keys;
+        final Object[] vals;
+        final int capacity;
+        // Количество закрепленных ячеек ключей, включая ключи с удаленными значениями.
+        final AtomicInteger slots = new AtomicInteger();
+        // Счетчик размера общий для всех массивов одной таблицы.
+        final LongAdder size;
+        volatile Table next;
+        // Следующая порция для переноса и количество перенесенных ячеек.
+        final AtomicInteger copyIndex = new AtomicInteger();
+        final AtomicInteger copyDone = new AtomicInteger();
+
+        Table(int capacity, LongAdder size) {
+            this.capacity = capacity;
+            this.size = size;
+            keys = new Object[capacity];
+            vals = new Object[capacity];
+        }
+
+        // Наибольшая длина пробы, после которой ключ ищется в следующем массиве.
+        int reprobeLimit() {
+            return 10 + (capacity >> 2);
+        }
+
+        // Массив заполнен, когда занятые ключами ячейки (включая удаленные ключи) достигают коэффициента загрузки.
+        boolean isFull(NonBlockingDoubleHashTable<?, ?> map) {
+            return slots.get() >= map.loadFactor * capacity;
+        }
+
+        // Возвращает следующий массив, создавая его при необходимости; емкость выбирается по числу живых ключей.
+        Table resize(NonBlockingDoubleHashTable<?, ?> map) {
+            Table current = next;
+            if (current != null) {
+                return current;
+            }
+            long live = Math.max(size.sum(), 0);
+            long wanted = Math.max(capacity / 2, (long) (2 * live / map.loadFactor) + 1);
+            int newCapacity = DoubleHashing.tableSizeFor((int) Math.min(wanted, Integer.MAX_VALUE / 2));
+            Table fresh = new Table(newCapacity, size);
+            if (NEXT.compareAndSet(this, null, fresh)) {
+                return fresh;
+            }
+            return next;
+        }
+
+        /* Переносит одну ячейку в следующий массив и возвращает его.
+         * Если help, заодно переносит очередную порцию ячеек верхнего массива.
+         */
+        Table copySlotAndCheck(NonBlockingDoubleHashTable<?, ?> map, int index, boolean help) {
+            Table current = next;
+            if (copySlot(map, index)) {
+                copyCheckAndPromote(map, 1);
+            }
+            if (help) {
+                map.helpCopy();
+            }
+            return current;
+        }
+
+        /* Переносит ячейку index. Возвращает true, если именно этот поток завершил ее перенос,
+         * чтобы каждая ячейка была учтена в copyDone ровно один раз.
+         */
+        boolean copySlot(NonBlockingDoubleHashTable<?, ?> map, int index) {
+            Object key;
+            // Свободная ячейка блокируется, чтобы в нее больше ничего не вставили.
+            while ((key = SLOT.getVolatile(keys, index)) == null) {
+                SLOT.compareAndSet(keys, index, null, TOMBSTONE);
+            }
+
+            // Замораживаем значение.
+            Object value = SLOT.getVolatile(vals, index);
+            while (!(value instanceof Prime)) {
+                Prime box = isLive(value) ? new Prime(value) : MOVED;
+                if (SLOT.compareAndSet(vals, index, value, box)) {
+                    if (box == MOVED) {
+                        return true;
+                    }
+                    value = box;
+                    break;
+                }
+                value = SLOT.getVolatile(vals, index);
+            }
+            if (value == MOVED) {
+                return false;
+            }
+
+            // Копируем, только если в новом массиве у ключа еще нет значения.
+            Object frozen = ((Prime) value).value;
+            boolean copied = map.putIfMatch(next, key, key.hashCode(), frozen, null) == null;
+
+            while (value != MOVED && !SLOT.compareAndSet(vals, index, value, MOVED)) {
+                value = SLOT.getVolatile(vals, index);
+            }
+            return copied;
+        }
+
+        /* Переносит порцию из COPY_CHUNK ячеек, а при copyAll – все ячейки до конца.
+         * Если все порции уже разобраны, но перенос не закончен (другой поток отстал),
+         * поток переносит ячейки сам, проходя массив целиком.
+         */
+        void copyChunk(NonBlockingDoubleHashTable<?, ?> map, boolean copyAll) {
+            int chunk = Math.min(capacity, COPY_CHUNK);
+            boolean panic = false;
+            int start = 0;
+            while (copyDone.get() < capacity) {
+                if (!panic) {
+                    start = copyIndex.getAndAdd(chunk);
+                    if (start >= capacity) {
+                        panic = true;
+                        start = 0;
+                    }
+                }
+                int end = panic ? capacity : Math.min(capacity, start + chunk);
+                int work = 0;
+                for (int i = start; i < end; i++) {
+                    if (copySlot(map, i)) {
+                        work++;
+                    }
+                }
+                copyCheckAndPromote(map, work);
+                if (!copyAll && !panic) {
+                    return;
+                }
+            }
+            copyCheckAndPromote(map, 0);
+        }
+
+        // Учитывает перенесенные ячейки и, если перенос закончен, делает следующий массив верхним.
+        void copyCheckAndPromote(NonBlockingDoubleHashTable<?, ?> map, int work) {
+            int done = work > 0 ? copyDone.addAndGet(work) : copyDone.get();
+            if (done == capacity) {
+                TOP.compareAndSet(map, this, next);
+            }
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator(settledTop());
+        }
+
+        @Override
+        public int size() {
+            return NonBlockingDoubleHashTable.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Object value = get(entry.getKey());
+            return value != null && value.equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return NonBlockingDoubleHashTable.this.remove(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void clear() {
+            NonBlockingDoubleHashTable.this.clear();
+        }
+    }
+
+    /* Итератор по ключам массива, который был верхним при создании итератора (после завершения переноса).
+     * Значение каждого ключа читается через get, поэтому учитываются и записи, уже перенесенные дальше.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final Table table;
+        private int index = 0;
+        private K nextKey;
+        private V nextValue;
+        private K lastKey;
+
+        EntryIterator(Table table) {
+            this.table = table;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            while (nextKey == null && index < table.capacity) {
+                Object key = SLOT.getVolatile(table.keys, index++);
+                if (key != null && key != TOMBSTONE) {
+                    V value = get(key);
+                    if (value != null) {
+                        nextKey = (K) key;
+                        nextValue = value;
+                    }
+                }
+            }
+            return nextKey != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> entry = new WriteThroughEntry(nextKey, nextValue);
+            lastKey = nextKey;
+            nextKey = null;
+            nextValue = null;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            NonBlockingDoubleHashTable.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    // Запись итератора; setValue записывает значение в таблицу.
+    private final class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            Objects.requireNonNull(value);
+            V old = super.setValue(value);
+            NonBlockingDoubleHashTable.this.put(getKey(), value);
+            return old;
+        }
+    }
+
+}
@@ -0,0 +1,382 @@
+package org.example;
+
+import java.io.Closeable;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/* Хэш-таблица с двойным хешированием для ключей и значений byte[], хранящая все данные вне кучи.
+ * Ячейки и байты записей лежат в прямых (direct) буферах, поэтому сборщик мусора не обходит их содержимое,
+ * а занятая память точно известна (offHeapBytes). Используется та же последовательность проб, что и в HashTable.
+ *
+ * Ячейка занимает SLOT_BYTES байт: состояние, hashCode ключа, смещение записи в области данных,
+ * длина ключа и длина значения. Запись – байты ключа, за которыми идут байты значения.
+ * Область данных заполняется только дописыванием; место удаленных и перезаписанных записей
+ * возвращается, когда область заполнена, а мусора в ней больше, чем живых данных.
+ * Размер области данных ограничен Integer.MAX_VALUE байт.
+ *
+ * Память буферов освобождает сборщик мусора, когда на них не остается ссылок: close() отпускает буферы,
+ * после чего таблицей пользоваться нельзя, а прежние буферы при перехешировании отпускаются сразу.
+ * Явного освобождения нет, потому что в стандартном API его нет (только sun.misc.Unsafe);
+ * объем прямой памяти ограничивает -XX:MaxDirectMemorySize.
+ * Класс не потокобезопасен.
+ */
+public class OffHeapDoubleHashTable implements Closeable {
+
+    private static final int SLOT_BYTES = 20;
+    private static final int STATE = 0;
+    private static final int HASH = 4;
+    private static final int OFFSET = 8;
+    private static final int KEY_LENGTH = 12;
+    private static final int VALUE_LENGTH = 16;
+
+    private static final int FREE = 0;
+    private static final int LIVE = 1;
+    private static final int REMOVED = 2;
+
+    private int size = 0;
+    private int capacity;
+    private final float loadFactor;
+    private int maxProbe = 0;
+    private int tombstones = 0;
+
+    private ByteBuffer slots;
+    private ByteBuffer data;
+    // Конец занятой части области данных и количество байт в ней, не принадлежащих живым записям.
+    private int dataEnd = 0;
+    private int garbageBytes = 0;
+
+    /* Создает новую пустую таблицу.
+     * Параметры:
+     * capacity – начальное количество ячеек.
+     * loadFactor – коэффициент загрузки.
+     * dataCapacity – начальный размер области данных в байтах.
+     * Бросает:
+     * Исключение IllegalArgumentException – если емкость или размер области данных отрицательные
+     * или если коэффициент загрузки не лежит в (0, 1).
+     */
+    public OffHeapDoubleHashTable(int capacity, float loadFactor, int dataCapacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal Load: " + loadFactor);
+        }
+        if (dataCapacity < 0) {
+            throw new IllegalArgumentException("Illegal data capacity: " + dataCapacity);
+        }
+        this.loadFactor = loadFactor;
+        this.capacity = DoubleHashing.tableSizeFor(capacity);
+        slots = allocate(slotBytes(this.capacity));
+        data = allocate(Math.max(dataCapacity, 64));
+    }
+
+    // Создает новую пустую таблицу с 16 ячейками, коэффициентом загрузки 0,75 и областью данных в 1 КБ.
+    public OffHeapDoubleHashTable() {
+        this(16, 0.75f, 1024);
+    }
+
+    // Возвращает количество ключей.
+    public int size() {
+        return size;
+    }
+
+    // Проверяет, пуста ли таблица.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Возвращает количество байт, занятых таблицей вне кучи.
+    public long offHeapBytes() {
+        ensureOpen();
+        return (long) slots.capacity() + data.capacity();
+    }
+
+    // Проверяет, содержится ли ключ.
+    public boolean containsKey(byte[] key) {
+        return containsKey(ByteBuffer.wrap(key));
+    }
+
+    // Проверяет, содержится ли ключ, заданный оставшимися байтами буфера. Позиция буфера не меняется.
+    public boolean containsKey(ByteBuffer key) {
+        ensureOpen();
+        return find(key, hash(key)) >= 0;
+    }
+
+    // Возвращает копию значения ключа или null, если ключа нет.
+    public byte[] get(byte[] key) {
+        ensureOpen();
+        ByteBuffer keyBuffer = ByteBuffer.wrap(key);
+        int index = find(keyBuffer, hash(keyBuffer));
+        if (index < 0) {
+            return null;
+        }
+        int slot = index * SLOT_BYTES;
+        byte[] value = new byte[slots.getInt(slot + VALUE_LENGTH)];
+        int valueOffset = slots.getInt(slot + OFFSET) + slots.getInt(slot + KEY_LENGTH);
+        data.duplicate().position(valueOffset).get(value);
+        return value;
+    }
+
+    /* Копирует значение ключа в буфер out начиная с его позиции, не выделяя памяти.
+     * Возвращает длину значения или -1, если ключа нет.
+     * Бросает:
+     * Исключение java.nio.BufferOverflowException – если в out не хватает места.
+     */
+    public int get(ByteBuffer key, ByteBuffer out) {
+        ensureOpen();
+        int index = find(key, hash(key));
+        if (index < 0) {
+            return -1;
+        }
+        int slot = index * SLOT_BYTES;
+        int valueLength = slots.getInt(slot + VALUE_LENGTH);
+        int valueOffset = slots.getInt(slot + OFFSET) + slots.getInt(slot + KEY_LENGTH);
+        if (out.remaining() < valueLength) {
+            throw new BufferOverflowException();
+        }
+        copy(data, valueOffset, out, out.position(), valueLength);
+        out.position(out.position() + valueLength);
+        return valueLength;
+    }
+
+    // Сопоставляет ключу значение. Возвращает true, если ключ уже был в таблице.
+    public boolean put(byte[] key, byte[] value) {
+        return put(ByteBuffer.wrap(key), ByteBuffer.wrap(value));
+    }
+
+    // Сопоставляет ключу значение, заданные оставшимися байтами буферов. Позиции буферов не меняются.
+    // Возвращает true, если ключ уже был в таблице.
+    public boolean put(ByteBuffer key, ByteBuffer value) {
+        ensureOpen();
+        int hash = hash(key);
+        int index = find(key, hash);
+        boolean present = index >= 0;
+        if (!present && size + tombstones + 1 >= loadFactor * capacity) {
+            rehash(tombstones > size / 2 ? capacity : DoubleHashing.grow(capacity));
+        }
+        // Запись дописывается до изменения ячеек и счетчиков: если места не хватит, таблица останется прежней.
+        int offset = append(key, value);
+        int oldLength = 0;
+        if (present) {
+            int slot = index * SLOT_BYTES;
+            oldLength = slots.getInt(slot + KEY_LENGTH) + slots.getInt(slot + VALUE_LENGTH);
+        } else {
+            index = findEmptyIndex(hash);
+            size++;
+        }
+
+        int slot = index * SLOT_BYTES;
+        slots.putInt(slot + STATE, LIVE);
+        slots.putInt(slot + HASH, hash);
+        slots.putInt(slot + OFFSET, offset);
+        slots.putInt(slot + KEY_LENGTH, key.remaining());
+        slots.putInt(slot + VALUE_LENGTH, value.remaining());
+        garbageBytes += oldLength;
+        return present;
+    }
+
+    // Удаляет ключ. Возвращает true, если ключ был в таблице.
+    public boolean remove(byte[] key) {
+        return remove(ByteBuffer.wrap(key));
+    }
+
+    // Удаляет ключ, заданный оставшимися байтами буфера. Возвращает true, если ключ был в таблице.
+    public boolean remove(ByteBuffer key) {
+        ensureOpen();
+        int index = find(key, hash(key));
+        if (index < 0) {
+            return false;
+        }
+        int slot = index * SLOT_BYTES;
+        garbageBytes += slots.getInt(slot + KEY_LENGTH) + slots.getInt(slot + VALUE_LENGTH);
+        slots.putInt(slot + STATE, REMOVED);
+        size--;
+        tombstones++;
+        return true;
+    }
+
+    // Очищает таблицу, сохраняя выделенную память.
+    public void clear() {
+        ensureOpen();
+        for (int i = 0; i < capacity; i++) {
+            slots.putInt(i * SLOT_BYTES + STATE, FREE);
+        }
+        size = 0;
+        maxProbe = 0;
+        tombstones = 0;
+        dataEnd = 0;
+        garbageBytes = 0;
+    }
+
+    // Отпускает буферы вне кучи, их память вернет сборщик мусора. Повторный вызов ничего не делает.
+    @Override
+    public void close() {
+        if (slots == null) {
+            return;
+        }
+        slots = null;
+        data = null;
+        size = 0;
+    }
+
+    // hashCode ключа по тем же правилам, что Arrays.hashCode(byte[]).
+    private static int hash(ByteBuffer key) {
+        int hash = 1;
+        for (int i = key.position(); i < key.limit(); i++) {
+            hash = 31 * hash + key.get(i);
+        }
+        return hash;
+    }
+
+    // Поиск ключа: до первой свободной ячейки, но не дальше maxProbe проб.
+    private int find(ByteBuffer key, int hash) {
+        int index = DoubleHashing.start(hash, capacity);
+        int step = DoubleHashing.step(hash, capacity);
+        for (int n = 0; n <= maxProbe; n++, index = DoubleHashing.next(index, step, capacity)) {
+            int slot = index * SLOT_BYTES;
+            int state = slots.getInt(slot + STATE);
+            if (state == FREE) {
+                return -1;
+            }
+            if (state == LIVE && slots.getInt(slot + HASH) == hash && keyEquals(slot, key)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /* Сравнивает ключ записи в ячейке с оставшимися байтами буфера, по 8 байт за шаг.
+     * Чтение идет через копию буфера с порядком байт области данных, сам буфер вызывающего не меняется.
+     */
+    private boolean keyEquals(int slot, ByteBuffer key) {
+        int length = key.remaining();
+        if (slots.getInt(slot + KEY_LENGTH) != length) {
+            return false;
+        }
+        int offset = slots.getInt(slot + OFFSET);
+        int position = key.position();
+        ByteBuffer view = key.duplicate().order(data.order());
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            if (data.getLong(offset + i) != view.getLong(position + i)) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            if (data.get(offset + i) != view.get(position + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Возвращает первую свободную или удаленную ячейку последовательности ключа.
+    private int findEmptyIndex(int hash) {
+        int index = DoubleHashing.start(hash, capacity);
+        int step = DoubleHashing.step(hash, capacity);
+        for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+            int state = slots.getInt(index * SLOT_BYTES + STATE);
+            if (state != LIVE) {
+                if (state == REMOVED) {
+                    tombstones--;
+                }
+                maxProbe = Math.max(maxProbe, n);
+                return index;
+            }
+        }
+    }
+
+    // Дописывает запись в область данных и возвращает ее смещение.
+    private int append(ByteBuffer key, ByteBuffer value) {
+        int length = key.remaining() + value.remaining();
+        if ((long) dataEnd + length > data.capacity()) {
+            growData(length);
+        }
+        int offset = dataEnd;
+        copy(key, key.position(), data, offset, key.remaining());
+        copy(value, value.position(), data, offset + key.remaining(), value.remaining());
+        dataEnd += length;
+        return offset;
+    }
+
+    /* Копирует length байт между буферами по абсолютным позициям одной пакетной операцией.
+     * Копируются байты, поэтому порядок байт буферов не важен; позиции и пределы самих буферов не меняются.
+     */
+    private static void copy(ByteBuffer source, int from, ByteBuffer target, int to, int length) {
+        ByteBuffer range = source.duplicate();
+        range.limit(from + length).position(from);
+        target.duplicate().position(to).put(range);
+    }
+
+    /* Обеспечивает место для записи длиной length.
+     * Если мусора больше, чем живых данных, живые записи переписываются в новую область того же размера,
+     * иначе область данных удваивается.
+     */
+    private void growData(int length) {
+        long live = dataEnd - garbageBytes;
+        long required = live + length;
+        long newCapacity = data.capacity();
+        if (garbageBytes < live || required > newCapacity) {
+            newCapacity = Math.max(newCapacity * 2, required);
+        }
+        if (newCapacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap data region is limited to " + Integer.MAX_VALUE + " bytes");
+        }
+
+        ByteBuffer oldData = data;
+        data = allocate((int) newCapacity);
+        dataEnd = 0;
+        for (int i = 0; i < capacity; i++) {
+            int slot = i * SLOT_BYTES;
+            if (slots.getInt(slot + STATE) == LIVE) {
+                int offset = slots.getInt(slot + OFFSET);
+                int recordLength = slots.getInt(slot + KEY_LENGTH) + slots.getInt(slot + VALUE_LENGTH);
+                copy(oldData, offset, data, dataEnd, recordLength);
+                slots.putInt(slot + OFFSET, dataEnd);
+                dataEnd += recordLength;
+            }
+        }
+        garbageBytes = 0;
+    }
+
+    // Переносит живые ячейки в новый массив ячеек заданной емкости; записи в области данных не перемещаются.
+    private void rehash(int newCapacity) {
+        ByteBuffer oldSlots = slots;
+        int oldCapacity = capacity;
+        capacity = newCapacity;
+        slots = allocate(slotBytes(capacity));
+        maxProbe = 0;
+        tombstones = 0;
+        for (int i = 0; i < oldCapacity; i++) {
+            int oldSlot = i * SLOT_BYTES;
+            if (oldSlots.getInt(oldSlot + STATE) == LIVE) {
+                int slot = findEmptyIndex(oldSlots.getInt(oldSlot + HASH)) * SLOT_BYTES;
+                for (int field = 0; field < SLOT_BYTES; field += Integer.BYTES) {
+                    slots.putInt(slot + field, oldSlots.getInt(oldSlot + field));
+                }
+            }
+        }
+    }
+
+    // Размер массива ячеек в байтах.
+    private static int slotBytes(int capacity) {
+        long bytes = (long) capacity * SLOT_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many slots: " + capacity);
+        }
+        return (int) bytes;
+    }
+
+    private void ensureOpen() {
+        if (slots == null) {
+            throw new IllegalStateException("OffHeapDoubleHashTable is closed");
+        }
+    }
+
+    // Выделяет обнуленный прямой буфер с порядком байт платформы.
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.example;
+
+/* Емкость – степень двойки. Начало берется из старших битов произведения хэш-значения
+ * на нечетную константу (multiply-shift), шаг – из старших битов другого произведения, сделанный нечетным:
+ * нечетный шаг взаимно прост с любой степенью двойки.
+ */
+final class PowerOfTwoProbeStrategy implements ProbeStrategy {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    @Override
+    public int tableSizeFor(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        int n = Math.max(capacity, 16);
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    @Override
+    public int maxCapacity() {
+        return MAX_CAPACITY;
+    }
+
+    @Override
+    public int start(int hash, int capacity) {
+        return (hash * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(capacity));
+    }
+
+    @Override
+    public int step(int hash, int capacity) {
+        return ((hash * 0x85EBCA6B) >>> (32 - Integer.numberOfTrailingZeros(capacity))) | 1;
+    }
+
+    @Override
+    public String toString() {
+        return "POWER_OF_TWO";
+    }
+
+}
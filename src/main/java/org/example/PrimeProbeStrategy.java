@@ -0,0 +1,62 @@
+package org.example;
+
+/* Емкость – простое число, поэтому любой шаг из [1, capacity) взаимно прост с ней.
+ * Начало и шаг приводятся к диапазону умножением на емкость и сдвигом на 32 бита (редукция Лемира),
+ * для шага берутся биты хэш-значения, перемешанные еще раз, чтобы шаг не зависел от начала.
+ */
+final class PrimeProbeStrategy implements ProbeStrategy {
+
+    // Наибольшее простое число, не превышающее предельную длину массива (Integer.MAX_VALUE - 8).
+    private static final int MAX_CAPACITY = 2147483629;
+
+    // Проверка числа на простоту.
+    private static boolean isPrime(int n) {
+        if (n % 2 == 0) {
+            return n == 2;
+        }
+        for (int d = 3; d <= n / d; d += 2) {
+            if (n % d == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Приводит 32 бита value к [0, range) без деления.
+    static int reduce(int value, int range) {
+        return (int) (((value & 0xFFFFFFFFL) * range) >>> 32);
+    }
+
+    @Override
+    public int tableSizeFor(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        int n = Math.max(capacity, 16);
+        while (!isPrime(n)) {
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public int maxCapacity() {
+        return MAX_CAPACITY;
+    }
+
+    @Override
+    public int start(int hash, int capacity) {
+        return reduce(hash, capacity);
+    }
+
+    @Override
+    public int step(int hash, int capacity) {
+        return 1 + reduce(Integer.rotateLeft(hash * 0x9E3779B9, 16), capacity - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "PRIME";
+    }
+
+}
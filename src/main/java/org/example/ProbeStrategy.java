@@ -0,0 +1,43 @@
+package org.example;
+
+/* Политика емкости и последовательности проб для двойного хеширования.
+ * Последовательность ключа: start, start + step, start + 2 * step, ... по модулю емкости.
+ * Шаг обязан лежать в [1, capacity) и быть взаимно простым с емкостью:
+ * тогда последовательность обходит все ячейки массива, и свободная ячейка всегда находится.
+ * Следующий индекс получается сложением с вычитанием емкости (DoubleHashing.next), без деления на каждой пробе.
+ */
+public interface ProbeStrategy {
+
+    // Простая емкость, начало и шаг через умножение со сдвигом (редукция Лемира). Используется по умолчанию.
+    ProbeStrategy PRIME = new PrimeProbeStrategy();
+
+    // Емкость – степень двойки, начало через multiply-shift, нечетный шаг.
+    ProbeStrategy POWER_OF_TWO = new PowerOfTwoProbeStrategy();
+
+    // Возвращает допустимую емкость не меньше заданной, но не больше maxCapacity().
+    int tableSizeFor(int capacity);
+
+    // Наибольшая допустимая емкость; по умолчанию – предельная длина массива.
+    default int maxCapacity() {
+        return Integer.MAX_VALUE - 8;
+    }
+
+    /* Возвращает емкость массива после роста: удвоенную, но не больше maxCapacity().
+     * Бросает:
+     * Исключение IllegalStateException – если емкость уже наибольшая.
+     */
+    default int grow(int capacity) {
+        int max = maxCapacity();
+        if (capacity >= max) {
+            throw new IllegalStateException("Table capacity cannot grow beyond " + max);
+        }
+        return tableSizeFor((int) Math.min(2L * capacity, max));
+    }
+
+    // Возвращает первую ячейку последовательности перемешанного хэш-значения, из [0, capacity).
+    int start(int hash, int capacity);
+
+    // Возвращает шаг последовательности из [1, capacity), взаимно простой с capacity.
+    int step(int hash, int capacity);
+
+}
@@ -0,0 +1,29 @@
+package org.example;
+
+/* Наблюдатель за ячейками HashTable (HashTable.setSlotListener).
+ * Вызывается синхронно из операции, изменившей таблицу, после того как ячейки приведены в согласованное состояние.
+ */
+interface SlotListener {
+
+    // В ячейку вставлена новая запись.
+    void inserted(int slot);
+
+    // Запись ячейки удалена; переданы ее прежние ключ и значение.
+    void removed(int slot, Object key, Object value);
+
+    // Значение записи ячейки заменено; передано прежнее значение.
+    void updated(int slot, Object oldValue);
+
+    /* Перестановка записей: после relocating(capacity) для каждой живой записи вызывается moved(from, to)
+     * (from – ячейка до перестановки, to – ячейка массива емкости capacity), затем relocated().
+     */
+    void relocating(int capacity);
+
+    void moved(int from, int to);
+
+    void relocated();
+
+    // Содержимое таблицы заменено целиком (clear, загрузка снимка).
+    void reloaded();
+
+}
@@ -0,0 +1,95 @@
+package org.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/* Преобразование ключей и значений в байты снимка (HashTableSnapshot) и обратно.
+ * decode читает length байт начиная с абсолютной позиции offset и не меняет позицию буфера,
+ * поэтому один отображенный буфер можно читать из нескольких потоков.
+ */
+public interface SnapshotCodec<T> {
+
+    /* Строки в UTF-8. Только с этим кодеком ключей снимок можно открыть как MappedStringTable.
+     * Непарный суррогат, как и в String.getBytes, записывается как '?'.
+     */
+    SnapshotCodec<String> STRING = new SnapshotCodec<>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer, int offset, int length) {
+            return new String(bytes(buffer, offset, length), StandardCharsets.UTF_8);
+        }
+    };
+
+    SnapshotCodec<Integer> INTEGER = new SnapshotCodec<>() {
+        @Override
+        public byte[] encode(Integer value) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer, int offset, int length) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    SnapshotCodec<Long> LONG = new SnapshotCodec<>() {
+        @Override
+        public byte[] encode(Long value) {
+            return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+        }
+
+        @Override
+        public Long decode(ByteBuffer buffer, int offset, int length) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    // Стандартная сериализация Java для любых Serializable объектов.
+    static <T extends Serializable> SnapshotCodec<T> serializable() {
+        return new SnapshotCodec<>() {
+            @Override
+            public byte[] encode(T value) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return bytes.toByteArray();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T decode(ByteBuffer buffer, int offset, int length) {
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes(buffer, offset, length)))) {
+                    return (T) in.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    // Копирует length байт буфера начиная с offset в новый массив.
+    static byte[] bytes(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return bytes;
+    }
+
+    // Возвращает байтовое представление значения.
+    byte[] encode(T value);
+
+    // Восстанавливает значение из length байт буфера начиная с абсолютной позиции offset.
+    T decode(ByteBuffer buffer, int offset, int length);
+
+}
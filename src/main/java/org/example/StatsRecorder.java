@@ -0,0 +1,58 @@
+package org.example;
+
+/* Счетчики инструментирования HashTable. Создаются только при включенной статистике,
+ * поэтому выключенная статистика стоит таблице одной проверки поля на null в каждой операции.
+ * Гистограммы проб: элемент i – количество операций с длиной пробы i (0 – ключ или свободная ячейка
+ * в первой ячейке последовательности), последний элемент учитывает все более длинные пробы.
+ */
+final class StatsRecorder {
+
+    static final int BUCKETS = 64;
+    /* Байт на одну запись в параллельных массивах: ссылки на ключ и значение и хэш-значение.
+     * Ссылка считается 4-байтовой (сжатые указатели, по умолчанию для куч до 32 ГБ); это оценка для статистики.
+     */
+    static final int REFERENCE_BYTES = 4;
+    static final int SLOT_BYTES = 2 * REFERENCE_BYTES + Integer.BYTES;
+
+    final long[] hits = new long[BUCKETS];
+    final long[] misses = new long[BUCKETS];
+    final long[] inserts = new long[BUCKETS];
+    long rehashCount;
+    long rehashNanos;
+    long maxRehashNanos;
+    long rehashBytes;
+    long compactionCount;
+    long compactionNanos;
+
+    void hit(int probe) {
+        hits[Math.min(probe, BUCKETS - 1)]++;
+    }
+
+    void miss(int probe) {
+        misses[Math.min(probe, BUCKETS - 1)]++;
+    }
+
+    void insert(int probe) {
+        inserts[Math.min(probe, BUCKETS - 1)]++;
+    }
+
+    // Учитывает перехеширование, перенесшее entries записей.
+    void rehash(long nanos, int entries) {
+        rehashCount++;
+        rehashNanos += nanos;
+        maxRehashNanos = Math.max(maxRehashNanos, nanos);
+        rehashBytes += (long) entries * SLOT_BYTES;
+    }
+
+    // Учитывает время очередной порции постепенного переноса.
+    void migrate(long nanos) {
+        rehashNanos += nanos;
+        maxRehashNanos = Math.max(maxRehashNanos, nanos);
+    }
+
+    void compaction(long nanos) {
+        compactionCount++;
+        compactionNanos += nanos;
+    }
+
+}
@@ -0,0 +1,511 @@
+package org.example;
+
+import java.util.Arrays;
+
+/* Хэш-таблица с двойным хешированием для строковых ключей, хранящихся без объектов String.
+ * Байты ключей в UTF-8 дописываются в общий массив arena, а ячейка хранит смещение и длину ключа (в одном long),
+ * hashCode строки и значение. Поиск сравнивает сохраненный hashCode, затем символы искомой строки прямо
+ * с байтами arena, поэтому проба читает примитивные массивы, а не переходит по ссылкам на String и byte[].
+ * Искать можно по любой CharSequence и по байтам UTF-8; строки ключей создаются только при обходе.
+ * Непарный суррогат кодируется тремя байтами, как обычный символ (WTF-8), поэтому любая строка
+ * восстанавливается без потерь; остальные строки хранятся в стандартном UTF-8.
+ * Байты удаленных ключей остаются в arena до ближайшего перехеширования или до момента, когда arena
+ * нужно расширять, а удаленные байты занимают ее половину. Суммарная длина ключей – до 2 ГБ.
+ * Значения null не допускаются. Использует ту же последовательность проб, что и HashTable.
+ */
+public class StringObjectDoubleHashTable<V> {
+
+    private static final long FREE = 0;
+    private static final long REMOVED = -1;
+    private static final int MAX_ARENA = Integer.MAX_VALUE - 8;
+
+    private int size = 0;
+    private int capacity;
+    private final float loadFactor;
+    // Ключ ячейки: (смещение в arena + 1) << 32 | длина в байтах; FREE – свободная ячейка, REMOVED – удаленная.
+    private long[] keys;
+    // hashCode ключа, совпадающий с String.hashCode.
+    private int[] hashes;
+    private Object[] vals;
+    private int maxProbe = 0;
+    private int tombstones = 0;
+    // Байты ключей: занято arenaLength байт, из них garbage – байты удаленных ключей.
+    private byte[] arena;
+    private int arenaLength;
+    private int garbage;
+
+    /* Создает новую пустую хэш-таблицу с заданной начальной емкостью и заданным коэффициентом загрузки.
+     * Бросает:
+     * Исключение IllegalArgumentException – если начальная емкость меньше нуля
+     * или если коэффициент загрузки не лежит в (0, 1).
+     */
+    public StringObjectDoubleHashTable(int capacity, float loadFactor) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal Load: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.capacity = DoubleHashing.tableSizeFor(capacity);
+        keys = new long[this.capacity];
+        hashes = new int[this.capacity];
+        vals = new Object[this.capacity];
+        arena = new byte[Math.max(64, this.capacity * 8)];
+    }
+
+    // Создает новую пустую хэш-таблицу с заданной начальной емкостью и коэффициентом загрузки по умолчанию (0,75).
+    public StringObjectDoubleHashTable(int capacity) {
+        this(capacity, 0.75f);
+    }
+
+    // Создает новую пустую хэш-таблицу с начальной емкостью по умолчанию (16) и коэффициентом загрузки (0,75).
+    public StringObjectDoubleHashTable() {
+        this(16, 0.75f);
+    }
+
+    // Возвращает количество ключей в этой хэш-таблице.
+    public int size() {
+        return size;
+    }
+
+    // Проверяет, пуста ли хэш-таблица.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Проверяет, является ли строка ключом в этой хэш-таблице.
+    public boolean containsKey(CharSequence key) {
+        return find(key, hash(key)) >= 0;
+    }
+
+    // Проверяет, является ли строка с данными байтами UTF-8 ключом в этой хэш-таблице.
+    public boolean containsKey(byte[] utf8) {
+        return containsKey(utf8, 0, utf8.length);
+    }
+
+    // То же для байтов utf8[offset, offset + length).
+    public boolean containsKey(byte[] utf8, int offset, int length) {
+        checkRange(utf8, offset, length);
+        return find(utf8, offset, length) >= 0;
+    }
+
+    // Возвращает значение, сопоставленное ключу, или null, если сопоставления нет.
+    public V get(CharSequence key) {
+        return getOrDefault(key, null);
+    }
+
+    // Возвращает значение, сопоставленное ключу с данными байтами UTF-8, или null, если сопоставления нет.
+    public V get(byte[] utf8) {
+        return get(utf8, 0, utf8.length);
+    }
+
+    // То же для байтов utf8[offset, offset + length).
+    public V get(byte[] utf8, int offset, int length) {
+        checkRange(utf8, offset, length);
+        int index = find(utf8, offset, length);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    // Возвращает значение, сопоставленное ключу, или defaultValue, если сопоставления нет.
+    public V getOrDefault(CharSequence key, V defaultValue) {
+        int index = find(key, hash(key));
+        return index >= 0 ? valueAt(index) : defaultValue;
+    }
+
+    /* Сопоставляет ключу значение и возвращает предыдущее значение или null, если ключа не было.
+     * Ключ копируется в arena, поэтому изменяемую CharSequence можно менять после вызова.
+     * Бросает:
+     * Исключение NullPointerException – если ключ или значение null.
+     * Исключение IllegalStateException – если байты ключей не помещаются в arena.
+     */
+    public V put(CharSequence key, V value) {
+        if (value == null) {
+            throw new NullPointerException("StringObjectDoubleHashTable does not permit null values");
+        }
+        int hash = hash(key);
+        int index = find(key, hash);
+        if (index >= 0) {
+            V old = valueAt(index);
+            vals[index] = value;
+            return old;
+        }
+        insert(key, hash, value);
+        return null;
+    }
+
+    // Удаляет ключ и возвращает его значение или null, если ключа не было.
+    public V remove(CharSequence key) {
+        int index = find(key, hash(key));
+        if (index < 0) {
+            return null;
+        }
+        V old = valueAt(index);
+        garbage += length(keys[index]);
+        keys[index] = REMOVED;
+        vals[index] = null;
+        size--;
+        tombstones++;
+        return old;
+    }
+
+    // Очищает эту хэш-таблицу, чтобы она не содержала ключей.
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(vals, null);
+        size = 0;
+        maxProbe = 0;
+        tombstones = 0;
+        arenaLength = 0;
+        garbage = 0;
+    }
+
+    // Выполняет действие для каждой пары ключ-значение; строка ключа создается для каждого вызова.
+    public void forEach(EntryConsumer<? super V> action) {
+        for (int i = 0; i < capacity; i++) {
+            long key = keys[i];
+            if (key != FREE && key != REMOVED) {
+                action.accept(decode(arena, offset(key), length(key)), valueAt(i));
+            }
+        }
+    }
+
+    // Возвращает количество байт arena, занятых ключами, включая байты еще не вычищенных удаленных ключей.
+    public long keyBytes() {
+        return arenaLength;
+    }
+
+    // Действие над парой ключ-значение.
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(String key, V value);
+    }
+
+    // Поиск ключа: до первой свободной ячейки, но не дальше maxProbe проб.
+    private int find(CharSequence key, int hash) {
+        int index = DoubleHashing.start(hash, capacity);
+        int step = DoubleHashing.step(hash, capacity);
+        for (int n = 0; n <= maxProbe; n++, index = DoubleHashing.next(index, step, capacity)) {
+            long candidate = keys[index];
+            if (candidate == FREE) {
+                return -1;
+            }
+            if (candidate != REMOVED && hashes[index] == hash && keyEquals(candidate, key)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    // Поиск ключа по байтам UTF-8: байты сравниваются с arena целиком.
+    private int find(byte[] utf8, int offset, int length) {
+        int hash = hash(utf8, offset, length);
+        int index = DoubleHashing.start(hash, capacity);
+        int step = DoubleHashing.step(hash, capacity);
+        for (int n = 0; n <= maxProbe; n++, index = DoubleHashing.next(index, step, capacity)) {
+            long candidate = keys[index];
+            if (candidate == FREE) {
+                return -1;
+            }
+            if (candidate != REMOVED && hashes[index] == hash && length(candidate) == length) {
+                int start = offset(candidate);
+                if (Arrays.equals(arena, start, start + length, utf8, offset, offset + length)) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Вставка отсутствующего ключа; при необходимости таблица растет или очищается от удаленных ячеек.
+    private void insert(CharSequence key, int hash, V value) {
+        if (size + tombstones + 1 >= loadFactor * capacity) {
+            rehash(tombstones > size / 2 ? capacity : DoubleHashing.grow(capacity));
+        }
+        int length = encodedLength(key);
+        reserve(length);
+        int offset = arenaLength;
+        encode(key, arena, offset);
+        arenaLength += length;
+
+        int index = findEmptyIndex(hash);
+        keys[index] = slot(offset, length);
+        hashes[index] = hash;
+        vals[index] = value;
+        size++;
+    }
+
+    /* Освобождает в arena место под length байт. Если arena заполнена, а удаленные ключи занимают
+     * ее половину, они сначала вычищаются перехешированием без роста; иначе arena растет вдвое.
+     */
+    private void reserve(int length) {
+        if ((long) arenaLength + length <= arena.length) {
+            return;
+        }
+        if (garbage >= arenaLength / 2) {
+            rehash(capacity);
+            if ((long) arenaLength + length <= arena.length) {
+                return;
+            }
+        }
+        long needed = (long) arenaLength + length;
+        if (needed > MAX_ARENA) {
+            throw new IllegalStateException("StringObjectDoubleHashTable key arena is full: " + needed + " bytes");
+        }
+        arena = Arrays.copyOf(arena, (int) Math.min(MAX_ARENA, Math.max(needed, (long) arena.length * 2)));
+    }
+
+    // Возвращает первую свободную или удаленную ячейку последовательности ключа.
+    private int findEmptyIndex(int hash) {
+        int index = DoubleHashing.start(hash, capacity);
+        int step = DoubleHashing.step(hash, capacity);
+        for (int n = 0; ; n++, index = DoubleHashing.next(index, step, capacity)) {
+            long candidate = keys[index];
+            if (candidate == FREE || candidate == REMOVED) {
+                if (candidate == REMOVED) {
+                    tombstones--;
+                }
+                maxProbe = Math.max(maxProbe, n);
+                return index;
+            }
+        }
+    }
+
+    /* Переносит живые записи в новый массив заданной емкости, удаленные ячейки отбрасываются.
+     * Если в arena есть байты удаленных ключей, живые ключи заодно переписываются в новую arena подряд.
+     */
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        Object[] oldVals = vals;
+        byte[] oldArena = arena;
+        boolean compactArena = garbage > 0;
+        if (compactArena) {
+            int live = arenaLength - garbage;
+            arena = new byte[(int) Math.min(MAX_ARENA, Math.max(64, live + (long) live / 2))];
+            arenaLength = 0;
+            garbage = 0;
+        }
+        capacity = newCapacity;
+        keys = new long[capacity];
+        hashes = new int[capacity];
+        vals = new Object[capacity];
+        maxProbe = 0;
+        tombstones = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE && key != REMOVED) {
+                if (compactArena) {
+                    int length = length(key);
+                    System.arraycopy(oldArena, offset(key), arena, arenaLength, length);
+                    key = slot(arenaLength, length);
+                    arenaLength += length;
+                }
+                int index = findEmptyIndex(oldHashes[i]);
+                keys[index] = key;
+                hashes[index] = oldHashes[i];
+                vals[index] = oldVals[i];
+            }
+        }
+    }
+
+    private static long slot(int offset, int length) {
+        return (long) (offset + 1) << 32 | length;
+    }
+
+    private static int offset(long slot) {
+        return (int) (slot >>> 32) - 1;
+    }
+
+    private static int length(long slot) {
+        return (int) slot;
+    }
+
+    /* Сравнивает символы key с байтами ключа в arena без декодирования.
+     * UTF-8 занимает от одного до трех байт на символ, поэтому ключ другой длины отбрасывается сразу.
+     */
+    private boolean keyEquals(long slot, CharSequence key) {
+        int position = offset(slot);
+        int length = length(slot);
+        int count = key.length();
+        if (length < count || length > 3 * count) {
+            return false;
+        }
+        byte[] arena = this.arena;
+        int end = position + length;
+        for (int i = 0; i < count; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                if (position >= end || arena[position++] != c) {
+                    return false;
+                }
+            } else if (c < 0x800) {
+                if (end - position < 2
+                        || arena[position++] != (byte) (0xC0 | c >> 6)
+                        || arena[position++] != (byte) (0x80 | c & 0x3F)) {
+                    return false;
+                }
+            } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(key.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, key.charAt(++i));
+                if (end - position < 4
+                        || arena[position++] != (byte) (0xF0 | codePoint >> 18)
+                        || arena[position++] != (byte) (0x80 | codePoint >> 12 & 0x3F)
+                        || arena[position++] != (byte) (0x80 | codePoint >> 6 & 0x3F)
+                        || arena[position++] != (byte) (0x80 | codePoint & 0x3F)) {
+                    return false;
+                }
+            } else {
+                if (end - position < 3
+                        || arena[position++] != (byte) (0xE0 | c >> 12)
+                        || arena[position++] != (byte) (0x80 | c >> 6 & 0x3F)
+                        || arena[position++] != (byte) (0x80 | c & 0x3F)) {
+                    return false;
+                }
+            }
+        }
+        return position == end;
+    }
+
+    // Возвращает длину key в байтах UTF-8 (непарный суррогат – три байта).
+    private static int encodedLength(CharSequence key) {
+        int count = key.length();
+        long length = count;
+        for (int i = 0; i < count; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x800) {
+                // Три байта на символ; суррогатная пара – четыре байта на два символа.
+                length += 2;
+                if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(key.charAt(i + 1))) {
+                    i++;
+                }
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        if (length > MAX_ARENA) {
+            throw new IllegalStateException("StringObjectDoubleHashTable key is too long: " + length + " bytes");
+        }
+        return (int) length;
+    }
+
+    // Записывает key в UTF-8 в bytes, начиная с position.
+    private static void encode(CharSequence key, byte[] bytes, int position) {
+        int count = key.length();
+        for (int i = 0; i < count; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | c >> 6);
+                bytes[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(key.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, key.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                bytes[position++] = (byte) (0xE0 | c >> 12);
+                bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    // Декодирует байты ключа в строку.
+    private static String decode(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; ) {
+            int b = bytes[i];
+            if (b >= 0) {
+                chars[count++] = (char) b;
+                i++;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | bytes[i + 1] & 0x3F);
+                i += 2;
+            } else if ((b & 0xF0) == 0xE0) {
+                chars[count++] = (char) ((b & 0x0F) << 12 | (bytes[i + 1] & 0x3F) << 6 | bytes[i + 2] & 0x3F);
+                i += 3;
+            } else {
+                int codePoint = (b & 0x07) << 18 | (bytes[i + 1] & 0x3F) << 12 | (bytes[i + 2] & 0x3F) << 6
+                        | bytes[i + 3] & 0x3F;
+                chars[count++] = Character.highSurrogate(codePoint);
+                chars[count++] = Character.lowSurrogate(codePoint);
+                i += 4;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    // hashCode строки по правилу String.hashCode; для String используется ее закэшированный hashCode.
+    private static int hash(CharSequence key) {
+        if (key instanceof String) {
+            return key.hashCode();
+        }
+        int hash = 0;
+        for (int i = 0, count = key.length(); i < count; i++) {
+            hash = 31 * hash + key.charAt(i);
+        }
+        return hash;
+    }
+
+    /* hashCode строки, закодированной байтами UTF-8: символы декодируются на ходу, строка не создается.
+     * Байты, которые не могут быть ключом таблицы (неполная или неверная последовательность), дают
+     * произвольный hashCode: такой ключ все равно не совпадет ни с одним ключом arena.
+     */
+    private static int hash(byte[] utf8, int offset, int length) {
+        int hash = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; ) {
+            int b = utf8[i];
+            if (b >= 0) {
+                hash = 31 * hash + b;
+                i++;
+            } else if ((b & 0xE0) == 0xC0 && end - i >= 2) {
+                hash = 31 * hash + ((b & 0x1F) << 6 | utf8[i + 1] & 0x3F);
+                i += 2;
+            } else if ((b & 0xF0) == 0xE0 && end - i >= 3) {
+                hash = 31 * hash + (char) ((b & 0x0F) << 12 | (utf8[i + 1] & 0x3F) << 6 | utf8[i + 2] & 0x3F);
+                i += 3;
+            } else if ((b & 0xF8) == 0xF0 && end - i >= 4) {
+                int codePoint = (b & 0x07) << 18 | (utf8[i + 1] & 0x3F) << 12 | (utf8[i + 2] & 0x3F) << 6
+                        | utf8[i + 3] & 0x3F;
+                hash = 31 * (31 * hash + Character.highSurrogate(codePoint)) + Character.lowSurrogate(codePoint);
+                i += 4;
+            } else {
+                hash = 31 * hash + 0xFFFD;
+                i++;
+            }
+        }
+        return hash;
+    }
+
+    private static void checkRange(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+                    + ") out of bounds for length " + bytes.length);
+        }
+    }
+
+    // Получение значения из ячейки.
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) vals[index];
+    }
+
+    // Возвращает строковое представление пар ключ-значение.
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+}
@@ -0,0 +1,301 @@
+package org.example;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/* Фоновый импорт и экспорт строковой таблицы в файлы CSV и TSV.
+ * Импорт: фоновый поток читает и разбирает файл порциями по CHUNK строк, а каждая порция вставляется
+ * в таблицу одним вызовом putAll в потоке JavaFX (таблица и HashTableRows принадлежат ему).
+ * Пока порция вставляется, разбирается следующая; изменения порции приходят в TableView одним событием.
+ * Перед первой вставкой таблица резервирует емкость под оценку числа строк по размеру файла.
+ * Экспорт пишет копию таблицы, снятую в потоке JavaFX, поэтому таблицу можно менять во время записи.
+ * Формат: одна запись на строку, ключ и значение через разделитель; поле с разделителем, кавычкой
+ * или переводом строки заключается в двойные кавычки, кавычка внутри удваивается.
+ */
+public final class TableTransfer {
+
+    // Количество строк в одной порции импорта.
+    static final int CHUNK = 8192;
+
+    public enum Format {
+        CSV(','),
+        TSV('\t');
+
+        final char delimiter;
+
+        Format(char delimiter) {
+            this.delimiter = delimiter;
+        }
+
+        // Формат по расширению файла: .tsv и .tab – TSV, остальные – CSV.
+        public static Format of(Path path) {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".tsv") || name.endsWith(".tab") ? TSV : CSV;
+        }
+    }
+
+    private TableTransfer() {
+    }
+
+    /* Возвращает задачу импорта файла в таблицу списка rows. Результат задачи – количество прочитанных записей.
+     * Строки, в которых меньше двух полей, пропускаются; поля после второго игнорируются.
+     */
+    public static Task<Long> importTask(Path path, HashTableRows<String, String> rows) {
+        return new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                long fileSize = Files.size(path);
+                long started = System.nanoTime();
+                long records = 0;
+                long skipped = 0;
+                FutureTask<Void> applying = null;
+                try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(path));
+                     FieldReader reader = new FieldReader(new InputStreamReader(counter, StandardCharsets.UTF_8),
+                             Format.of(path).delimiter)) {
+                    String[] fields = new String[2];
+                    boolean first = true;
+                    while (!isCancelled()) {
+                        String[] keys = new String[CHUNK];
+                        String[] values = new String[CHUNK];
+                        int count = 0;
+                        int read;
+                        while (count < CHUNK && (read = reader.readRecord(fields)) >= 0) {
+                            if (read < 2) {
+                                skipped++;
+                                continue;
+                            }
+                            keys[count] = fields[0];
+                            values[count] = fields[1];
+                            count++;
+                        }
+                        if (count == 0) {
+                            break;
+                        }
+                        // Оценка числа строк по средней длине уже прочитанных.
+                        long expected = first ? fileSize * count / Math.max(1, counter.count) : 0;
+                        first = false;
+
+                        await(applying);
+                        applying = apply(rows, trim(keys, count), trim(values, count), expected);
+                        records += count;
+                        updateProgress(counter.count, fileSize);
+                        updateMessage(status("Imported", records, started) + (skipped > 0 ? ", skipped " + skipped : ""));
+                    }
+                    await(applying);
+                }
+                updateProgress(fileSize, fileSize);
+                return records;
+            }
+        };
+    }
+
+    /* Возвращает задачу экспорта таблицы списка rows в файл. Результат задачи – количество записанных записей.
+     * Задачу нужно запускать из потока JavaFX или после того, как таблица перестала меняться:
+     * копия таблицы снимается при создании задачи.
+     */
+    public static Task<Long> exportTask(Path path, HashTableRows<String, String> rows) {
+        HashTable<String, String> copy = rows.getTable().copy();
+        return new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                char delimiter = Format.of(path).delimiter;
+                long total = copy.size();
+                long started = System.nanoTime();
+                long written = 0;
+                try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                    MapCursor<String, String> cursor = copy.cursor();
+                    while (cursor.advance()) {
+                        writeField(writer, cursor.key(), delimiter);
+                        writer.write(delimiter);
+                        writeField(writer, cursor.value(), delimiter);
+                        writer.write('\n');
+                        if (++written % CHUNK == 0) {
+                            if (isCancelled()) {
+                                break;
+                            }
+                            updateProgress(written, total);
+                            updateMessage(status("Exported", written, started));
+                        }
+                    }
+                }
+                updateProgress(total, total);
+                updateMessage(status("Exported", written, started));
+                return written;
+            }
+        };
+    }
+
+    // Передает порцию в поток JavaFX: резервирует емкость и вставляет записи одним событием списка.
+    private static FutureTask<Void> apply(HashTableRows<String, String> rows, String[] keys, String[] values,
+                                          long expected) {
+        FutureTask<Void> task = new FutureTask<>(() -> rows.batch(() -> {
+            HashTable<String, String> table = rows.getTable();
+            if (expected > 0) {
+                table.ensureCapacity((int) Math.min(Integer.MAX_VALUE - 8, table.size() + expected));
+            }
+            table.putAll(keys, values);
+        }), null);
+        Platform.runLater(task);
+        return task;
+    }
+
+    // Ждет вставки предыдущей порции, чтобы очередь потока JavaFX не росла быстрее, чем он ее разбирает.
+    private static void await(FutureTask<Void> task) throws InterruptedException, IOException {
+        if (task == null) {
+            return;
+        }
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed", e.getCause());
+        }
+    }
+
+    private static String[] trim(String[] array, int length) {
+        if (array.length == length) {
+            return array;
+        }
+        String[] trimmed = new String[length];
+        System.arraycopy(array, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    private static String status(String action, long records, long started) {
+        double seconds = Math.max(1e-9, (System.nanoTime() - started) / 1e9);
+        return String.format(Locale.ROOT, "%s %,d rows, %,.0f rows/s", action, records, records / seconds);
+    }
+
+    // Пишет поле, заключая его в кавычки, если в нем есть разделитель, кавычка или перевод строки.
+    static void writeField(Writer writer, String field, char delimiter) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    // Разбор записей с разделителем и полями в двойных кавычках (в том числе многострочными).
+    static final class FieldReader implements Closeable {
+        private final Reader reader;
+        private final char delimiter;
+        private final StringBuilder field = new StringBuilder();
+        private final char[] buffer = new char[1 << 16];
+        private int position;
+        private int limit;
+
+        FieldReader(Reader reader, char delimiter) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+        }
+
+        /* Читает следующую непустую запись; первые fields.length полей записываются в fields.
+         * Возвращает количество полей записи или -1 в конце файла.
+         */
+        int readRecord(String[] fields) throws IOException {
+            int c;
+            // Пустые строки пропускаются.
+            while ((c = read()) == '\n' || c == '\r') {
+            }
+            if (c < 0) {
+                return -1;
+            }
+            int count = 0;
+            while (true) {
+                field.setLength(0);
+                if (c == '"') {
+                    while (true) {
+                        c = read();
+                        if (c < 0) {
+                            break;
+                        }
+                        if (c == '"') {
+                            c = read();
+                            if (c != '"') {
+                                break;
+                            }
+                        }
+                        field.append((char) c);
+                    }
+                }
+                while (c >= 0 && c != delimiter && c != '\n' && c != '\r') {
+                    field.append((char) c);
+                    c = read();
+                }
+                if (count < fields.length) {
+                    fields[count] = field.toString();
+                }
+                count++;
+                if (c != delimiter) {
+                    return count;
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    // Поток, считающий прочитанные байты для индикатора прогресса.
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package org.example;
+
+/* Источник времени для истечения записей HashTable (setExpireAfterWrite, put с ttl).
+ * Возвращает наносекунды от произвольной точки отсчета; значения не должны уменьшаться.
+ * В тестах можно подставить ручные часы, которые двигаются только по команде.
+ */
+@FunctionalInterface
+public interface Ticker {
+
+    // System.nanoTime(). Используется по умолчанию.
+    Ticker SYSTEM = System::nanoTime;
+
+    long nanos();
+
+}
@@ -0,0 +1,155 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/* Иерархическое колесо таймеров для истечения записей HashTable.
+ * LEVELS уровней по BUCKETS корзин; корзина уровня i охватывает 2^SHIFTS[i] нс (около 1 мс на нижнем уровне,
+ * около 4,9 ч на верхнем). Запись попадает на нижний уровень, чей полный оборот еще вмещает время до ее срока;
+ * сроки дальше верхнего уровня раскладываются по его корзинам по модулю и перекладываются при обходе.
+ * Корзины – двусвязные списки индексов ячеек в массивах next и prev, поэтому постановка, снятие
+ * и перекладывание записи занимают O(1) и ничего не выделяют. Продвижение времени обходит только корзины,
+ * время которых прошло (не больше BUCKETS на уровень): записи с истекшим сроком удаляются, остальные
+ * перекладываются на более низкий уровень. Каждая запись перекладывается не больше LEVELS раз,
+ * поэтому на запись приходится O(1) амортизированной работы.
+ */
+final class TimingWheel {
+
+    static final int LEVELS = 5;
+    static final int BUCKETS = 64;
+    static final int[] SHIFTS = {20, 26, 32, 38, 44};
+    // Список ячеек, срок которых уже прошел при постановке; обходится при каждом продвижении.
+    private static final int DUE = LEVELS * BUCKETS;
+
+    // Первая ячейка каждой корзины (и списка DUE) или -1.
+    private final int[] heads = new int[LEVELS * BUCKETS + 1];
+    // Следующая ячейка списка или -1; предыдущая ячейка, -(корзина + 2) у первой ячейки, -1 вне колеса.
+    private int[] next;
+    private int[] prev;
+    // Время, до которого колесо продвинуто, нс.
+    private long time;
+    private int size;
+
+    TimingWheel(int capacity, long now) {
+        time = now;
+        reset(capacity);
+    }
+
+    // Удаляет все записи и приводит колесо к заданной емкости таблицы.
+    void reset(int capacity) {
+        Arrays.fill(heads, -1);
+        next = new int[capacity];
+        prev = new int[capacity];
+        Arrays.fill(prev, -1);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Ставит ячейку в корзину по ее сроку deadline; если ячейка уже стоит в колесе, сначала снимает ее.
+    void schedule(int slot, long deadline) {
+        cancel(slot);
+        int bucket = bucketFor(deadline);
+        int head = heads[bucket];
+        next[slot] = head;
+        prev[slot] = -(bucket + 2);
+        if (head >= 0) {
+            prev[head] = slot;
+        }
+        heads[bucket] = slot;
+        size++;
+    }
+
+    // Снимает ячейку с колеса, если она там стоит.
+    void cancel(int slot) {
+        int before = prev[slot];
+        if (before == -1) {
+            return;
+        }
+        int after = next[slot];
+        if (before >= 0) {
+            next[before] = after;
+        } else {
+            heads[-(before + 2)] = after;
+        }
+        if (after >= 0) {
+            prev[after] = before;
+        }
+        prev[slot] = -1;
+        size--;
+    }
+
+    // Проверяет, есть ли работа для advance(now, ..., false): начался новый тик нижнего уровня или есть ячейки DUE.
+    boolean due(long now) {
+        return heads[DUE] >= 0 || now - time > 0 && (now >>> SHIFTS[0]) != (time >>> SHIFTS[0]);
+    }
+
+    /* Продвигает колесо до now. Для каждой ячейки с deadlines[ячейка] <= now вызывается expired
+     * (ячейка к этому моменту уже снята с колеса), остальные ячейки пройденных корзин перекладываются.
+     * Обходятся только корзины нижнего уровня, тик которых целиком прошел, и список DUE, поэтому продвижение
+     * в пределах одного тика ничего не стоит, а запись из текущей корзины удаляется не позже чем через тик
+     * после срока. exact – обойти и текущую корзину нижнего уровня, чтобы удалить все записи со сроком до now;
+     * это стоит пропорционально ее заполненности и нужно только явному expire().
+     */
+    void advance(long now, long[] deadlines, IntConsumer expired, boolean exact) {
+        long previous = time;
+        if (now - previous < 0) {
+            return;
+        }
+        time = now;
+        for (int level = 0; level < LEVELS; level++) {
+            long previousTicks = previous >>> SHIFTS[level];
+            long currentTicks = now >>> SHIFTS[level];
+            long delta = currentTicks - previousTicks;
+            int steps;
+            if (level == 0) {
+                steps = (int) Math.min(exact ? delta + 1 : delta, BUCKETS);
+            } else if (delta > 0) {
+                // Корзина нового тика верхнего уровня перекладывается на нижние уровни.
+                steps = (int) Math.min(delta + 1, BUCKETS);
+            } else {
+                break;
+            }
+            int start = (int) (previousTicks & (BUCKETS - 1));
+            for (int i = 0; i < steps; i++) {
+                expire(level * BUCKETS + ((start + i) & (BUCKETS - 1)), now, deadlines, expired);
+            }
+        }
+        if (heads[DUE] >= 0) {
+            expire(DUE, now, deadlines, expired);
+        }
+    }
+
+    // Забирает список корзины целиком, чтобы переложенные обратно в нее ячейки не обходились повторно.
+    private void expire(int bucket, long now, long[] deadlines, IntConsumer expired) {
+        int slot = heads[bucket];
+        heads[bucket] = -1;
+        while (slot >= 0) {
+            int following = next[slot];
+            prev[slot] = -1;
+            size--;
+            if (deadlines[slot] - now <= 0) {
+                expired.accept(slot);
+            } else {
+                schedule(slot, deadlines[slot]);
+            }
+            slot = following;
+        }
+    }
+
+    private int bucketFor(long deadline) {
+        long duration = deadline - time;
+        if (duration <= 0) {
+            return DUE;
+        }
+        for (int level = 0; level < LEVELS - 1; level++) {
+            if (duration < 1L << (SHIFTS[level] + 6)) {
+                return level * BUCKETS + (int) ((deadline >>> SHIFTS[level]) & (BUCKETS - 1));
+            }
+        }
+        return (LEVELS - 1) * BUCKETS + (int) ((deadline >>> SHIFTS[LEVELS - 1]) & (BUCKETS - 1));
+    }
+
+}
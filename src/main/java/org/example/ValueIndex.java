@@ -0,0 +1,158 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+/* Обратный индекс значение -> ключи для HashTable (setValueIndexEnabled).
+ * Индекс – сама HashTable: значение с одним ключом отображается прямо в этот ключ,
+ * значение с несколькими ключами – в Keys. Для уникальных значений индекс не выделяет объектов на запись
+ * и занимает три ячейки массивов на значение (ключ, значение, хэш).
+ */
+final class ValueIndex {
+
+    // Количество ключей одного значения, до которого они хранятся в массиве с линейным поиском.
+    static final int SMALL = 8;
+
+    /* Ключи значения, которое сопоставлено нескольким ключам таблицы: до SMALL ключей – в массиве,
+     * дальше – в отдельной таблице, чтобы удаление ключа из большой группы не было линейным.
+     */
+    private static final class Keys {
+        private Object[] array = new Object[4];
+        private int count;
+        private HashTable<Object, Boolean> table;
+
+        void add(Object key) {
+            if (table != null) {
+                table.put(key, Boolean.TRUE);
+                return;
+            }
+            if (count == array.length) {
+                if (count == SMALL) {
+                    table = new HashTable<>();
+                    table.ensureCapacity(SMALL * 2);
+                    for (Object k : array) {
+                        table.put(k, Boolean.TRUE);
+                    }
+                    table.put(key, Boolean.TRUE);
+                    array = null;
+                    return;
+                }
+                array = Arrays.copyOf(array, count * 2);
+            }
+            array[count++] = key;
+        }
+
+        void remove(Object key) {
+            if (table != null) {
+                table.remove(key);
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                if (array[i].equals(key)) {
+                    array[i] = array[--count];
+                    array[count] = null;
+                    return;
+                }
+            }
+        }
+
+        int size() {
+            return table != null ? table.size() : count;
+        }
+
+        Object any() {
+            return table != null ? table.keySet().iterator().next() : array[0];
+        }
+
+        @SuppressWarnings("unchecked")
+        <K> Set<K> copy() {
+            if (table != null) {
+                return Collections.unmodifiableSet((Set<K>) table.copy().keySet());
+            }
+            HashTable<Object, Boolean> copy = new HashTable<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                copy.put(array[i], Boolean.TRUE);
+            }
+            return Collections.unmodifiableSet((Set<K>) copy.keySet());
+        }
+    }
+
+    private final HashTable<Object, Object> keysByValue;
+
+    ValueIndex(int expectedSize) {
+        keysByValue = new HashTable<>();
+        keysByValue.ensureCapacity(expectedSize);
+    }
+
+    // Добавляет ключ key к ключам значения value.
+    void add(Object value, Object key) {
+        Object current = keysByValue.putIfAbsent(value, key);
+        if (current == null) {
+            return;
+        }
+        if (current instanceof Keys) {
+            ((Keys) current).add(key);
+        } else {
+            Keys keys = new Keys();
+            keys.add(current);
+            keys.add(key);
+            keysByValue.put(value, keys);
+        }
+    }
+
+    // Удаляет ключ key из ключей значения value; значение без ключей удаляется из индекса.
+    void remove(Object value, Object key) {
+        Object current = keysByValue.get(value);
+        if (current instanceof Keys) {
+            Keys keys = (Keys) current;
+            keys.remove(key);
+            if (keys.size() == 1) {
+                // Последний ключ снова хранится прямо в индексе.
+                keysByValue.put(value, keys.any());
+            }
+        } else if (current != null) {
+            keysByValue.remove(value);
+        }
+    }
+
+    boolean contains(Object value) {
+        return keysByValue.containsKey(value);
+    }
+
+    // Возвращает один из ключей значения или null, если значения нет.
+    Object key(Object value) {
+        Object current = keysByValue.get(value);
+        return current instanceof Keys ? ((Keys) current).any() : current;
+    }
+
+    // Возвращает неизменяемую копию ключей значения или null, если значения нет.
+    <K> Set<K> keys(Object value) {
+        Object current = keysByValue.get(value);
+        return current == null ? null : keysOf(current);
+    }
+
+    // Обходит значения индекса и их ключи.
+    MapCursor<Object, Object> cursor() {
+        return keysByValue.cursor();
+    }
+
+    // Количество различных значений.
+    int size() {
+        return keysByValue.size();
+    }
+
+    void clear() {
+        keysByValue.clear();
+    }
+
+    // Превращает элемент индекса (ключ или Keys) в неизменяемую копию ключей.
+    @SuppressWarnings("unchecked")
+    static <K> Set<K> keysOf(Object entry) {
+        if (entry instanceof Keys) {
+            return ((Keys) entry).copy();
+        }
+        return Collections.singleton((K) entry);
+    }
+
+}
@@ -0,0 +1,311 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* Генератор нагрузки на HashTable: несколько рабочих потоков выполняют смесь чтений, записей и удалений
+ * над keyCount ключами (0..keyCount-1) с равномерным, зипфовским или последовательным распределением.
+ * HashTable не потокобезопасна, поэтому каждая операция выполняется под монитором таблицы,
+ * как и ее synchronized-методы; число потоков показывает, как таблица ведет себя при конкуренции за нее.
+ * Потоки только увеличивают свои счетчики операций и гистограммы задержек, а sample() собирает их
+ * без блокировок; монитор таблицы sample() берет один раз, чтобы снять HashTable.stats().
+ * Задержка измеряется у каждой LATENCY_SAMPLE-й операции, чтобы System.nanoTime не замедлял нагрузку.
+ */
+public class Workload {
+
+    public enum Distribution {
+        UNIFORM,
+        // Распределение Ципфа с параметром ZIPF_THETA: небольшое число ключей получает большую часть операций.
+        ZIPFIAN,
+        // Каждый поток перебирает ключи по кругу со своим смещением.
+        SEQUENTIAL
+    }
+
+    static final double ZIPF_THETA = 0.99;
+    static final int LATENCY_SAMPLE = 8;
+    // Гистограмма задержек: по 8 поддиапазонов на каждую степень двойки наносекунд.
+    static final int LATENCY_BUCKETS = 496;
+
+    private final HashTable<Integer, Integer> table;
+    private final int keyCount;
+    private final int threads;
+    private final int readPercent;
+    private final int writePercent;
+    private final Distribution distribution;
+    private final Integer[] keys;
+    private final List<Worker> workers = new ArrayList<>();
+    private volatile boolean running;
+    private double zetaN;
+    private double eta;
+
+    // Состояние предыдущего sample() для вычисления значений за интервал.
+    private long lastNanos;
+    private long lastOps;
+    private long[] lastLatencies = new long[LATENCY_BUCKETS];
+    private HashTableStats lastStats;
+
+    /* Создает нагрузку: readPercent процентов чтений, writePercent процентов записей, остальные – удаления.
+     * Статистика таблицы включается, чтобы sample() возвращал распределение длин проб.
+     */
+    public Workload(HashTable<Integer, Integer> table, int keyCount, int threads,
+                    int readPercent, int writePercent, Distribution distribution) {
+        if (keyCount <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Illegal key count or thread count: " + keyCount + ", " + threads);
+        }
+        if (readPercent < 0 || writePercent < 0 || readPercent + writePercent > 100) {
+            throw new IllegalArgumentException("Illegal operation mix: " + readPercent + "/" + writePercent);
+        }
+        this.table = table;
+        this.keyCount = keyCount;
+        this.threads = threads;
+        this.readPercent = readPercent;
+        this.writePercent = writePercent;
+        this.distribution = distribution;
+        keys = new Integer[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = i;
+        }
+    }
+
+    /* Заполняет таблицу всеми ключами и запускает рабочие потоки.
+     * Подготовка занимает O(keyCount), поэтому из потока JavaFX метод вызывать не стоит.
+     */
+    public synchronized void start() {
+        if (running) {
+            throw new IllegalStateException("Workload is already running");
+        }
+        if (distribution == Distribution.ZIPFIAN) {
+            zetaN = zeta(keyCount);
+            eta = (1 - Math.pow(2.0 / keyCount, 1 - ZIPF_THETA)) / (1 - zeta(2) / zetaN);
+        }
+        synchronized (table) {
+            table.setStatisticsEnabled(true);
+            table.putAll(keys, keys);
+            table.resetStatistics();
+            lastStats = table.stats();
+        }
+        running = true;
+        workers.clear();
+        lastNanos = System.nanoTime();
+        lastOps = 0;
+        lastLatencies = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(i);
+            workers.add(worker);
+            worker.thread.start();
+        }
+    }
+
+    // Останавливает рабочие потоки и ждет их завершения.
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        for (Worker worker : workers) {
+            worker.thread.join();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public HashTable<Integer, Integer> getTable() {
+        return table;
+    }
+
+    // Снимает показатели за время после предыдущего вызова (после start() для первого).
+    public synchronized Sample sample() {
+        long now = System.nanoTime();
+        long ops = 0;
+        long[] latencies = new long[LATENCY_BUCKETS];
+        for (Worker worker : workers) {
+            ops += worker.ops.get();
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                latencies[i] += worker.latencies.get(i);
+            }
+        }
+        HashTableStats stats;
+        synchronized (table) {
+            stats = table.stats();
+        }
+        long[] interval = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            interval[i] = latencies[i] - lastLatencies[i];
+        }
+        Sample sample = new Sample(now - lastNanos, ops - lastOps, interval, stats, lastStats);
+        lastNanos = now;
+        lastOps = ops;
+        lastLatencies = latencies;
+        lastStats = stats;
+        return sample;
+    }
+
+    // Показатели нагрузки за интервал между двумя вызовами sample().
+    public static final class Sample {
+        private final double opsPerSecond;
+        private final long[] latencies;
+        private final HashTableStats stats;
+        private final long[] hitProbes;
+        private final long[] missProbes;
+        private final long[] insertProbes;
+
+        Sample(long nanos, long ops, long[] latencies, HashTableStats stats, HashTableStats previous) {
+            this.opsPerSecond = nanos == 0 ? 0 : ops * 1e9 / nanos;
+            this.latencies = latencies;
+            this.stats = stats;
+            hitProbes = difference(stats.getHitProbeHistogram(), previous.getHitProbeHistogram());
+            missProbes = difference(stats.getMissProbeHistogram(), previous.getMissProbeHistogram());
+            insertProbes = difference(stats.getInsertProbeHistogram(), previous.getInsertProbeHistogram());
+        }
+
+        public double getOpsPerSecond() {
+            return opsPerSecond;
+        }
+
+        // Возвращает оценку задержки операции (верхнюю границу ее диапазона гистограммы), нс.
+        public long getLatencyPercentile(double quantile) {
+            if (!(quantile >= 0 && quantile <= 1)) {
+                throw new IllegalArgumentException("Illegal quantile: " + quantile);
+            }
+            long count = 0;
+            for (long c : latencies) {
+                count += c;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                seen += latencies[i];
+                if (seen >= rank && seen > 0) {
+                    return bucketLimit(i);
+                }
+            }
+            return 0;
+        }
+
+        // Снимок таблицы на конец интервала: размер, емкость, удаленные ячейки, заполненность.
+        public HashTableStats getStats() {
+            return stats;
+        }
+
+        // Гистограммы длин проб за интервал (как в HashTableStats).
+        public long[] getHitProbeHistogram() {
+            return hitProbes.clone();
+        }
+
+        public long[] getMissProbeHistogram() {
+            return missProbes.clone();
+        }
+
+        public long[] getInsertProbeHistogram() {
+            return insertProbes.clone();
+        }
+
+        private static long[] difference(long[] current, long[] previous) {
+            for (int i = 0; i < current.length; i++) {
+                current[i] -= previous[i];
+            }
+            return current;
+        }
+    }
+
+    // Номер диапазона гистограммы задержек: точные значения до 8 нс, дальше по 8 диапазонов на степень двойки.
+    static int bucket(long nanos) {
+        if (nanos < 8) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        return (exponent - 2) * 8 + (int) ((nanos >>> (exponent - 3)) & 7);
+    }
+
+    // Наибольшая задержка, попадающая в диапазон bucket.
+    static long bucketLimit(int bucket) {
+        if (bucket < 8) {
+            return bucket;
+        }
+        int exponent = bucket / 8 + 2;
+        long lower = (long) (8 + bucket % 8) << (exponent - 3);
+        return lower + (1L << (exponent - 3)) - 1;
+    }
+
+    private static double zeta(long n) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, ZIPF_THETA);
+        }
+        return sum;
+    }
+
+    private final class Worker implements Runnable {
+        final Thread thread;
+        // Счетчики пишет только поток нагрузки (lazySet), а читает sample().
+        final AtomicLong ops = new AtomicLong();
+        final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+        private final int index;
+        private int next;
+
+        Worker(int index) {
+            this.index = index;
+            this.next = (int) ((long) keyCount * index / threads);
+            thread = new Thread(this, "workload-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long count = 0;
+            while (running) {
+                for (int i = 0; i < 256; i++) {
+                    Integer key = keys[nextKey(random)];
+                    int operation = random.nextInt(100);
+                    boolean timed = (count + i) % LATENCY_SAMPLE == 0;
+                    long started = timed ? System.nanoTime() : 0;
+                    synchronized (table) {
+                        if (operation < readPercent) {
+                            table.get(key);
+                        } else if (operation < readPercent + writePercent) {
+                            table.put(key, key);
+                        } else {
+                            table.remove(key);
+                        }
+                    }
+                    if (timed) {
+                        int bucket = bucket(System.nanoTime() - started);
+                        latencies.lazySet(bucket, latencies.get(bucket) + 1);
+                    }
+                }
+                count += 256;
+                ops.lazySet(count);
+            }
+        }
+
+        private int nextKey(ThreadLocalRandom random) {
+            switch (distribution) {
+                case ZIPFIAN:
+                    return zipf(random.nextDouble());
+                case SEQUENTIAL:
+                    int key = next;
+                    next = key + 1 == keyCount ? 0 : key + 1;
+                    return key;
+                default:
+                    return random.nextInt(keyCount);
+            }
+        }
+
+        // Генератор Грея и др. (используется в YCSB): O(1) на ключ после вычисления zeta(keyCount).
+        private int zipf(double u) {
+            double uz = u * zetaN;
+            if (uz < 1) {
+                return 0;
+            }
+            if (uz < 1 + Math.pow(0.5, ZIPF_THETA)) {
+                return Math.min(1, keyCount - 1);
+            }
+            int key = (int) (keyCount * Math.pow(eta * u - eta + 1, 1 / (1 - ZIPF_THETA)));
+            return Math.min(key, keyCount - 1);
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package org.example;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+
+import java.util.List;
+
+/* Контроллер окна "Workload" (workload.fxml): запускает Workload и раз в SAMPLE_MILLIS мс
+ * добавляет его показатели на графики. Графики хранят последние MAX_POINTS точек.
+ */
+public class WorkloadController {
+
+    static final int SAMPLE_MILLIS = 500;
+    static final int MAX_POINTS = 120;
+    // Столбцы гистограммы длин проб: 0..PROBE_BARS-2 и все более длинные пробы.
+    static final int PROBE_BARS = 17;
+
+    public TextField keysTextField;
+    public Spinner<Integer> threadsSpinner;
+    public Spinner<Integer> readSpinner;
+    public Spinner<Integer> writeSpinner;
+    public ChoiceBox<Workload.Distribution> distributionChoiceBox;
+    public Button startButton;
+    public Button stopButton;
+    public Label statusLabel;
+    public LineChart<Number, Number> throughputChart;
+    public LineChart<Number, Number> latencyChart;
+    public LineChart<Number, Number> loadChart;
+    public BarChart<String, Number> probeChart;
+
+    private final XYChart.Series<Number, Number> throughput = series("ops/s");
+    private final XYChart.Series<Number, Number> p50 = series("p50");
+    private final XYChart.Series<Number, Number> p99 = series("p99");
+    private final XYChart.Series<Number, Number> p999 = series("p99.9");
+    private final XYChart.Series<Number, Number> loadFactor = series("Load factor");
+    private final XYChart.Series<Number, Number> tombstoneRatio = series("Tombstones");
+    private final XYChart.Series<String, Number> hitProbes = new XYChart.Series<>();
+    private final XYChart.Series<String, Number> missProbes = new XYChart.Series<>();
+    private final XYChart.Series<String, Number> insertProbes = new XYChart.Series<>();
+    private final Timeline sampler = new Timeline(new KeyFrame(Duration.millis(SAMPLE_MILLIS), event -> sample()));
+    private Workload workload;
+    private long startedNanos;
+
+    @FXML
+    public void initialize() {
+        threadsSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory
+                (1, 64, Runtime.getRuntime().availableProcessors()));
+        readSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(0, 100, 80));
+        writeSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(0, 100, 15));
+        distributionChoiceBox.setItems(FXCollections.observableArrayList(Workload.Distribution.values()));
+        distributionChoiceBox.setValue(Workload.Distribution.UNIFORM);
+        stopButton.setDisable(true);
+
+        throughputChart.getData().add(throughput);
+        latencyChart.getData().addAll(List.of(p50, p99, p999));
+        loadChart.getData().addAll(List.of(loadFactor, tombstoneRatio));
+        hitProbes.setName("Hit");
+        missProbes.setName("Miss");
+        insertProbes.setName("Insert");
+        for (int i = 0; i < PROBE_BARS; i++) {
+            String category = i == PROBE_BARS - 1 ? i + "+" : String.valueOf(i);
+            hitProbes.getData().add(new XYChart.Data<>(category, 0));
+            missProbes.getData().add(new XYChart.Data<>(category, 0));
+            insertProbes.getData().add(new XYChart.Data<>(category, 0));
+        }
+        probeChart.getData().addAll(List.of(hitProbes, missProbes, insertProbes));
+        sampler.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    // Метод для кнопки "start": заполнение таблицы и запуск потоков идут в фоновом потоке.
+    @FXML
+    private void startClicked() {
+        Workload created;
+        try {
+            created = new Workload(new HashTable<>(), Integer.parseInt(keysTextField.getText().trim()),
+                    threadsSpinner.getValue(), readSpinner.getValue(), writeSpinner.getValue(),
+                    distributionChoiceBox.getValue());
+        } catch (IllegalArgumentException e) {
+            statusLabel.setText("Invalid settings: " + e.getMessage());
+            return;
+        }
+        workload = created;
+        startButton.setDisable(true);
+        statusLabel.setText("Preparing...");
+        for (XYChart.Series<Number, Number> series : List.of(throughput, p50, p99, p999, loadFactor, tombstoneRatio)) {
+            series.getData().clear();
+        }
+        background(() -> {
+            created.start();
+            Platform.runLater(() -> {
+                startedNanos = System.nanoTime();
+                stopButton.setDisable(false);
+                statusLabel.setText("Running");
+                sampler.play();
+            });
+        });
+    }
+
+    // Метод для кнопки "stop".
+    @FXML
+    private void stopClicked() {
+        stopButton.setDisable(true);
+        shutdown(() -> Platform.runLater(() -> {
+            startButton.setDisable(false);
+            statusLabel.setText("Stopped");
+        }));
+    }
+
+    // Останавливает нагрузку при закрытии окна.
+    void shutdown() {
+        shutdown(() -> {
+        });
+    }
+
+    private void shutdown(Runnable then) {
+        sampler.stop();
+        Workload stopped = workload;
+        if (stopped == null) {
+            then.run();
+            return;
+        }
+        background(() -> {
+            stopped.stop();
+            then.run();
+        });
+    }
+
+    private void sample() {
+        Workload.Sample sample = workload.sample();
+        double time = (System.nanoTime() - startedNanos) / 1e9;
+        add(throughput, time, sample.getOpsPerSecond());
+        add(p50, time, sample.getLatencyPercentile(0.5));
+        add(p99, time, sample.getLatencyPercentile(0.99));
+        add(p999, time, sample.getLatencyPercentile(0.999));
+        add(loadFactor, time, sample.getStats().getEffectiveLoadFactor());
+        add(tombstoneRatio, time, sample.getStats().getTombstoneRatio());
+        show(hitProbes, sample.getHitProbeHistogram());
+        show(missProbes, sample.getMissProbeHistogram());
+        show(insertProbes, sample.getInsertProbeHistogram());
+        statusLabel.setText(String.format("Running: %,.0f ops/s, size %,d, capacity %,d",
+                sample.getOpsPerSecond(), sample.getStats().getSize(), sample.getStats().getCapacity()));
+    }
+
+    private static void add(XYChart.Series<Number, Number> series, double time, double value) {
+        series.getData().add(new XYChart.Data<>(time, value));
+        if (series.getData().size() > MAX_POINTS) {
+            series.getData().remove(0);
+        }
+    }
+
+    // Показывает гистограмму длин проб в процентах от операций ее вида за интервал.
+    private static void show(XYChart.Series<String, Number> series, long[] histogram) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        double[] bars = new double[PROBE_BARS];
+        for (int i = 0; i < histogram.length; i++) {
+            bars[Math.min(i, PROBE_BARS - 1)] += histogram[i];
+        }
+        for (int i = 0; i < PROBE_BARS; i++) {
+            series.getData().get(i).setYValue(total == 0 ? 0 : bars[i] * 100 / total);
+        }
+    }
+
+    private static XYChart.Series<Number, Number> series(String name) {
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        series.setName(name);
+        return series;
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private void background(Action action) {
+        Thread thread = new Thread(() -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    statusLabel.setText("Failed: " + e.getMessage());
+                    startButton.setDisable(false);
+                });
+            }
+        }, "workload-control");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Пакетные getAll, putAll и removeAll над массивами: результат тот же, что у операций по одному ключу.
+class HashTableBatchTest {
+
+    private static Integer[] randomKeys(Random random, int count, int range) {
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = random.nextInt(range);
+        }
+        return keys;
+    }
+
+    // Пачки разной длины с повторяющимися, отсутствующими и удаленными ключами совпадают с HashMap.
+    @Test
+    void batchesMatchHashMap() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(12);
+        for (int round = 0; round < 300; round++) {
+            int count = random.nextInt(70);
+            Integer[] keys = randomKeys(random, count, 5_000);
+            switch (random.nextInt(3)) {
+                case 0: {
+                    Integer[] values = new Integer[count];
+                    for (int i = 0; i < count; i++) {
+                        values[i] = round * 100 + i;
+                        expected.put(keys[i], values[i]);
+                    }
+                    table.putAll(keys, values);
+                    break;
+                }
+                case 1: {
+                    int removed = 0;
+                    for (Integer key : keys) {
+                        if (expected.remove(key) != null) {
+                            removed++;
+                        }
+                    }
+                    assertEquals(removed, table.removeAll(keys));
+                    break;
+                }
+                default: {
+                    Integer[] out = new Integer[count + 1];
+                    int found = 0;
+                    for (Integer key : keys) {
+                        if (expected.containsKey(key)) {
+                            found++;
+                        }
+                    }
+                    assertEquals(found, table.getAll(keys, out));
+                    for (int i = 0; i < count; i++) {
+                        assertEquals(expected.get(keys[i]), out[i]);
+                    }
+                    break;
+                }
+            }
+            assertEquals(expected.size(), table.size());
+        }
+        assertEquals(expected, table);
+    }
+
+    // Повторяющийся ключ в одной пачке: остается последнее значение, запись одна.
+    @Test
+    void duplicateKeysInOneBatch() {
+        HashTable<String, Integer> table = new HashTable<>();
+        table.putAll(new String[]{"a", "b", "a", "c", "a"}, new Integer[]{1, 2, 3, 4, 5});
+
+        assertEquals(3, table.size());
+        assertEquals(Integer.valueOf(5), table.get("a"));
+        assertEquals(2, table.removeAll(new String[]{"a", "a", "b"}));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void invalidArguments() {
+        HashTable<String, Integer> table = new HashTable<>();
+        table.put("a", 1);
+
+        assertThrows(IllegalArgumentException.class, () -> table.putAll(new String[]{"b"}, new Integer[0]));
+        assertThrows(IllegalArgumentException.class, () -> table.getAll(new String[]{"a", "b"}, new Integer[1]));
+        assertThrows(NullPointerException.class, () -> table.putAll(new String[]{"b", "c"}, new Integer[]{2, null}));
+        assertEquals(Map.of("a", 1), table);
+    }
+
+    // Пачки во время постепенного переноса: ключи из обоих массивов находятся, перенос не ломается.
+    @Test
+    void batchesDuringIncrementalResize() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        table.setIncrementalResize(2);
+        int count = 0;
+        while (!table.isResizing()) {
+            table.put(count, count);
+            count++;
+        }
+
+        Integer[] keys = new Integer[2 * count];
+        Integer[] values = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+            values[i] = -i;
+        }
+        table.putAll(keys, values);
+        assertEquals(keys.length, table.size());
+
+        Integer[] out = new Integer[keys.length];
+        assertEquals(keys.length, table.getAll(keys, out));
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(Integer.valueOf(-i), out[i]);
+        }
+        Integer[] even = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            even[i] = 2 * i;
+        }
+        assertEquals(count, table.removeAll(even));
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i % 2 == 1, table.containsKey(i));
+        }
+        assertEquals(count, table.size());
+    }
+
+}
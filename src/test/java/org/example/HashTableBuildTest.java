@@ -0,0 +1,102 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// HashTable.build и параллельное перехеширование больших таблиц.
+class HashTableBuildTest {
+
+    private static Map.Entry<Integer, Integer> entry(int key, int value) {
+        return new AbstractMap.SimpleEntry<>(key, value);
+    }
+
+    // Параллельная сборка с повторяющимися ключами: каждый ключ один раз, массив не перехешировался.
+    @Test
+    void parallelBuild() {
+        List<Map.Entry<Integer, Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < 300_000; i++) {
+            int key = i % 200_000;
+            entries.add(entry(key, key * 3));
+        }
+
+        HashTable<Integer, Integer> table = HashTable.build(entries, 200_000);
+
+        assertEquals(200_000, table.size());
+        assertTrue(table.stats().getEffectiveLoadFactor() <= table.getLoadFactor());
+        for (int i = 0; i < 200_000; i++) {
+            assertEquals(Integer.valueOf(i * 3), table.get(i));
+        }
+        assertNull(table.get(200_000));
+        // Собранная таблица – обычная изменяемая таблица.
+        table.put(-1, -1);
+        table.remove(0);
+        assertEquals(200_000, table.size());
+    }
+
+    // Записи сверх expectedSize вставляются после параллельной фазы обычным put.
+    @Test
+    void buildBeyondExpectedSize() {
+        HashTable<Integer, Integer> table = HashTable.build(
+                IntStream.range(0, 50_000).parallel().mapToObj(i -> entry(i, i)), 1_000);
+
+        assertEquals(50_000, table.size());
+        for (int i = 0; i < 50_000; i++) {
+            assertEquals(Integer.valueOf(i), table.get(i));
+        }
+    }
+
+    // Последовательный поток оставляет последнее значение повторяющегося ключа.
+    @Test
+    void sequentialBuildKeepsLastValue() {
+        HashTable<Integer, Integer> table = HashTable.build(
+                Stream.of(entry(1, 1), entry(2, 2), entry(1, 10), entry(1, 100)), 3);
+        assertEquals(Map.of(1, 100, 2, 2), table);
+    }
+
+    @Test
+    void buildRejectsNulls() {
+        List<Map.Entry<Integer, Integer>> entries = new ArrayList<>();
+        entries.add(entry(1, 1));
+        entries.add(new AbstractMap.SimpleEntry<>(2, null));
+        assertThrows(NullPointerException.class, () -> HashTable.build(entries, 2));
+    }
+
+    // Рост больших таблиц идет параллельными задачами; результат тот же, что у HashMap.
+    @Test
+    void parallelRehash() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        table.setStatisticsEnabled(true);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 400_000; i++) {
+            int key = i * 7919;
+            table.put(key, i);
+            expected.put(key, i);
+        }
+        for (int i = 0; i < 400_000; i += 3) {
+            table.remove(i * 7919);
+            expected.remove(i * 7919);
+        }
+        table.ensureCapacity(1_000_000);
+        assertTrue(table.stats().getRehashCount() > 0);
+        assertEquals(expected, table);
+
+        table.trimToSize();
+        assertEquals(expected, table);
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Ограниченная таблица (HashTable.cache): порядок вытеснения CLOCK и SAMPLED_LRU и счетчики.
+class HashTableCacheTest {
+
+    private static final int MAX_ENTRIES = 64;
+
+    // Ограниченная таблица с ключами 0..MAX_ENTRIES-1, вставленными по порядку; вытесненные ключи пишутся в evicted.
+    private static HashTable<Integer, Integer> full(EvictionPolicy policy, List<Integer> evicted) {
+        HashTable<Integer, Integer> table = HashTable.cache(MAX_ENTRIES, policy);
+        table.setEvictionListener((key, value) -> evicted.add(key));
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            table.put(i, i);
+        }
+        return table;
+    }
+
+    /* Кандидаты на вытеснение при вставке ключа key: живые записи его последовательности проб до первой
+     * свободной ячейки после хотя бы одной записи, не больше EvictionPolicy.SAMPLES.
+     */
+    private static List<Integer> candidates(HashTable<Integer, Integer> table, int key) {
+        Object[] slots = table.keySlots();
+        int capacity = slots.length;
+        int hash = table.getHashStrategy().mix(Integer.hashCode(key));
+        ProbeStrategy probeStrategy = table.getProbeStrategy();
+        int index = probeStrategy.start(hash, capacity);
+        int step = probeStrategy.step(hash, capacity);
+        List<Integer> candidates = new ArrayList<>();
+        for (int n = 0; n < capacity && candidates.size() < EvictionPolicy.SAMPLES;
+             n++, index = DoubleHashing.next(index, step, capacity)) {
+            Object slot = slots[index];
+            if (slot == null && !candidates.isEmpty()) {
+                break;
+            }
+            if (slot != null && slot != HashTable.tombstone()) {
+                candidates.add((Integer) slot);
+            }
+        }
+        return candidates;
+    }
+
+    // Первый новый ключ, начиная с from, кандидаты которого удовлетворяют условию.
+    private static int newKey(HashTable<Integer, Integer> table, int from, Predicate<List<Integer>> condition) {
+        for (int key = from; ; key++) {
+            if (!table.containsKey(key) && condition.test(candidates(table, key))) {
+                return key;
+            }
+        }
+    }
+
+    /* CLOCK: вставка ставит записи бит обращения; если бит стоит у всех кандидатов, вытесняется первый,
+     * а биты остальных снимаются. Запись, к которой обратились после этого, получает второй шанс.
+     */
+    @Test
+    void clockGivesSecondChance() {
+        List<Integer> evictedA = new ArrayList<>();
+        List<Integer> evictedB = new ArrayList<>();
+        HashTable<Integer, Integer> a = full(EvictionPolicy.CLOCK, evictedA);
+        HashTable<Integer, Integer> b = full(EvictionPolicy.CLOCK, evictedB);
+
+        int first = newKey(a, 1_000, c -> c.size() >= 3);
+        List<Integer> cleared = candidates(a, first);
+        a.put(first, first);
+        b.put(first, first);
+        assertEquals(List.of(cleared.get(0)), evictedA);
+        assertEquals(evictedA, evictedB);
+
+        // Таблицы a и b устроены одинаково; в a к записи со снятым битом обращаются еще раз.
+        int chance = cleared.get(1);
+        assertEquals(Integer.valueOf(chance), a.get(chance));
+        int second = newKey(a, first + 1, c -> c.get(0) == chance
+                && c.stream().skip(1).anyMatch(key -> cleared.subList(2, cleared.size()).contains(key)));
+        a.put(second, second);
+        b.put(second, second);
+
+        assertEquals(chance, (int) evictedB.get(1));
+        assertFalse(b.containsKey(chance));
+        assertTrue(a.containsKey(chance));
+        assertTrue(cleared.subList(2, cleared.size()).contains(evictedA.get(1)));
+    }
+
+    // SAMPLED_LRU вытесняет кандидата с самым давним обращением.
+    @Test
+    void sampledLruEvictsLeastRecentlyUsed() {
+        List<Integer> evicted = new ArrayList<>();
+        HashTable<Integer, Integer> table = full(EvictionPolicy.SAMPLED_LRU, evicted);
+
+        int key = newKey(table, 1_000, c -> c.size() >= 2);
+        List<Integer> candidates = new ArrayList<>(candidates(table, key));
+        Collections.sort(candidates);
+        // Ключи вставлены по порядку, поэтому у меньшего ключа более давнее обращение; обращение его освежает.
+        table.get(candidates.get(0));
+        table.put(key, key);
+
+        assertEquals(List.of(candidates.get(1)), evicted);
+        assertTrue(table.containsKey(candidates.get(0)));
+    }
+
+    // Горячие ключи, к которым обращаются между вставками, вытесняются реже холодных.
+    @Test
+    void hotKeysSurvive() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            HashTable<Integer, Integer> table = HashTable.cache(1_000, policy);
+            for (int i = 0; i < 20_000; i++) {
+                table.put(i + 1_000, i);
+                for (int hot = 0; hot < 50; hot++) {
+                    if (table.get(hot) == null) {
+                        table.put(hot, hot);
+                    }
+                }
+            }
+            int hotPresent = 0;
+            for (int hot = 0; hot < 50; hot++) {
+                if (table.containsKey(hot)) {
+                    hotPresent++;
+                }
+            }
+            assertEquals(50, hotPresent, policy.toString());
+            assertTrue(table.getHitCount() > 0.95 * 50 * 20_000, policy + " hits " + table.getHitCount());
+        }
+    }
+
+    // Размер не превышает maxEntries, каждое вытеснение приходит получателю; remove и clear – не вытеснения.
+    @Test
+    void boundAndCounters() {
+        List<Integer> evicted = new ArrayList<>();
+        HashTable<Integer, Integer> table = full(EvictionPolicy.CLOCK, evicted);
+        int capacity = table.stats().getCapacity();
+        for (int i = MAX_ENTRIES; i < 10_000; i++) {
+            table.put(i, i);
+            assertEquals(MAX_ENTRIES, table.size());
+        }
+        assertEquals(10_000 - MAX_ENTRIES, table.getEvictionCount());
+        assertEquals(10_000 - MAX_ENTRIES, evicted.size());
+        assertEquals(capacity, table.stats().getCapacity());
+
+        table.get(-1);
+        table.get(9_999);
+        assertEquals(1, table.getMissCount());
+        assertEquals(1, table.getHitCount());
+        table.remove(9_999);
+        table.clear();
+        assertEquals(10_000 - MAX_ENTRIES, evicted.size());
+
+        assertEquals(MAX_ENTRIES, table.getMaxEntries());
+        assertEquals(EvictionPolicy.CLOCK, table.getEvictionPolicy());
+        assertThrows(IllegalArgumentException.class, () -> HashTable.cache(0, EvictionPolicy.CLOCK));
+        assertThrows(IllegalStateException.class, () -> new HashTable<>().setEvictionListener((key, value) -> { }));
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Удаленные ячейки HashTable и их вычистка (compact).
+class HashTableCompactTest {
+
+    private static HashTable<Integer, Integer> filled(int count) {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        for (int i = 0; i < count; i++) {
+            table.put(i, i);
+        }
+        return table;
+    }
+
+    // compact() при большой доле удаленных ячеек: ячейки вычищаются, все живые ключи на месте, емкость прежняя.
+    @Test
+    void compactHeavyTombstones() {
+        HashTable<Integer, Integer> table = filled(20_000);
+        table.setTombstoneThreshold(1);
+        for (int i = 0; i < 20_000; i++) {
+            if (i % 5 != 0) {
+                table.remove(i);
+            }
+        }
+        int capacity = table.stats().getCapacity();
+        assertEquals(16_000, table.stats().getTombstones());
+
+        table.compact();
+
+        HashTableStats stats = table.stats();
+        assertEquals(0, stats.getTombstones());
+        assertEquals(capacity, stats.getCapacity());
+        assertEquals(4_000, table.size());
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(i % 5 == 0 ? Integer.valueOf(i) : null, table.get(i));
+        }
+        // После вычистки таблица продолжает работать как обычно.
+        for (int i = 1; i < 20_000; i += 5) {
+            table.put(i, -i);
+        }
+        assertEquals(8_000, table.size());
+        assertEquals(Integer.valueOf(-1), table.get(1));
+    }
+
+    // Удаления сверх порога вычищаются автоматически.
+    @Test
+    void thresholdTriggersCompaction() {
+        HashTable<Integer, Integer> table = filled(10_000);
+        table.setTombstoneThreshold(0.1f);
+        int capacity = table.stats().getCapacity();
+        for (int i = 0; i < 9_000; i++) {
+            table.remove(i);
+            assertTrue(table.stats().getTombstones() <= 0.1 * capacity);
+        }
+        assertEquals(1_000, table.size());
+        assertEquals(Integer.valueOf(9_999), table.get(9_999));
+    }
+
+    // trimToSize() уменьшает емкость до необходимой и сохраняет записи.
+    @Test
+    void trimToSize() {
+        HashTable<Integer, Integer> table = filled(10_000);
+        for (int i = 100; i < 10_000; i++) {
+            table.remove(i);
+        }
+        int capacity = table.stats().getCapacity();
+
+        table.trimToSize();
+
+        HashTableStats stats = table.stats();
+        assertTrue(stats.getCapacity() < capacity / 10, "capacity " + stats.getCapacity());
+        assertEquals(0, stats.getTombstones());
+        assertEquals(100, table.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), table.get(i));
+        }
+    }
+
+    // Удаления через итератор вычищаются после конца обхода.
+    @Test
+    void iteratorRemovalCompactsAfterIteration() {
+        HashTable<Integer, Integer> table = filled(10_000);
+        Iterator<Integer> iterator = table.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 10 != 0) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(1_000, table.size());
+        assertEquals(0, table.stats().getTombstones());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i % 10 == 0, table.containsKey(i));
+        }
+    }
+
+    // remove() после последнего next() остается доступен, даже если конец обхода уже вычистил таблицу.
+    @Test
+    void removeAfterExhaustedIterator() {
+        HashTable<Integer, Integer> table = filled(1_000);
+        Iterator<Integer> iterator = table.keySet().iterator();
+        Integer last = null;
+        while (iterator.hasNext()) {
+            last = iterator.next();
+            if (iterator.hasNext()) {
+                iterator.remove();
+            }
+        }
+        assertFalse(iterator.hasNext());
+        assertEquals(0, table.stats().getTombstones());
+
+        iterator.remove();
+        assertTrue(table.isEmpty());
+        assertNull(table.get(last));
+    }
+
+}
@@ -0,0 +1,226 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Истечение записей HashTable на ручных часах: время двигается только в тесте.
+class HashTableExpiryTest {
+
+    // Ручные часы, наносекунды.
+    private static final class ManualTicker implements Ticker {
+        long now = 1_000_000_000L;
+
+        @Override
+        public long nanos() {
+            return now;
+        }
+
+        void advance(long duration, TimeUnit unit) {
+            now += unit.toNanos(duration);
+        }
+    }
+
+    private final ManualTicker ticker = new ManualTicker();
+
+    @TempDir
+    Path directory;
+
+    private HashTable<String, Integer> table() {
+        HashTable<String, Integer> table = new HashTable<>();
+        table.setTicker(ticker);
+        return table;
+    }
+
+    @Test
+    void expireAfterWrite() {
+        HashTable<String, Integer> table = table();
+        table.setExpireAfterWrite(100, TimeUnit.MILLISECONDS);
+        table.put("a", 1);
+        table.put("b", 2);
+
+        ticker.advance(60, TimeUnit.MILLISECONDS);
+        assertEquals(Integer.valueOf(1), table.get("a"));
+        // Запись значения отсчитывает срок заново, чтение – нет.
+        table.put("b", 3);
+        ticker.advance(40, TimeUnit.MILLISECONDS);
+
+        assertNull(table.get("a"));
+        assertFalse(table.containsKey("a"));
+        assertFalse(table.containsValue(1));
+        assertFalse(table.values().contains(1));
+        assertEquals(Set.of("b"), new HashSet<>(table.keySet()));
+        assertEquals(Integer.valueOf(3), table.get("b"));
+        // Чтение не удаляет истекшую запись: ее учитывает size() до expire().
+        assertEquals(2, table.size());
+        assertEquals(1, table.expire());
+        assertEquals(1, table.size());
+
+        ticker.advance(60, TimeUnit.MILLISECONDS);
+        assertNull(table.get("b"));
+        assertEquals(1, table.expire());
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    void expireAfterAccess() {
+        HashTable<String, Integer> table = table();
+        table.setExpireAfterAccess(100, TimeUnit.MILLISECONDS);
+        table.put("read", 1);
+        table.put("idle", 2);
+
+        for (int i = 0; i < 5; i++) {
+            ticker.advance(60, TimeUnit.MILLISECONDS);
+            assertEquals(Integer.valueOf(1), table.get("read"));
+        }
+        assertNull(table.get("idle"));
+        assertEquals(1, table.expire());
+
+        ticker.advance(100, TimeUnit.MILLISECONDS);
+        assertNull(table.get("read"));
+        assertEquals(1, table.expire());
+        assertTrue(table.isEmpty());
+    }
+
+    // Сроки на всех уровнях колеса и дальше верхнего: запись удаляется ровно тогда, когда часы доходят до срока.
+    @Test
+    void wheelCascadesAcrossLevels() {
+        HashTable<String, Integer> table = table();
+        long[] ttls = {
+                TimeUnit.MILLISECONDS.toNanos(3),
+                TimeUnit.MILLISECONDS.toNanos(500),
+                TimeUnit.SECONDS.toNanos(30),
+                TimeUnit.MINUTES.toNanos(40),
+                TimeUnit.HOURS.toNanos(30),
+                TimeUnit.DAYS.toNanos(40),
+        };
+        long start = ticker.now;
+        for (int i = 0; i < ttls.length; i++) {
+            table.put("key-" + i, i, ttls[i], TimeUnit.NANOSECONDS);
+        }
+
+        for (int i = 0; i < ttls.length; i++) {
+            // Промежуточные шаги заставляют колесо перекладывать записи с верхних уровней на нижние.
+            long before = start + ttls[i] - 1;
+            while (ticker.now < before) {
+                ticker.now = Math.min(before, ticker.now + Math.max(1, (before - ticker.now) / 3));
+                assertEquals(0, table.expire());
+            }
+            assertEquals(ttls.length - i, table.size());
+            assertEquals(Integer.valueOf(i), table.get("key-" + i));
+
+            ticker.now = start + ttls[i];
+            assertNull(table.get("key-" + i));
+            assertEquals(1, table.expire());
+            assertEquals(ttls.length - i - 1, table.size());
+        }
+    }
+
+    // Вставки продвигают колесо раз в тик: истекшие записи удаляются, когда тик их срока целиком прошел.
+    @Test
+    void insertsReclaimElapsedTicks() {
+        HashTable<String, Integer> table = table();
+        for (int i = 0; i < 1_000; i++) {
+            table.put("old-" + i, i, 1, TimeUnit.MILLISECONDS);
+        }
+        ticker.advance(1, TimeUnit.MILLISECONDS);
+        assertNull(table.get("old-0"));
+        assertEquals(1_000, table.size());
+
+        ticker.advance(2, TimeUnit.MILLISECONDS);
+        table.put("new", 0);
+        assertEquals(1, table.size());
+        assertEquals(0, table.expire());
+    }
+
+    // Запись из entrySet после истечения ведет себя как удаленная: setValue не возвращает ее в таблицу.
+    @Test
+    void setValueDoesNotReviveExpired() {
+        HashTable<String, Integer> table = table();
+        table.put("a", 1, 100, TimeUnit.MILLISECONDS);
+        Map.Entry<String, Integer> entry = table.entrySet().iterator().next();
+        ticker.advance(200, TimeUnit.MILLISECONDS);
+
+        assertEquals(Integer.valueOf(1), entry.setValue(2));
+        assertNull(table.get("a"));
+        assertFalse(table.containsKey("a"));
+        assertEquals(1, table.expire());
+        assertTrue(table.isEmpty());
+    }
+
+    // Снимок и копия сохраняют только записи, срок которых не прошел; истекшая запись не становится бессрочной.
+    @Test
+    void snapshotsAndCopiesSkipExpired() throws IOException {
+        HashTable<String, Integer> table = table();
+        table.put("short", 1, 1, TimeUnit.SECONDS);
+        table.put("long", 2, 1, TimeUnit.HOURS);
+        table.put("forever", 3);
+        ticker.advance(10, TimeUnit.SECONDS);
+
+        Path path = directory.resolve("table.dhts");
+        HashTableSnapshot.write(table, path, SnapshotCodec.STRING, SnapshotCodec.INTEGER);
+        HashTable<String, Integer> loaded = HashTableSnapshot.read(path, SnapshotCodec.STRING, SnapshotCodec.INTEGER);
+        HashTable<String, Integer> copy = table.copy();
+
+        for (HashTable<String, Integer> restored : List.of(loaded, copy)) {
+            assertEquals(Map.of("long", 2, "forever", 3), restored);
+            assertEquals(2, restored.size());
+            assertNull(restored.get("short"));
+            assertFalse(restored.containsKey("short"));
+        }
+        // Исходная таблица не меняется: истекшая запись удаляется только expire().
+        assertEquals(3, table.size());
+        assertEquals(1, table.expire());
+    }
+
+    // Чтения во время обхода не меняют таблицу, даже если встречают истекшие записи.
+    @Test
+    void readsDuringIteration() {
+        HashTable<String, Integer> table = table();
+        for (int i = 0; i < 1_000; i++) {
+            table.put("key-" + i, i, i % 2 == 0 ? 10 : 1_000, TimeUnit.MILLISECONDS);
+        }
+        ticker.advance(20, TimeUnit.MILLISECONDS);
+
+        List<String> seen = new ArrayList<>();
+        for (String key : table.keySet()) {
+            assertTrue(table.containsKey(key));
+            table.get("key-" + (Integer.parseInt(key.substring(4)) - 1));
+            seen.add(key);
+        }
+        assertEquals(500, seen.size());
+        table.forEach((key, value) -> {
+            assertTrue(value % 2 == 1);
+            table.containsKey("key-" + (value - 1));
+            table.getOrDefault("key-" + (value - 1), -1);
+        });
+        String[] keys = seen.toArray(new String[0]);
+        for (Map.Entry<String, Integer> entry : table.entrySet()) {
+            table.getAll(keys, new Integer[keys.length]);
+            assertTrue(table.containsValue(entry.getValue()));
+        }
+        assertEquals(500, table.values().stream().count());
+
+        // Запись поверх истекшей записи занимает ее ячейку, второй записи ключа не появляется.
+        assertNull(table.put("key-0", -1));
+        assertEquals(Integer.valueOf(-1), table.get("key-0"));
+        // Вставка продвинула колесо и удалила остальные истекшие записи.
+        assertEquals(0, table.expire());
+        assertEquals(501, table.size());
+        assertEquals(501, table.entrySet().size());
+    }
+
+}
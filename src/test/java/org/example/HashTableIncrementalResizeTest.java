@@ -0,0 +1,115 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Постепенное перехеширование HashTable: записи видны во время переноса, переносят только изменения.
+class HashTableIncrementalResizeTest {
+
+    // Заполняет таблицу, пока не начнется постепенный перенос; возвращает количество вставленных ключей.
+    private static int fillUntilResizing(HashTable<Integer, Integer> table) {
+        int count = 0;
+        while (!table.isResizing()) {
+            table.put(count, count);
+            count++;
+        }
+        return count;
+    }
+
+    // Поиск находит ключи в обоих массивах и не продвигает перенос.
+    @Test
+    void lookupsDuringResize() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        table.setIncrementalResize(2);
+        int count = fillUntilResizing(table);
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(Integer.valueOf(i), table.get(i));
+                assertTrue(table.containsKey(i));
+                assertEquals(Integer.valueOf(i), table.getOrDefault(i, -1));
+                assertTrue(table.entrySet().contains(new AbstractMap.SimpleEntry<>(i, i)));
+            }
+            assertNull(table.get(count));
+            assertEquals(-1, (int) table.getOrDefault(count, -1));
+            assertFalse(table.entrySet().contains(new AbstractMap.SimpleEntry<>(0, 1)));
+        }
+        assertTrue(table.isResizing());
+        assertEquals(count, table.size());
+    }
+
+    // Пакетный поиск во время переноса видит те же записи, что и get.
+    @Test
+    void getAllDuringResize() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        table.setIncrementalResize(2);
+        int count = fillUntilResizing(table);
+
+        Integer[] keys = new Integer[count + 10];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        Integer[] values = new Integer[keys.length];
+        assertEquals(count, table.getAll(keys, values));
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i < count ? Integer.valueOf(i) : null, values[i]);
+        }
+        assertTrue(table.isResizing());
+    }
+
+    // Вставки и удаления переносят по несколько ячеек, и перенос заканчивается до следующего роста.
+    @Test
+    void writesFinishResize() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        table.setIncrementalResize(2);
+        int count = fillUntilResizing(table);
+        int capacity = table.stats().getCapacity();
+
+        for (int i = 0; table.isResizing(); i++) {
+            assertTrue(i <= capacity, "resize did not finish after " + i + " writes");
+            table.put(count + i, count + i);
+        }
+        for (int i = 0; i < table.size(); i++) {
+            assertEquals(Integer.valueOf(i), table.get(i));
+        }
+    }
+
+    // Случайные операции во время многих переносов совпадают с HashMap.
+    @Test
+    void randomOperationsMatchHashMap() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        table.setIncrementalResize(3);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(4);
+        int resizing = 0;
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(50_000);
+            int op = random.nextInt(10);
+            if (op < 5) {
+                assertEquals(expected.put(key, i), table.put(key, i));
+            } else if (op < 7) {
+                assertEquals(expected.remove(key), table.remove(key));
+            } else if (op < 8) {
+                assertEquals(expected.merge(key, 1, Integer::sum), table.merge(key, 1, Integer::sum));
+            } else {
+                assertEquals(expected.get(key), table.get(key));
+            }
+            if (table.isResizing()) {
+                resizing++;
+            }
+        }
+        assertTrue(resizing > 0);
+        assertEquals(expected.size(), table.size());
+        assertEquals(expected, table);
+    }
+
+}
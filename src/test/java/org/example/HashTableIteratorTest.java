@@ -0,0 +1,114 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Итераторы и курсор HashTable: обход без лишних объектов, remove() и защита от изменений во время обхода.
+class HashTableIteratorTest {
+
+    private static HashTable<Integer, Integer> filled(int count) {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        for (int i = 0; i < count; i++) {
+            table.put(i, i);
+        }
+        return table;
+    }
+
+    @Test
+    void iteratorFailsFast() {
+        HashTable<Integer, Integer> table = filled(100);
+        Iterator<Integer> iterator = table.keySet().iterator();
+        iterator.next();
+        table.put(1_000, 1_000);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        Iterator<Map.Entry<Integer, Integer>> entries = table.entrySet().iterator();
+        entries.next();
+        table.remove(1_000);
+        assertThrows(ConcurrentModificationException.class, entries::remove);
+
+        assertThrows(ConcurrentModificationException.class, () -> table.forEach((key, value) -> table.remove(key)));
+    }
+
+    // Замена значения не структурное изменение: обход продолжается.
+    @Test
+    void valueReplacementDuringIteration() {
+        HashTable<Integer, Integer> table = filled(100);
+        for (Integer key : table.keySet()) {
+            table.put(key, -key);
+        }
+        table.forEach((key, value) -> table.replace(key, key * 2));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i * 2), table.get(i));
+        }
+    }
+
+    @Test
+    void iteratorRemove() {
+        HashTable<Integer, Integer> table = filled(100);
+        Iterator<Integer> iterator = table.values().iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+
+        int visited = 0;
+        while (iterator.hasNext()) {
+            int value = iterator.next();
+            visited++;
+            if (value % 3 == 0) {
+                iterator.remove();
+                assertThrows(IllegalStateException.class, iterator::remove);
+            }
+        }
+        assertEquals(100, visited);
+        assertThrows(NoSuchElementException.class, iterator::next);
+        assertEquals(66, table.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 3 != 0, table.containsKey(i));
+        }
+    }
+
+    // Курсор проходит все записи, setValue пишет в таблицу.
+    @Test
+    void cursor() {
+        HashTable<Integer, Integer> table = filled(1_000);
+        for (int i = 0; i < 1_000; i += 2) {
+            table.remove(i);
+        }
+
+        Map<Integer, Integer> seen = new HashMap<>();
+        MapCursor<Integer, Integer> cursor = table.cursor();
+        assertThrows(NoSuchElementException.class, cursor::key);
+        while (cursor.advance()) {
+            seen.put(cursor.key(), cursor.value());
+            assertEquals(cursor.key(), cursor.setValue(cursor.value() + 1));
+        }
+        assertFalse(cursor.advance());
+        assertThrows(NoSuchElementException.class, cursor::value);
+
+        assertEquals(500, seen.size());
+        for (Map.Entry<Integer, Integer> entry : seen.entrySet()) {
+            assertTrue(entry.getKey() % 2 == 1);
+            assertEquals(Integer.valueOf(entry.getKey() + 1), table.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void cursorFailsFast() {
+        HashTable<Integer, Integer> table = filled(10);
+        MapCursor<Integer, Integer> cursor = table.cursor();
+        assertTrue(cursor.advance());
+        table.remove(cursor.key());
+        assertThrows(ConcurrentModificationException.class, cursor::value);
+        assertThrows(ConcurrentModificationException.class, cursor::advance);
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Поиск в HashTable: промах заканчивается на первой свободной ячейке и не длиннее maxProbe.
+class HashTableLookupTest {
+
+    // Ключ с заданным hashCode: ключи с одинаковым hashCode идут по одной последовательности проб.
+    private static final class Key {
+        final int id;
+        final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // Удаленные ячейки не обрывают последовательность проб: ключи за ними по-прежнему находятся.
+    @Test
+    void collidingKeysAfterRemovals() {
+        HashTable<Key, Integer> table = new HashTable<>();
+        for (int i = 0; i < 12; i++) {
+            table.put(new Key(i, 7), i);
+        }
+        // Все ключи на одной последовательности: последний лежит на 12-й пробе.
+        assertEquals(11, table.stats().getMaxProbe());
+        for (int i = 0; i < 12; i += 2) {
+            assertEquals(Integer.valueOf(i), table.remove(new Key(i, 7)));
+        }
+
+        for (int i = 0; i < 12; i++) {
+            assertEquals(i % 2 == 1, table.containsKey(new Key(i, 7)));
+        }
+        assertNull(table.get(new Key(100, 7)));
+
+        // Повторная вставка занимает удаленную ячейку, а не создает вторую запись ключа.
+        table.put(new Key(3, 7), -3);
+        assertEquals(Integer.valueOf(-3), table.get(new Key(3, 7)));
+        assertEquals(6, table.size());
+    }
+
+    // Стоимость промаха зависит от заполненности, а не от емкости: в почти пустой большой таблице промах короткий.
+    @Test
+    void missesInSparseTable() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        table.ensureCapacity(1_000_000);
+        table.setStatisticsEnabled(true);
+        for (int i = 0; i < 100; i++) {
+            table.put(i, i);
+        }
+        for (int i = 0; i < 100; i++) {
+            table.remove(i);
+        }
+        assertTrue(table.isEmpty());
+
+        for (int i = 100; i < 10_100; i++) {
+            assertFalse(table.containsKey(i));
+        }
+        HashTableStats stats = table.stats();
+        assertTrue(stats.getCapacity() >= 1_000_000);
+        assertTrue(stats.getMaxProbe() < 4, "maxProbe " + stats.getMaxProbe());
+        assertTrue(stats.getMissProbePercentile(1.0) <= stats.getMaxProbe());
+    }
+
+    // После clear() таблица снова пуста и промахи не проходят бывшие ячейки.
+    @Test
+    void clearResetsProbeBound() {
+        HashTable<Key, Integer> table = new HashTable<>();
+        for (int i = 0; i < 50; i++) {
+            table.put(new Key(i, 1), i);
+        }
+        table.clear();
+
+        assertEquals(0, table.stats().getMaxProbe());
+        assertNull(table.get(new Key(0, 1)));
+        table.put(new Key(0, 1), 0);
+        assertEquals(Integer.valueOf(0), table.get(new Key(0, 1)));
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// HashTable как Map: параллельные массивы ключей, значений и хэш-значений ведут себя как HashMap.
+class HashTableMapTest {
+
+    @Test
+    void randomOperationsMatchHashMap() {
+        HashTable<String, Integer> table = new HashTable<>();
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 100_000; i++) {
+            String key = "key-" + random.nextInt(5_000);
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(key, i), table.put(key, i));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key), table.remove(key));
+                    break;
+                case 3:
+                    assertEquals(expected.replace(key, -i), table.replace(key, -i));
+                    break;
+                case 4:
+                    assertEquals(expected.containsKey(key), table.containsKey(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), table.get(key));
+                    break;
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        assertEquals(expected, table);
+        assertEquals(table, expected);
+        assertEquals(expected.hashCode(), table.hashCode());
+        assertEquals(expected.keySet(), new HashSet<>(table.keySet()));
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(table.values()));
+    }
+
+    @Test
+    void nullKeysAndValuesRejected() {
+        HashTable<String, Integer> table = new HashTable<>();
+        assertThrows(NullPointerException.class, () -> table.put(null, 1));
+        assertThrows(NullPointerException.class, () -> table.put("a", null));
+        assertThrows(NullPointerException.class, () -> table.containsValue(null));
+        assertTrue(table.isEmpty());
+    }
+
+    // Виды keySet, values и entrySet поддерживаются таблицей.
+    @Test
+    void viewsWriteThrough() {
+        HashTable<String, Integer> table = new HashTable<>();
+        for (int i = 0; i < 100; i++) {
+            table.put("key-" + i, i);
+        }
+
+        assertTrue(table.keySet().remove("key-0"));
+        assertFalse(table.keySet().remove("key-0"));
+        assertTrue(table.values().remove(1));
+        for (Map.Entry<String, Integer> entry : table.entrySet()) {
+            entry.setValue(entry.getValue() * 10);
+        }
+        Iterator<Integer> values = table.values().iterator();
+        while (values.hasNext()) {
+            if (values.next() >= 500) {
+                values.remove();
+            }
+        }
+
+        assertEquals(48, table.size());
+        assertNull(table.get("key-0"));
+        assertNull(table.get("key-1"));
+        assertEquals(Integer.valueOf(20), table.get("key-2"));
+        assertNull(table.get("key-50"));
+        assertTrue(table.containsValue(490));
+        assertFalse(table.containsValue(49));
+    }
+
+    // Таблица растет с сохранением записей и очищается целиком.
+    @Test
+    void growAndClear() {
+        HashTable<Integer, String> table = new HashTable<>(1);
+        for (int i = 0; i < 50_000; i++) {
+            table.put(i, Integer.toString(i));
+        }
+        assertEquals(50_000, table.size());
+        assertTrue(table.stats().getEffectiveLoadFactor() <= table.getLoadFactor());
+        for (int i = 0; i < 50_000; i++) {
+            assertEquals(Integer.toString(i), table.get(i));
+        }
+
+        table.clear();
+        assertTrue(table.isEmpty());
+        assertNull(table.get(0));
+        table.put(0, "0");
+        assertEquals("0", table.get(0));
+    }
+
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Разделяемые обходы видов HashTable и параллельные forEach, reduce и search.
+class HashTableParallelTest {
+
+    private static final int COUNT = 100_000;
+
+    // Ключи 0..COUNT-1 со значением key * 2; каждый десятый ключ удален, чтобы в массиве были удаленные ячейки.
+    private static HashTable<Integer, Integer> table() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        table.setTombstoneThreshold(1);
+        for (int i = 0; i < COUNT; i++) {
+            table.put(i, i * 2);
+        }
+        for (int i = 0; i < COUNT; i += 10) {
+            table.remove(i);
+        }
+        return table;
+    }
+
+    private static long expectedKeySum() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            if (i % 10 != 0) {
+                sum += i;
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    void parallelStreams() {
+        HashTable<Integer, Integer> table = table();
+        long keySum = expectedKeySum();
+
+        assertEquals(keySum, table.keySet().parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(2 * keySum, table.values().parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(table.size(), table.entrySet().parallelStream()
+                .filter(entry -> entry.getValue() == 2 * entry.getKey())
+                .count());
+        Set<Integer> keys = table.keySet().parallelStream().collect(Collectors.toSet());
+        assertEquals(table.size(), keys.size());
+        assertEquals(new HashSet<>(table.keySet()), keys);
+    }
+
+    // Части после деления не пересекаются и вместе дают все записи.
+    @Test
+    void spliteratorSplitsCoverAllEntries() {
+        HashTable<Integer, Integer> table = table();
+        Spliterator<Integer> root = table.keySet().spliterator();
+        assertEquals(table.size(), root.getExactSizeIfKnown());
+        assertTrue(root.hasCharacteristics(Spliterator.DISTINCT | Spliterator.NONNULL));
+
+        List<Spliterator<Integer>> parts = new ArrayList<>();
+        parts.add(root);
+        for (int round = 0; round < 6; round++) {
+            List<Spliterator<Integer>> next = new ArrayList<>();
+            for (Spliterator<Integer> part : parts) {
+                Spliterator<Integer> prefix = part.trySplit();
+                if (prefix != null) {
+                    next.add(prefix);
+                }
+                next.add(part);
+            }
+            parts = next;
+        }
+        assertEquals(64, parts.size());
+
+        Set<Integer> seen = new HashSet<>();
+        int visited = 0;
+        for (Spliterator<Integer> part : parts) {
+            // Первый элемент через tryAdvance, остальные через forEachRemaining.
+            List<Integer> elements = new ArrayList<>();
+            part.tryAdvance(elements::add);
+            part.forEachRemaining(elements::add);
+            visited += elements.size();
+            seen.addAll(elements);
+        }
+        assertEquals(table.size(), visited);
+        assertEquals(table.size(), seen.size());
+    }
+
+    @Test
+    void spliteratorFailsFast() {
+        HashTable<Integer, Integer> table = table();
+        Spliterator<Integer> spliterator = table.keySet().spliterator();
+        table.put(-1, -1);
+        assertThrows(ConcurrentModificationException.class, () -> spliterator.forEachRemaining(key -> { }));
+    }
+
+    @Test
+    void parallelForEach() {
+        HashTable<Integer, Integer> table = table();
+        Map<Integer, Integer> seen = new ConcurrentHashMap<>();
+        AtomicLong sum = new AtomicLong();
+        table.forEach(1, (key, value) -> {
+            seen.put(key, value);
+            sum.addAndGet(key);
+        });
+        assertEquals(table, seen);
+        assertEquals(expectedKeySum(), sum.get());
+
+        // Порог не меньше размера – обход в вызывающем потоке.
+        Thread caller = Thread.currentThread();
+        table.forEach(Long.MAX_VALUE, (key, value) -> assertEquals(caller, Thread.currentThread()));
+    }
+
+    @Test
+    void parallelReduce() {
+        HashTable<Integer, Integer> table = table();
+        assertEquals(expectedKeySum(), (long) table.reduce(1, (key, value) -> (long) key, Long::sum));
+        assertEquals(Integer.valueOf(2 * (COUNT - 1)), table.reduce(1000, (key, value) -> value, Math::max));
+        // transformer, отбрасывающий все записи, дает null.
+        assertNull(table.reduce(1, (key, value) -> null, (a, b) -> a));
+    }
+
+    @Test
+    void parallelSearch() {
+        HashTable<Integer, Integer> table = table();
+        assertEquals(Integer.valueOf(77_777), table.search(1, (key, value) -> key == 77_777 ? value / 2 : null));
+        assertNull(table.search(1, (key, value) -> key == 50_000 ? key : null));
+        Integer any = table.search(1, (key, value) -> key > COUNT / 2 ? key : null);
+        assertTrue(any != null && any > COUNT / 2 && any % 10 != 0);
+    }
+
+}
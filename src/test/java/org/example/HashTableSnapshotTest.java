@@ -0,0 +1,103 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HashTableSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    // Таблица со строковыми ключами и удаленными ячейками: снимок сохраняет и их.
+    private static HashTable<String, Integer> sample(Map<String, Integer> expected) {
+        HashTable<String, Integer> table = new HashTable<>();
+        for (int i = 0; i < 5_000; i++) {
+            table.put("key-" + i, i);
+            expected.put("key-" + i, i);
+        }
+        for (int i = 0; i < 5_000; i += 7) {
+            table.remove("key-" + i);
+            expected.remove("key-" + i);
+        }
+        table.put("ключ", -1);
+        expected.put("ключ", -1);
+        return table;
+    }
+
+    @Test
+    void writeThenRead() throws IOException {
+        Map<String, Integer> expected = new HashMap<>();
+        HashTable<String, Integer> table = sample(expected);
+        Path path = directory.resolve("table.dhts");
+
+        HashTableSnapshot.write(table, path, SnapshotCodec.STRING, SnapshotCodec.INTEGER);
+        HashTable<String, Integer> loaded = HashTableSnapshot.read(path, SnapshotCodec.STRING, SnapshotCodec.INTEGER);
+
+        assertEquals(expected, loaded);
+        assertEquals(table.size(), loaded.size());
+        assertFalse(Files.exists(directory.resolve("table.dhts.tmp")));
+        // Восстановленная таблица остается изменяемой.
+        loaded.put("key-0", 0);
+        assertEquals(Integer.valueOf(0), loaded.get("key-0"));
+    }
+
+    @Test
+    void mappedLookup() throws IOException {
+        Map<String, Integer> expected = new HashMap<>();
+        Path path = directory.resolve("table.dhts");
+        HashTableSnapshot.write(sample(expected), path, SnapshotCodec.STRING, SnapshotCodec.INTEGER);
+
+        try (MappedStringTable<Integer> mapped = MappedStringTable.open(path, SnapshotCodec.INTEGER)) {
+            assertEquals(expected.size(), mapped.size());
+            for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), mapped.get(entry.getKey()));
+            }
+            assertNull(mapped.get("key-0"));
+            assertNull(mapped.get("missing"));
+        }
+    }
+
+    @Test
+    void failedWriteKeepsPreviousSnapshot() throws IOException {
+        Map<String, Integer> expected = new HashMap<>();
+        Path path = directory.resolve("table.dhts");
+        HashTableSnapshot.write(sample(expected), path, SnapshotCodec.STRING, SnapshotCodec.INTEGER);
+
+        SnapshotCodec<Integer> failing = new SnapshotCodec<>() {
+            @Override
+            public byte[] encode(Integer value) {
+                if (value == 4_000) {
+                    throw new IllegalStateException("encode failed");
+                }
+                return SnapshotCodec.INTEGER.encode(value);
+            }
+
+            @Override
+            public Integer decode(ByteBuffer buffer, int offset, int length) {
+                return SnapshotCodec.INTEGER.decode(buffer, offset, length);
+            }
+        };
+        HashTable<String, Integer> other = new HashTable<>();
+        for (int i = 0; i < 5_000; i++) {
+            other.put("other-" + i, i);
+        }
+        assertThrows(IllegalStateException.class,
+                () -> HashTableSnapshot.write(other, path, SnapshotCodec.STRING, failing));
+
+        assertEquals(expected, HashTableSnapshot.read(path, SnapshotCodec.STRING, SnapshotCodec.INTEGER));
+        assertFalse(Files.exists(directory.resolve("table.dhts.tmp")));
+    }
+
+}
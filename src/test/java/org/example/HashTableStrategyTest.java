@@ -0,0 +1,117 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Стратегии хеширования и проб: встроенные и пользовательские реализации HashStrategy и ProbeStrategy.
+class HashTableStrategyTest {
+
+    private static final HashStrategy[] HASHES = {HashStrategy.IDENTITY, HashStrategy.MURMUR3, HashStrategy.XXHASH};
+    private static final ProbeStrategy[] PROBES = {ProbeStrategy.PRIME, ProbeStrategy.POWER_OF_TWO};
+
+    // Емкость – степень двойки, но не больше 64 ячеек.
+    private static final class SmallProbeStrategy implements ProbeStrategy {
+        @Override
+        public int tableSizeFor(int capacity) {
+            return Math.min(POWER_OF_TWO.tableSizeFor(capacity), maxCapacity());
+        }
+
+        @Override
+        public int maxCapacity() {
+            return 64;
+        }
+
+        @Override
+        public int start(int hash, int capacity) {
+            return POWER_OF_TWO.start(hash, capacity);
+        }
+
+        @Override
+        public int step(int hash, int capacity) {
+            return POWER_OF_TWO.step(hash, capacity);
+        }
+    }
+
+    // Каждое сочетание стратегий дает ту же map, что и HashMap; последовательные ключи – худший случай для IDENTITY.
+    @Test
+    void allCombinationsMatchHashMap() {
+        for (HashStrategy hashStrategy : HASHES) {
+            for (ProbeStrategy probeStrategy : PROBES) {
+                HashTable<Integer, Integer> table = new HashTable<>(16, 0.75f, hashStrategy, probeStrategy);
+                assertSame(hashStrategy, table.getHashStrategy());
+                assertSame(probeStrategy, table.getProbeStrategy());
+                Map<Integer, Integer> expected = new HashMap<>();
+                Random random = new Random(10);
+                for (int i = 0; i < 50_000; i++) {
+                    int key = random.nextBoolean() ? i : random.nextInt(20_000) << 8;
+                    if (random.nextInt(4) == 0) {
+                        assertEquals(expected.remove(key), table.remove(key));
+                    } else {
+                        assertEquals(expected.put(key, i), table.put(key, i));
+                    }
+                }
+                assertEquals(expected, table, hashStrategy + " " + probeStrategy);
+            }
+        }
+    }
+
+    // Последовательность проб встроенных стратегий обходит все ячейки массива.
+    @Test
+    void probeSequencesCoverTable() {
+        Random random = new Random(11);
+        for (ProbeStrategy probeStrategy : PROBES) {
+            for (int requested : new int[]{1, 16, 17, 100, 1_000, 4_099}) {
+                int capacity = probeStrategy.tableSizeFor(requested);
+                assertTrue(capacity >= requested);
+                assertEquals(capacity, probeStrategy.tableSizeFor(capacity));
+                for (int k = 0; k < 50; k++) {
+                    int hash = HashStrategy.MURMUR3.mix(random.nextInt());
+                    int index = probeStrategy.start(hash, capacity);
+                    int step = probeStrategy.step(hash, capacity);
+                    assertTrue(index >= 0 && index < capacity);
+                    assertTrue(step >= 1 && step < capacity);
+                    boolean[] seen = new boolean[capacity];
+                    for (int n = 0; n < capacity; n++, index = DoubleHashing.next(index, step, capacity)) {
+                        seen[index] = true;
+                    }
+                    for (int i = 0; i < capacity; i++) {
+                        assertTrue(seen[i], probeStrategy + " capacity " + capacity + " skips " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    // Рост упирается в maxCapacity() стратегии: вставка, которой не хватает места, бросает исключение
+    // и оставляет таблицу прежней.
+    @Test
+    void growthLimitedByMaxCapacity() {
+        ProbeStrategy small = new SmallProbeStrategy();
+        HashTable<Integer, Integer> table = new HashTable<>(16, 0.75f, HashStrategy.MURMUR3, small);
+        int count = 0;
+        try {
+            while (true) {
+                table.put(count, count);
+                count++;
+            }
+        } catch (IllegalStateException e) {
+            assertEquals("Table capacity cannot grow beyond 64", e.getMessage());
+        }
+        assertEquals(64, table.stats().getCapacity());
+        assertEquals(count, table.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i), table.get(i));
+        }
+        assertThrows(IllegalStateException.class, () -> small.grow(64));
+        assertEquals(64, small.grow(32));
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Операции записи с одним проходом последовательности проб: put, putIfAbsent, compute*, merge.
+class HashTableUpsertTest {
+
+    @Test
+    void randomUpsertsMatchHashMap() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(3_000);
+            Integer value = random.nextInt(100);
+            switch (random.nextInt(6)) {
+                case 0:
+                    assertEquals(expected.putIfAbsent(key, value), table.putIfAbsent(key, value));
+                    break;
+                case 1:
+                    assertEquals(expected.computeIfAbsent(key, k -> value % 3 == 0 ? null : value),
+                            table.computeIfAbsent(key, k -> value % 3 == 0 ? null : value));
+                    break;
+                case 2:
+                    assertEquals(expected.computeIfPresent(key, (k, v) -> v > 50 ? null : v + value),
+                            table.computeIfPresent(key, (k, v) -> v > 50 ? null : v + value));
+                    break;
+                case 3:
+                    assertEquals(expected.compute(key, (k, v) -> v == null ? value : (v % 2 == 0 ? null : v + 1)),
+                            table.compute(key, (k, v) -> v == null ? value : (v % 2 == 0 ? null : v + 1)));
+                    break;
+                case 4:
+                    assertEquals(expected.merge(key, value, (a, b) -> a + b > 80 ? null : a + b),
+                            table.merge(key, value, (a, b) -> a + b > 80 ? null : a + b));
+                    break;
+                default:
+                    assertEquals(expected.put(key, value), table.put(key, value));
+                    break;
+            }
+        }
+        assertEquals(expected, table);
+    }
+
+    // Функция, которая сама меняет таблицу (вплоть до роста массива), не портит результат:
+    // ячейка ищется заново, если за время вызова таблица изменилась.
+    @Test
+    void functionsThatModifyTable() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        table.put(0, 0);
+
+        assertEquals(Integer.valueOf(-1), table.computeIfAbsent(-1, k -> {
+            for (int i = 1; i < 1_000; i++) {
+                table.put(i, i);
+            }
+            return -1;
+        }));
+        assertEquals(Integer.valueOf(1), table.compute(0, (k, v) -> {
+            table.remove(999);
+            return v + 1;
+        }));
+        assertEquals(Integer.valueOf(2), table.merge(1, 1, (a, b) -> {
+            table.put(5_000, 5_000);
+            return a + b;
+        }));
+
+        assertEquals(1_001, table.size());
+        assertEquals(Integer.valueOf(-1), table.get(-1));
+        assertEquals(Integer.valueOf(1), table.get(0));
+        assertEquals(Integer.valueOf(2), table.get(1));
+        assertNull(table.get(999));
+        for (int i = 2; i < 999; i++) {
+            assertEquals(Integer.valueOf(i), table.get(i));
+        }
+    }
+
+    // Операция, которая ничего не записала, не оставляет следов: ни записи, ни удаленной ячейки.
+    @Test
+    void noOpWritesLeaveTableUnchanged() {
+        HashTable<Integer, Integer> table = new HashTable<>();
+        for (int i = 0; i < 100; i++) {
+            table.put(i, i);
+        }
+
+        assertNull(table.computeIfAbsent(500, k -> null));
+        assertNull(table.compute(501, (k, v) -> null));
+        assertNull(table.computeIfPresent(502, (k, v) -> 1));
+        assertEquals(Integer.valueOf(7), table.putIfAbsent(7, -7));
+
+        assertEquals(100, table.size());
+        assertEquals(0, table.stats().getTombstones());
+        assertFalse(table.containsKey(500));
+        assertFalse(table.containsKey(501));
+        assertFalse(table.containsKey(502));
+        assertEquals(Integer.valueOf(7), table.get(7));
+    }
+
+}
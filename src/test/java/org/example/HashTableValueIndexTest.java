@@ -0,0 +1,120 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Обратный индекс значений: поиск и удаление по значению без прохода по таблице.
+class HashTableValueIndexTest {
+
+    // Ожидаемый обратный вид: значение -> ключи.
+    private static Map<Integer, Set<String>> invert(Map<String, Integer> map) {
+        Map<Integer, Set<String>> inverse = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : map.entrySet()) {
+            inverse.computeIfAbsent(entry.getValue(), value -> new HashSet<>()).add(entry.getKey());
+        }
+        return inverse;
+    }
+
+    // Индекс остается согласованным при всех способах изменить значение записи.
+    @Test
+    void indexFollowsAllWrites() {
+        HashTable<String, Integer> table = new HashTable<>();
+        table.setValueIndexEnabled(true);
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(24);
+        for (int i = 0; i < 50_000; i++) {
+            String key = "key-" + random.nextInt(2_000);
+            // Мало различных значений: у значения бывает и один ключ, и много.
+            Integer value = random.nextInt(random.nextBoolean() ? 50 : 5_000);
+            switch (random.nextInt(7)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(key, value), table.put(key, value));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key), table.remove(key));
+                    break;
+                case 3:
+                    assertEquals(expected.replace(key, value), table.replace(key, value));
+                    break;
+                case 4:
+                    assertEquals(expected.merge(key, value, (a, b) -> a + b > 5_000 ? null : a + b),
+                            table.merge(key, value, (a, b) -> a + b > 5_000 ? null : a + b));
+                    break;
+                case 5:
+                    assertEquals(expected.remove(key, value), table.remove(key, value));
+                    break;
+                default:
+                    assertEquals(expected.containsValue(value), table.containsValue(value));
+                    break;
+            }
+        }
+        for (Map.Entry<String, Integer> entry : table.entrySet()) {
+            if (entry.getValue() % 7 == 0) {
+                expected.put(entry.getKey(), entry.getValue() + 1);
+                entry.setValue(entry.getValue() + 1);
+            }
+        }
+
+        Map<Integer, Set<String>> inverse = invert(expected);
+        assertEquals(inverse, table.inverse());
+        for (int value = 0; value < 5_100; value++) {
+            assertEquals(inverse.getOrDefault(value, Set.of()), table.getKeysForValue(value));
+            assertEquals(inverse.containsKey(value), table.containsValue(value));
+        }
+    }
+
+    // values().remove удаляет одну запись значения, inverse().remove – все.
+    @Test
+    void removeByValue() {
+        HashTable<String, Integer> table = new HashTable<>();
+        table.setValueIndexEnabled(true);
+        for (int i = 0; i < 100; i++) {
+            table.put("key-" + i, i % 10);
+        }
+
+        assertTrue(table.values().remove(3));
+        assertEquals(9, table.getKeysForValue(3).size());
+        assertEquals(10, table.inverse().remove(4).size());
+        assertFalse(table.containsValue(4));
+        assertEquals(89, table.size());
+        assertEquals(9, table.inverse().size());
+        assertThrows(UnsupportedOperationException.class, () -> table.inverse().put(100, Set.of("x")));
+    }
+
+    // Без индекса поиск по значению проходит таблицу и дает тот же результат; inverse() требует индекса.
+    @Test
+    void disabledIndex() {
+        HashTable<String, Integer> table = new HashTable<>();
+        table.setValueIndexEnabled(true);
+        for (int i = 0; i < 100; i++) {
+            table.put("key-" + i, i % 10);
+        }
+        Set<String> indexed = table.getKeysForValue(5);
+        Map<Integer, Set<String>> inverse = table.inverse();
+
+        table.setValueIndexEnabled(false);
+        assertFalse(table.isValueIndexEnabled());
+        assertEquals(indexed, table.getKeysForValue(5));
+        assertTrue(table.containsValue(5));
+        assertThrows(IllegalStateException.class, table::inverse);
+        assertThrows(IllegalStateException.class, inverse::size);
+
+        // Повторное включение строит индекс по текущему содержимому.
+        table.put("key-5", 50);
+        table.setValueIndexEnabled(true);
+        assertEquals(9, table.getKeysForValue(5).size());
+        assertEquals(Set.of("key-5"), table.getKeysForValue(50));
+    }
+
+}
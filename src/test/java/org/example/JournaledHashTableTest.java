@@ -0,0 +1,195 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Восстановление JournaledHashTable после сбоев; сбои моделируются правкой файлов закрытой таблицы.
+class JournaledHashTableTest {
+
+    @TempDir
+    Path directory;
+
+    // Таблица без фоновых контрольных точек: они выполняются только явным checkpoint().
+    private JournaledHashTable<String, Integer> open() throws IOException {
+        return JournaledHashTable.open(directory, SnapshotCodec.STRING, SnapshotCodec.INTEGER,
+                JournaledHashTable.SyncMode.ALWAYS, 1024, Duration.ofMillis(10), Duration.ZERO);
+    }
+
+    // Журнал с наибольшим номером – тот, в который дописывались последние записи.
+    private Path lastJournal() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-"))
+                    .max((a, b) -> Long.compare(generation(a), generation(b)))
+                    .orElseThrow(AssertionError::new);
+        }
+    }
+
+    private static long generation(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.lastIndexOf('.')));
+    }
+
+    // Ключи пишутся по порядку, поэтому последняя запись журнала – key-(to - 1).
+    private static void putRange(JournaledHashTable<String, Integer> table, int from, int to) {
+        for (int i = from; i < to; i++) {
+            table.put("key-" + i, i);
+        }
+    }
+
+    private static Map<String, Integer> entries(int from, int to) {
+        Map<String, Integer> entries = new HashMap<>();
+        for (int i = from; i < to; i++) {
+            entries.put("key-" + i, i);
+        }
+        return entries;
+    }
+
+    @Test
+    void truncatedFinalRecordIsDropped() throws IOException {
+        try (JournaledHashTable<String, Integer> table = open()) {
+            putRange(table, 0, 100);
+        }
+        Path journal = lastJournal();
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (JournaledHashTable<String, Integer> table = open()) {
+            assertEquals(entries(0, 99), new HashMap<>(table));
+            // Журнал усечен до последней целой записи, поэтому новые записи читаются при следующем открытии.
+            table.put("after", 1);
+        }
+        Map<String, Integer> expected = entries(0, 99);
+        expected.put("after", 1);
+        try (JournaledHashTable<String, Integer> table = open()) {
+            assertEquals(expected, new HashMap<>(table));
+        }
+    }
+
+    @Test
+    void corruptFinalRecordIsDropped() throws IOException {
+        try (JournaledHashTable<String, Integer> table = open()) {
+            putRange(table, 0, 100);
+        }
+        Path journal = lastJournal();
+        long size = Files.size(journal);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Портится последний байт значения последней записи, CRC32 перестает совпадать.
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            last.put(0, (byte) ~last.get(0));
+            last.rewind();
+            channel.write(last, size - 1);
+            // И дописывается мусор, как от записи, оборванной после заголовка.
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 42, 1, 2}), size);
+        }
+
+        try (JournaledHashTable<String, Integer> table = open()) {
+            assertEquals(entries(0, 99), new HashMap<>(table));
+            table.put("after", 1);
+        }
+        Map<String, Integer> expected = entries(0, 99);
+        expected.put("after", 1);
+        try (JournaledHashTable<String, Integer> table = open()) {
+            assertEquals(expected, new HashMap<>(table));
+        }
+    }
+
+    /* Сбой контрольной точки после переключения на новый журнал, но до переименования снимка:
+     * в каталоге остаются предыдущий снимок, его журнал, новый журнал и недописанный временный снимок.
+     */
+    @Test
+    void crashBetweenJournalSwitchAndSnapshotRename() throws IOException {
+        Path saved = Files.createDirectory(directory.resolve("saved"));
+        Map<String, Integer> expected = new HashMap<>();
+        try (JournaledHashTable<String, Integer> table = open()) {
+            putRange(table, 0, 100);
+            table.checkpoint();
+            putRange(table, 100, 200);
+            table.remove("key-5");
+            Files.copy(directory.resolve("snapshot-1.dhts"), saved.resolve("snapshot-1.dhts"));
+            Files.copy(directory.resolve("journal-1.log"), saved.resolve("journal-1.log"));
+
+            table.checkpoint();
+            putRange(table, 200, 300);
+            table.put("key-150", -150);
+            table.remove("key-6");
+            expected.putAll(table);
+        }
+        assertTrue(Files.exists(directory.resolve("journal-2.log")));
+        assertFalse(Files.exists(directory.resolve("journal-1.log")));
+
+        Files.delete(directory.resolve("snapshot-2.dhts"));
+        Files.copy(saved.resolve("snapshot-1.dhts"), directory.resolve("snapshot-1.dhts"));
+        Files.copy(saved.resolve("journal-1.log"), directory.resolve("journal-1.log"));
+        Files.write(directory.resolve("snapshot-2.dhts.tmp"), new byte[]{1, 2, 3});
+
+        try (JournaledHashTable<String, Integer> table = open()) {
+            assertEquals(expected, new HashMap<>(table));
+        }
+        assertFalse(Files.exists(directory.resolve("snapshot-2.dhts.tmp")));
+        try (JournaledHashTable<String, Integer> table = open()) {
+            assertEquals(expected, new HashMap<>(table));
+        }
+    }
+
+    // Повторное восстановление из тех же файлов дает ту же таблицу, сколько бы контрольных точек ни было.
+    @Test
+    void replayIsIdempotentAcrossCheckpoints() throws IOException {
+        Random random = new Random(17);
+        Map<String, Integer> model = new HashMap<>();
+        for (int round = 0; round < 6; round++) {
+            try (JournaledHashTable<String, Integer> table = open()) {
+                assertEquals(model, new HashMap<>(table));
+                for (int i = 0; i < 500; i++) {
+                    String key = "key-" + random.nextInt(300);
+                    int operation = random.nextInt(10);
+                    if (operation < 6) {
+                        table.put(key, i);
+                        model.put(key, i);
+                    } else if (operation < 9) {
+                        table.remove(key);
+                        model.remove(key);
+                    } else {
+                        table.merge(key, 1, Integer::sum);
+                        model.merge(key, 1, Integer::sum);
+                    }
+                    if (i == 250 && round % 2 == 0) {
+                        table.checkpoint();
+                    }
+                }
+                if (round == 3) {
+                    table.clear();
+                    model.clear();
+                    table.put("after-clear", round);
+                    model.put("after-clear", round);
+                }
+                if (round % 3 == 1) {
+                    table.checkpoint();
+                }
+            }
+            for (int reopen = 0; reopen < 2; reopen++) {
+                try (JournaledHashTable<String, Integer> table = open()) {
+                    assertEquals(model, new HashMap<>(table));
+                }
+            }
+        }
+    }
+
+}
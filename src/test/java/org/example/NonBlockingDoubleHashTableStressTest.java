@@ -0,0 +1,150 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Многопоточные проверки NonBlockingDoubleHashTable: таблица создается маленькой, чтобы все время расти.
+class NonBlockingDoubleHashTableStressTest {
+
+    private static final int THREADS = 8;
+    private static final int KEYS_PER_THREAD = 20_000;
+
+    // Запускает задачу в THREADS потоках одновременно и ждет их завершения, пробрасывая ошибки.
+    private static void runConcurrently(Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    @Test
+    void disjointPutAndRemoveWhileGrowing() throws Exception {
+        NonBlockingDoubleHashTable<Integer, Integer> table = new NonBlockingDoubleHashTable<>(16);
+        runConcurrently(thread -> {
+            int from = thread * KEYS_PER_THREAD;
+            for (int i = from; i < from + KEYS_PER_THREAD; i++) {
+                assertNull(table.put(i, -i));
+            }
+            for (int i = from; i < from + KEYS_PER_THREAD; i += 2) {
+                assertEquals(Integer.valueOf(-i), table.remove(i));
+            }
+            for (int i = from; i < from + KEYS_PER_THREAD; i++) {
+                assertEquals(i % 2 == 0 ? null : Integer.valueOf(-i), table.get(i));
+            }
+        });
+
+        assertEquals(THREADS * KEYS_PER_THREAD / 2, table.size());
+        for (int i = 0; i < THREADS * KEYS_PER_THREAD; i++) {
+            if (i % 2 == 0) {
+                assertFalse(table.containsKey(i));
+            } else {
+                assertEquals(Integer.valueOf(-i), table.get(i));
+            }
+        }
+    }
+
+    @Test
+    void putIfAbsentAndReplaceCounter() throws Exception {
+        NonBlockingDoubleHashTable<String, Integer> table = new NonBlockingDoubleHashTable<>(2);
+        int increments = 10_000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < increments; i++) {
+                // Счетчик и посторонние ключи, чтобы CAS по счетчику шел на фоне роста таблицы.
+                table.put("filler-" + thread + "-" + i, i);
+                while (true) {
+                    Integer current = table.putIfAbsent("counter", 1);
+                    if (current == null || table.replace("counter", current, current + 1)) {
+                        break;
+                    }
+                }
+            }
+        });
+
+        assertEquals(Integer.valueOf(THREADS * increments), table.get("counter"));
+        assertEquals(THREADS * increments + 1, table.size());
+    }
+
+    @Test
+    void sizeMatchesIteration() throws Exception {
+        NonBlockingDoubleHashTable<Integer, Integer> table = new NonBlockingDoubleHashTable<>(16);
+        // Постоянные ключи не меняются во время теста: слабо согласованный итератор обязан их вернуть.
+        int stable = 1_000;
+        for (int i = 0; i < stable; i++) {
+            table.put(-1 - i, i);
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        runConcurrently(thread -> {
+            if (thread == 0) {
+                try {
+                    int from = KEYS_PER_THREAD;
+                    for (int i = from; i < from + KEYS_PER_THREAD * 4; i++) {
+                        table.put(i, i);
+                        if (i % 3 == 0) {
+                            table.remove(i - 1);
+                        }
+                    }
+                } finally {
+                    writing.set(false);
+                }
+                return;
+            }
+            while (writing.get()) {
+                Set<Integer> seen = new HashSet<>();
+                for (Map.Entry<Integer, Integer> entry : table.entrySet()) {
+                    if (entry.getKey() < 0) {
+                        assertTrue(seen.add(entry.getKey()));
+                        assertEquals(Integer.valueOf(-1 - entry.getKey()), entry.getValue());
+                    }
+                }
+                assertEquals(stable, seen.size());
+            }
+        });
+
+        int iterated = 0;
+        Set<Integer> keys = new HashSet<>();
+        for (Map.Entry<Integer, Integer> entry : table.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()));
+            keys.add(entry.getKey());
+            iterated++;
+        }
+        assertEquals(table.size(), iterated);
+        assertEquals(iterated, keys.size());
+        assertEquals(keys, new HashSet<>(table.keySet()));
+    }
+
+}
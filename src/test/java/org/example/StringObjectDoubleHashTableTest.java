@@ -0,0 +1,112 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Строковые ключи в arena: поиск по CharSequence и по байтам UTF-8.
+class StringObjectDoubleHashTableTest {
+
+    private static final List<String> KEYS = List.of("key", "", "ключ", "ещё один ключ", "😀", "a😀b",
+            "日本語", "été", "смесь ascii и 😀😀");
+
+    // Каждый ключ находится по String, по StringBuilder и по байтам UTF-8, в том числе внутри большего массива.
+    @Test
+    void lookupsByCharSequenceAndBytes() {
+        StringObjectDoubleHashTable<Integer> table = new StringObjectDoubleHashTable<>();
+        long bytes = 0;
+        for (int i = 0; i < KEYS.size(); i++) {
+            assertNull(table.put(KEYS.get(i), i));
+            bytes += KEYS.get(i).getBytes(StandardCharsets.UTF_8).length;
+        }
+        assertEquals(KEYS.size(), table.size());
+        assertEquals(bytes, table.keyBytes());
+
+        for (int i = 0; i < KEYS.size(); i++) {
+            String key = KEYS.get(i);
+            byte[] utf8 = key.getBytes(StandardCharsets.UTF_8);
+            byte[] padded = new byte[utf8.length + 5];
+            System.arraycopy(utf8, 0, padded, 3, utf8.length);
+
+            assertEquals(i, table.get(key));
+            assertEquals(i, table.get(new StringBuilder(key)));
+            assertEquals(i, table.get(utf8));
+            assertEquals(i, table.get(padded, 3, utf8.length));
+            assertTrue(table.containsKey(utf8));
+            assertTrue(table.containsKey(padded, 3, utf8.length));
+        }
+
+        // Префикс ключа и обрезанная последовательность UTF-8 не совпадают с ключом.
+        byte[] emoji = "a😀b".getBytes(StandardCharsets.UTF_8);
+        assertFalse(table.containsKey(emoji, 0, 3));
+        assertFalse(table.containsKey("a😀"));
+        assertNull(table.get(new byte[]{(byte) 0xF0, (byte) 0x9F}));
+        assertEquals(-1, table.getOrDefault("нет", -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.get(emoji, 4, 3));
+        assertThrows(NullPointerException.class, () -> table.put("null", null));
+    }
+
+    // Непарные суррогаты хранятся тремя байтами и возвращаются в forEach без изменений.
+    @Test
+    void unpairedSurrogates() {
+        StringObjectDoubleHashTable<String> table = new StringObjectDoubleHashTable<>();
+        List<String> keys = List.of("\uD800", "a\uDC00", "\uDBFF\uDBFF", "\uDC00\uD800", "😀\uD83D");
+        for (String key : keys) {
+            table.put(key, key);
+        }
+        assertEquals(3 + 4 + 6 + 6 + 7, table.keyBytes());
+
+        Map<String, String> seen = new HashMap<>();
+        table.forEach(seen::put);
+        assertEquals(keys.size(), seen.size());
+        for (String key : keys) {
+            assertEquals(key, seen.get(key));
+            assertEquals(key, table.get(new StringBuilder(key)));
+        }
+        // Суррогатная пара из двух половин – другой ключ, чем непарные половины по отдельности.
+        assertNull(table.get("😀"));
+        assertNull(table.get("\uD800".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Случайные put/remove с ростом таблицы против HashMap.
+    @Test
+    void matchesHashMap() {
+        StringObjectDoubleHashTable<Integer> table = new StringObjectDoubleHashTable<>(4);
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(25);
+        for (int i = 0; i < 100_000; i++) {
+            int n = random.nextInt(20_000);
+            String key = KEYS.get(n % KEYS.size()) + n;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), table.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), table.put(new StringBuilder(key), i));
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey().getBytes(StandardCharsets.UTF_8)));
+        }
+        Map<String, Integer> actual = new HashMap<>();
+        table.forEach(actual::put);
+        assertEquals(expected, actual);
+
+        table.clear();
+        assertTrue(table.isEmpty());
+        assertEquals(0, table.keyBytes());
+        assertNull(table.get(KEYS.get(0) + 0));
+        table.put("снова", 1);
+        assertEquals(1, table.get("снова".getBytes(StandardCharsets.UTF_8)));
+    }
+
+}